@@ -0,0 +1,36 @@
+package com.SRVK.Hardware.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@Slf4j
+public class AnalyticsConfig {
+
+    /**
+     * Applies daily rollup deltas after their business transaction commits (see AnalyticsService).
+     * A single writer by default so concurrent upserts don't contend for the same hot rollup rows.
+     * The queue is bounded: when the database falls that far behind, further deltas are dropped
+     * and logged, and a rebuild of the affected days repairs the rollups. Queued deltas are
+     * written before shutdown completes.
+     */
+    @Bean(name = "rollupExecutor")
+    public ThreadPoolTaskExecutor rollupExecutor(
+            @Value("${app.analytics.writer-threads:1}") int threads,
+            @Value("${app.analytics.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("daily-rollups-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                log.error("Daily rollup queue full, dropping deltas; rebuild today's rollups to repair"));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,42 @@
+package com.SRVK.Hardware.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ExportConfig {
+
+    /**
+     * Small bounded pool that runs streaming responses and file exports, so long exports
+     * never hold Tomcat request threads. Submissions beyond the queue are rejected rather
+     * than piling up open database cursors.
+     */
+    @Bean(name = "exportExecutor")
+    public ThreadPoolTaskExecutor exportExecutor(
+            @Value("${app.exports.threads:4}") int threads,
+            @Value("${app.exports.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-");
+        executor.initialize();
+        return executor;
+    }
+
+    // StreamingResponseBody bodies are written on the export pool
+    @Bean
+    public WebMvcConfigurer exportAsyncConfigurer(@Qualifier("exportExecutor") ThreadPoolTaskExecutor exportExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(exportExecutor);
+            }
+        };
+    }
+}
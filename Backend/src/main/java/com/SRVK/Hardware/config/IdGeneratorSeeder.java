@@ -0,0 +1,48 @@
+package com.SRVK.Hardware.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the pooled id generators in id_generators past the ids that were handed out by
+ * AUTO_INCREMENT before order_items and rental_orders switched to table-based ids.
+ * Runs during context startup, before the web server accepts requests.
+ */
+@Component
+@DependsOn("entityManagerFactory") // runs after the Flyway migrations that create id_generators
+@RequiredArgsConstructor
+@Slf4j
+public class IdGeneratorSeeder {
+
+    // Must match allocationSize of the @TableGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void seed() {
+        seed("order_items");
+        seed("rental_orders");
+    }
+
+    private void seed(String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        // The pooled optimizer hands out (next_val - allocation, next_val], so keep that whole window above maxId
+        long floor = maxId + ALLOCATION_SIZE + 1;
+        int updated = jdbcTemplate.update(
+                "UPDATE id_generators SET next_val = ? WHERE gen_name = ? AND next_val < ?", floor, table, floor);
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM id_generators WHERE gen_name = ?", Integer.class, table);
+        if (rows == 0) {
+            jdbcTemplate.update("INSERT INTO id_generators (gen_name, next_val) VALUES (?, ?)", table, floor);
+            updated = 1;
+        }
+        if (updated > 0) {
+            log.info("Seeded id generator for {} at {}", table, floor);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.SRVK.Hardware.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@Slf4j
+public class ImageProcessingConfig {
+
+    /**
+     * Bounded pool for resizing uploaded images off the request thread.
+     * When the queue is full the job is dropped: image URLs fall back to the original until
+     * the variants exist, so a dropped job only costs bandwidth, never a broken image.
+     */
+    @Bean(name = "imageProcessingExecutor")
+    public ThreadPoolTaskExecutor imageProcessingExecutor(
+            @Value("${app.images.processing.threads:2}") int threads,
+            @Value("${app.images.processing.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-proc-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                log.warn("Image processing queue full, skipping variant generation"));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,46 @@
+package com.SRVK.Hardware.config;
+
+import com.SRVK.Hardware.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Authenticates requests that carry "Authorization: Bearer <jwt>" (issued at login) and exposes
+ * the user as the request attribute PRINCIPAL, read by controllers with
+ * {@code @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)}.
+ * Requests without a token pass through unauthenticated; a bad or expired token is rejected with 401.
+ */
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String PRINCIPAL = "com.SRVK.Hardware.principal";
+    private static final String BEARER = "Bearer ";
+
+    private final TokenService tokenService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER) || "OPTIONS".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            request.setAttribute(PRINCIPAL, tokenService.verify(header.substring(BEARER.length()).trim()));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
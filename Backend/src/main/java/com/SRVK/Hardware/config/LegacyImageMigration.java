@@ -0,0 +1,76 @@
+package com.SRVK.Hardware.config;
+
+import com.SRVK.Hardware.service.ImageStorageService;
+import com.SRVK.Hardware.service.ImageVariantService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Flyway migration V9: moves images that were stored as BLOBs in the old product.image / tools.image
+ * columns into the content-addressed image store. V10 then drops those columns, so it can only run
+ * once every image has been moved. A Spring bean (Spring Boot hands it to Flyway) because it needs
+ * the image services. The store writes on its own connection and commits at once, so the variant
+ * generation queued here can already read the moved image.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LegacyImageMigration implements JavaMigration {
+
+    private final ImageStorageService imageStorageService;
+    private final ImageVariantService imageVariantService;
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("9");
+    }
+
+    @Override
+    public String getDescription() {
+        return "move legacy images";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        migrate(jdbcTemplate, "product");
+        migrate(jdbcTemplate, "tools");
+    }
+
+    private void migrate(JdbcTemplate jdbcTemplate, String table) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE image IS NOT NULL AND image_hash IS NULL", Long.class);
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        log.info("Migrating {} legacy image(s) from {}", ids.size(), table);
+        for (Long id : ids) {
+            // One row at a time so only a single image is held in memory
+            byte[] image = jdbcTemplate.queryForObject("SELECT image FROM " + table + " WHERE id = ?", byte[].class, id);
+            // Not limited by app.images.max-bytes: an oversized old image must not stop startup
+            String hash = imageStorageService.storeExisting(image);
+            jdbcTemplate.update("UPDATE " + table + " SET image_hash = ?, image = NULL WHERE id = ?", hash, id);
+            imageVariantService.generateAsync(hash);
+        }
+        log.info("Finished migrating legacy images from {}", table);
+    }
+}
@@ -0,0 +1,46 @@
+package com.SRVK.Hardware.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class PaymentConfig {
+
+    /**
+     * Bulkhead for payment gateway calls: at most this many charges are in flight and a bounded
+     * number wait, so a slow gateway ties up these threads instead of request threads and JDBC
+     * connections. Submissions beyond the queue are rejected and the order's payment fails.
+     */
+    @Bean(name = "paymentExecutor")
+    public ThreadPoolTaskExecutor paymentExecutor(
+            @Value("${app.payment.bulkhead.max-concurrent:16}") int maxConcurrent,
+            @Value("${app.payment.bulkhead.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("payment-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs the transactions that record a charge's outcome on the order. Separate from the
+     * bulkhead so outcomes are recorded even while every gateway call is stuck, and small since
+     * each one is a short transaction.
+     */
+    @Bean(name = "paymentFinalizerExecutor")
+    public ThreadPoolTaskExecutor paymentFinalizerExecutor(
+            @Value("${app.payment.finalizer-threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("payment-finalize-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
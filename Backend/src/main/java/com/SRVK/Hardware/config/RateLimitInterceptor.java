@@ -0,0 +1,67 @@
+package com.SRVK.Hardware.config;
+
+import com.SRVK.Hardware.service.RateLimitService;
+import com.SRVK.Hardware.service.TokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Answers 429 with Retry-After for calls to RateLimited endpoints over their policy's limit
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimitService rateLimitService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        RateLimited limit = method.getMethodAnnotation(RateLimited.class);
+        if (limit == null) {
+            limit = method.getBeanType().getAnnotation(RateLimited.class);
+        }
+        if (limit == null) {
+            return true;
+        }
+
+        long retryAfter = rateLimitService.tryAcquire(limit.value(),
+                limit.byAddress() ? addressKey(request) : clientKey(request));
+        if (retryAfter == 0) {
+            return true;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Too many requests, try again in " + retryAfter + "s");
+        return false;
+    }
+
+    /**
+     * The client a request is counted against: the authenticated user, otherwise the remote address.
+     * Behind a reverse proxy, set server.forward-headers-strategy so the remote address is the client's.
+     */
+    public static String clientKey(HttpServletRequest request) {
+        if (request.getAttribute(JwtAuthenticationFilter.PRINCIPAL) instanceof TokenService.Principal principal) {
+            return "user:" + principal.userId();
+        }
+        return addressKey(request);
+    }
+
+    /**
+     * The remote address a request comes from, whatever token it carries (see RateLimited.byAddress)
+     */
+    public static String addressKey(HttpServletRequest request) {
+        return "ip:" + request.getRemoteAddr();
+    }
+}
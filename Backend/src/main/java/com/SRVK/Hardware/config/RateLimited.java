@@ -0,0 +1,31 @@
+package com.SRVK.Hardware.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate-limits a controller method, or every method of a controller, per client: the authenticated
+ * user when the request carries a token, otherwise the client address (always the address with
+ * byAddress). A method annotation replaces the class one. Enforced by RateLimitInterceptor before
+ * the method runs.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+
+    /**
+     * Policy name, one of the RateLimitService constants
+     */
+    String value();
+
+    /**
+     * Count by client address even when the request carries a token. For endpoints guarding
+     * credentials or account creation, where tokens of self-registered accounts would otherwise
+     * each open a fresh bucket.
+     */
+    boolean byAddress() default false;
+}
@@ -0,0 +1,35 @@
+package com.SRVK.Hardware.config;
+
+import com.SRVK.Hardware.service.InventoryMutationService;
+import com.SRVK.Hardware.service.ToolAvailabilityService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the tool_daily_booking table from existing active rentals the first time
+ * the application starts with it, so availability checks see rentals made before it existed.
+ * Then derives every tool's stock from its rentals, which also catches up on days the
+ * application was down.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ToolBookingBackfill implements ApplicationRunner {
+
+    private final ToolAvailabilityService toolAvailabilityService;
+    private final InventoryMutationService inventoryMutationService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (toolAvailabilityService.isEmpty()) {
+            toolAvailabilityService.rebuild();
+        }
+        int changed = inventoryMutationService.refreshAllTools();
+        if (changed > 0) {
+            log.info("Refreshed stock of {} tool(s) from their rentals", changed);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.entity.DailyRollup;
+import com.SRVK.Hardware.service.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    // Daily rollup rows (?dimension=TOTAL|CATEGORY|TOOL|PAYMENT&from=2025-01-01&to=2025-01-31)
+    @GetMapping("/daily")
+    public ResponseEntity<?> daily(@RequestParam(defaultValue = DailyRollup.DIM_TOTAL) String dimension,
+                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            List<DailyRollup> rows = analyticsService.getDaily(dimension, from, to);
+            return ResponseEntity.ok(rows);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Recompute the rollups of a date range from the order and rental tables (Admin)
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            analyticsService.rebuild(from, to);
+            return ResponseEntity.ok().body("{\"message\":\"Rollups rebuilt\"}");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
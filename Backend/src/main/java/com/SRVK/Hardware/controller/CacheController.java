@@ -0,0 +1,22 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.service.CatalogCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final CatalogCacheService catalogCacheService;
+
+    // Hit/miss counters for the catalog read cache
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(catalogCacheService.stats());
+    }
+}
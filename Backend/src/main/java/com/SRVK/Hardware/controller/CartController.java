@@ -1,12 +1,17 @@
 package com.SRVK.Hardware.controller;
 
+import com.SRVK.Hardware.config.JwtAuthenticationFilter;
+import com.SRVK.Hardware.config.RateLimited;
 import com.SRVK.Hardware.dto.*;
 import com.SRVK.Hardware.entity.Tool;
 import com.SRVK.Hardware.repository.ToolRepository;
 import com.SRVK.Hardware.service.CheckoutService;
 import com.SRVK.Hardware.service.CartService;
+import com.SRVK.Hardware.service.RateLimitService;
+import com.SRVK.Hardware.service.TokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,6 +20,7 @@ import java.util.List;
 
 @RestController
 @RequestMapping("/api/cart")
+@RateLimited(RateLimitService.CART)
 @RequiredArgsConstructor
 @Slf4j
 public class CartController {
@@ -23,7 +29,13 @@ public class CartController {
     private final ToolRepository toolRepository; // Add this for debugging
 
     @PostMapping("/product/add")
-    public ResponseEntity<?> addProduct(@RequestBody AddProductCartRequest request) {
+    public ResponseEntity<?> addProduct(@RequestBody AddProductCartRequest request,
+                                        @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                        TokenService.Principal principal) {
+        ResponseEntity<?> refused = refuse(principal, request.getUserId());
+        if (refused != null) {
+            return refused;
+        }
         try {
             cartService.addProductToCart(request);
             return ResponseEntity.ok().build();
@@ -33,8 +45,14 @@ public class CartController {
     }
 
     @PostMapping("/rental/add")
-    public ResponseEntity<?> addRental(@RequestBody AddRentalCartRequest request) {
+    public ResponseEntity<?> addRental(@RequestBody AddRentalCartRequest request,
+                                       @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                       TokenService.Principal principal) {
         log.info("Received rental add request: {}", request);
+        ResponseEntity<?> refused = refuse(principal, request.getUserId());
+        if (refused != null) {
+            return refused;
+        }
         try {
             // Log the exact fields we're receiving to help debug
             log.info("Request details - userId: {}, rentalId: {}, quantity: {}, start: {}, end: {}", 
@@ -52,9 +70,16 @@ public class CartController {
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<?> getCart(@PathVariable Long userId) {
+    public ResponseEntity<?> getCart(@PathVariable Long userId,
+                                     @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                     TokenService.Principal principal) {
+        ResponseEntity<?> refused = refuse(principal, userId);
+        if (refused != null) {
+            return refused;
+        }
         try {
-            CartResponseDTO cart = cartService.getCartByUser(userId);
+            // The token already identifies its own user; only an admin looking at another cart needs the lookup
+            CartResponseDTO cart = cartService.getCartByUser(userId, principal.userId() != userId);
             return ResponseEntity.ok(cart);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"success\":false,\"message\":\""+e.getMessage()+"\"}");
@@ -62,7 +87,13 @@ public class CartController {
     }
 
     @PutMapping("/product/{userId}/{productId}")
-    public ResponseEntity<?> updateProduct(@PathVariable Long userId, @PathVariable Long productId, @RequestBody UpdateProductCartRequest request) {
+    public ResponseEntity<?> updateProduct(@PathVariable Long userId, @PathVariable Long productId, @RequestBody UpdateProductCartRequest request,
+                                           @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                           TokenService.Principal principal) {
+        ResponseEntity<?> refused = refuse(principal, userId);
+        if (refused != null) {
+            return refused;
+        }
         try {
             cartService.updateProductQuantity(userId, productId, request);
             return ResponseEntity.ok().build();
@@ -72,7 +103,13 @@ public class CartController {
     }
 
     @PutMapping("/rental/{userId}/{toolId}")
-    public ResponseEntity<?> updateRental(@PathVariable Long userId, @PathVariable Long toolId, @RequestBody UpdateRentalCartRequest request) {
+    public ResponseEntity<?> updateRental(@PathVariable Long userId, @PathVariable Long toolId, @RequestBody UpdateRentalCartRequest request,
+                                          @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                          TokenService.Principal principal) {
+        ResponseEntity<?> refused = refuse(principal, userId);
+        if (refused != null) {
+            return refused;
+        }
         try {
             cartService.updateRentalDuration(userId, toolId, request);
             return ResponseEntity.ok().build();
@@ -82,7 +119,13 @@ public class CartController {
     }
 
     @DeleteMapping("/product/{userId}/{productId}")
-    public ResponseEntity<?> deleteProduct(@PathVariable Long userId, @PathVariable Long productId) {
+    public ResponseEntity<?> deleteProduct(@PathVariable Long userId, @PathVariable Long productId,
+                                           @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                           TokenService.Principal principal) {
+        ResponseEntity<?> refused = refuse(principal, userId);
+        if (refused != null) {
+            return refused;
+        }
         try {
             cartService.removeProductFromCart(userId, productId);
             return ResponseEntity.ok().build();
@@ -92,7 +135,13 @@ public class CartController {
     }
 
     @DeleteMapping("/rental/{userId}/{toolId}")
-    public ResponseEntity<?> deleteRental(@PathVariable Long userId, @PathVariable Long toolId) {
+    public ResponseEntity<?> deleteRental(@PathVariable Long userId, @PathVariable Long toolId,
+                                          @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                          TokenService.Principal principal) {
+        ResponseEntity<?> refused = refuse(principal, userId);
+        if (refused != null) {
+            return refused;
+        }
         try {
             cartService.removeRentalFromCart(userId, toolId);
             return ResponseEntity.ok().build();
@@ -102,7 +151,14 @@ public class CartController {
     }
 
     @PostMapping("/{userId}/checkout")
-    public ResponseEntity<?> checkout(@PathVariable Long userId, @RequestBody CheckoutRequestDTO request) {
+    @RateLimited(RateLimitService.CHECKOUT)
+    public ResponseEntity<?> checkout(@PathVariable Long userId, @RequestBody CheckoutRequestDTO request,
+                                      @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                      TokenService.Principal principal) {
+        ResponseEntity<?> refused = refuse(principal, userId);
+        if (refused != null) {
+            return refused;
+        }
         try {
             if (!userId.equals(request.getUserId())) {
                 return ResponseEntity.badRequest().body("{\"success\":false,\"message\":\"userId path and body mismatch\"}");
@@ -163,7 +219,13 @@ public class CartController {
             @PathVariable Long toolId,
             @RequestParam(required = false, defaultValue = "1") Integer quantity,
             @RequestParam(required = false) String start,
-            @RequestParam(required = false) String end) {
+            @RequestParam(required = false) String end,
+            @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+            TokenService.Principal principal) {
+        ResponseEntity<?> refused = refuse(principal, userId);
+        if (refused != null) {
+            return refused;
+        }
         try {
             log.info("Debug adding rental: userId={}, toolId={}, quantity={}, start={}, end={}",
                     userId, toolId, quantity, start, end);
@@ -192,7 +254,16 @@ public class CartController {
         }
     }
     @PostMapping("/{userId}/checkout-rentals")
-    public ResponseEntity<java.util.List<com.SRVK.Hardware.entity.RentalOrder>> checkoutRentals(@PathVariable Long userId) {
+    @RateLimited(RateLimitService.CHECKOUT)
+    public ResponseEntity<java.util.List<com.SRVK.Hardware.entity.RentalOrder>> checkoutRentals(@PathVariable Long userId,
+            @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+            TokenService.Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!principal.canAccess(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
         try{
             return ResponseEntity.ok(cartService.checkoutRentals(userId));
         }
@@ -200,4 +271,18 @@ public class CartController {
             return ResponseEntity.status(400).build();
         }
     }
+
+    /**
+     * Cart calls act for the signed-in user only; an admin may act on any user's cart.
+     * Returns the 401/403 response to send, or null when the call may go ahead.
+     */
+    private static ResponseEntity<?> refuse(TokenService.Principal principal, Long userId) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("{\"success\":false,\"message\":\"Sign in to use the cart\"}");
+        }
+        if (!principal.canAccess(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("{\"success\":false,\"message\":\"Not allowed to use this cart\"}");
+        }
+        return null;
+    }
 }
@@ -0,0 +1,46 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.service.OptimisticRetryExecutor;
+import com.SRVK.Hardware.service.PasswordHashingService;
+import com.SRVK.Hardware.service.PaymentOrchestrator;
+import com.SRVK.Hardware.service.RateLimitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/concurrency")
+@RequiredArgsConstructor
+public class ConcurrencyController {
+
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final PasswordHashingService passwordHashingService;
+    private final RateLimitService rateLimitService;
+    private final PaymentOrchestrator paymentOrchestrator;
+
+    // Optimistic lock conflicts and retries per write operation
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(optimisticRetryExecutor.stats());
+    }
+
+    // BCrypt cost, pool queue depth and rejected hashing requests
+    @GetMapping("/password-hashing")
+    public ResponseEntity<Map<String, Object>> passwordHashing() {
+        return ResponseEntity.ok(passwordHashingService.stats());
+    }
+
+    // Allowed and rejected calls and tracked keys per rate limit policy
+    @GetMapping("/rate-limits")
+    public ResponseEntity<Map<String, Object>> rateLimits() {
+        return ResponseEntity.ok(rateLimitService.stats());
+    }
+
+    // Payment outcomes, circuit breaker state and bulkhead usage
+    @GetMapping("/payments")
+    public ResponseEntity<Map<String, Object>> payments() {
+        return ResponseEntity.ok(paymentOrchestrator.stats());
+    }
+}
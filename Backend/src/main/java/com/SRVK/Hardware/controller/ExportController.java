@@ -0,0 +1,76 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.dto.ExportRequest;
+import com.SRVK.Hardware.service.ExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/exports")
+@Slf4j
+public class ExportController {
+
+    private final ExportService exportService;
+    private final ThreadPoolTaskExecutor exportExecutor;
+
+    public ExportController(ExportService exportService,
+                            @Qualifier("exportExecutor") ThreadPoolTaskExecutor exportExecutor) {
+        this.exportService = exportService;
+        this.exportExecutor = exportExecutor;
+    }
+
+    // Stream orders, order-items or rentals (?format=csv|ndjson&from=&to=&incremental=true&gzip=true)
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable String dataset, ExportRequest request) {
+        ExportService.Dataset ds;
+        try {
+            ds = ExportService.Dataset.fromKey(dataset);
+            exportService.validate(request);
+        } catch (IllegalArgumentException e) {
+            // The body type is fixed to a stream here, so report bad input through the status reason
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> exportService.export(ds, request, out);
+        MediaType type = request.isGzip() ? MediaType.parseMediaType("application/gzip")
+                : "ndjson".equalsIgnoreCase(request.getFormat()) ? MediaType.parseMediaType("application/x-ndjson")
+                : MediaType.parseMediaType("text/csv");
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportService.fileName(ds, request) + "\"")
+                .body(body);
+    }
+
+    // Write the export to a file in the export directory in the background
+    @PostMapping("/{dataset}/file")
+    public ResponseEntity<?> exportToFile(@PathVariable String dataset, ExportRequest request) {
+        try {
+            ExportService.Dataset ds = ExportService.Dataset.fromKey(dataset);
+            exportService.validate(request);
+            String fileName = exportService.fileName(ds, request);
+            exportExecutor.execute(() -> {
+                try {
+                    exportService.exportToFile(ds, request, fileName);
+                } catch (Exception e) {
+                    log.error("Export of {} to {} failed", ds.key(), fileName, e);
+                }
+            });
+            return ResponseEntity.accepted().body(Map.of("file", fileName));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many exports running, try again later");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.service.ImageStorageService;
+import com.SRVK.Hardware.service.ImageVariantService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/images")
+@RequiredArgsConstructor
+public class ImageController {
+
+    private final ImageStorageService imageStorageService;
+
+    /**
+     * Stream a stored image by its content hash.
+     * Range requests are supported and, because the URL changes whenever the content does,
+     * it can be cached as immutable.
+     */
+    @GetMapping("/{hash}")
+    public ResponseEntity<Resource> get(@PathVariable String hash) {
+        return imageStorageService.load(hash)
+                .map(resource -> ResponseEntity.ok()
+                        .contentType(imageStorageService.contentType(resource))
+                        .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                        .eTag(hash)
+                        .body(resource))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Stream a resized variant (thumb, card, detail) of a stored image.
+     * Until the variant has been generated the original is served with a short cache lifetime,
+     * so clients pick up the smaller file once it exists.
+     */
+    @GetMapping("/{hash}/{variant}")
+    public ResponseEntity<Resource> getVariant(@PathVariable String hash, @PathVariable String variant) {
+        if (ImageVariantService.Variant.fromKey(variant).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Resource resized = imageStorageService.loadVariant(hash, variant).orElse(null);
+        if (resized != null) {
+            return ResponseEntity.ok()
+                    .contentType(imageStorageService.contentType(resized))
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                    .eTag(hash + "-" + variant)
+                    .body(resized);
+        }
+        return imageStorageService.load(hash)
+                .map(resource -> ResponseEntity.ok()
+                        .contentType(imageStorageService.contentType(resource))
+                        .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic())
+                        .eTag(hash)
+                        .body(resource))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,23 +1,25 @@
 package com.SRVK.Hardware.controller;
 
-import com.SRVK.Hardware.dto.OrderResponseDTO;
+import com.SRVK.Hardware.config.JwtAuthenticationFilter;
+import com.SRVK.Hardware.dto.AdminOrderQuery;
 import com.SRVK.Hardware.entity.Order;
-import com.SRVK.Hardware.entity.OrderItem;
-import com.SRVK.Hardware.entity.RentalOrder;
-import com.SRVK.Hardware.entity.Tool;
-import com.SRVK.Hardware.entity.User;
 import com.SRVK.Hardware.repository.OrderRepository;
-import com.SRVK.Hardware.repository.RentalOrderRepository;
-import com.SRVK.Hardware.repository.ToolRepository;
 import com.SRVK.Hardware.repository.UserRepository;
+import com.SRVK.Hardware.service.OptimisticRetryExecutor;
+import com.SRVK.Hardware.service.OrderHistoryService;
+import com.SRVK.Hardware.service.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -26,158 +28,74 @@ import java.util.Optional;
 public class OrderController {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
-    private final RentalOrderRepository rentalOrderRepository;
-    private final ToolRepository toolRepository;
+    private final OrderHistoryService orderHistoryService;
+    private final ObjectMapper objectMapper;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
 
     @GetMapping("/{userId}")
-    public ResponseEntity<?> getOrders(@PathVariable Long userId) {
-        Optional<User> userOpt = userRepository.findById(userId);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body("User not found");
+    public ResponseEntity<?> getOrders(@PathVariable Long userId,
+                                       @RequestAttribute(name = JwtAuthenticationFilter.PRINCIPAL, required = false)
+                                       TokenService.Principal principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Sign in to view orders");
         }
-        
-        List<Order> orders = orderRepository.findByUser(userOpt.get());
-        List<OrderResponseDTO> dtos = new ArrayList<>();
-        
-        for (Order order : orders) {
-            List<OrderResponseDTO.Item> items = new ArrayList<>();
-            
-            // Add product items from OrderItem
-            for (OrderItem oi : order.getItems()) {
-                items.add(OrderResponseDTO.Item.builder()
-                    .type("PRODUCT")
-                    .productId(oi.getProduct().getId())
-                    .rentalId(null)
-                    .name(oi.getProduct().getName())
-                    .quantity(oi.getQuantity())
-                    .unitPrice(oi.getUnitPrice())
-                    .subtotal(oi.getSubtotal())
-                    .rentalStart(null)
-                    .rentalEnd(null)
-                    .build());
-            }
-            
-            // Get rental orders for this user from the separate rental system
-            List<RentalOrder> userRentals = rentalOrderRepository.findByUserId(userId);
-            
-            // Add rental items
-            for (RentalOrder rental : userRentals) {
-                Tool tool = toolRepository.findById(rental.getToolId()).orElse(null);
-                items.add(OrderResponseDTO.Item.builder()
-                    .type("RENTAL")
-                    .productId(null)
-                    .rentalId(rental.getToolId())
-                    .name(tool != null ? tool.getName() : "Unknown Tool")
-                    .quantity(rental.getQuantity())
-                    .unitPrice(tool != null ? tool.getDailyRate() : BigDecimal.ZERO)
-                    .subtotal(rental.getTotalCost())
-                    .rentalStart(rental.getStartDate().atStartOfDay())
-                    .rentalEnd(rental.getEndDate().atStartOfDay())
-                    .build());
-            }
-            
-            // Determine payment status for COD orders
-            String displayPaymentStatus = order.getPaymentStatus();
-            if ("CASH".equals(order.getPaymentMethod()) && 
-                !"PAID".equals(order.getPaymentStatus())) {
-                displayPaymentStatus = "COD";
-            }
-            
-            OrderResponseDTO orderDto = OrderResponseDTO.builder()
-                .orderId(order.getId())
-                .userId(order.getUser().getId())
-                .userName(order.getUser().getUsername())
-                .userEmail(order.getUser().getEmail())
-                .total(order.getTotalAmount())
-                .items(items)
-                .paymentStatus(displayPaymentStatus)
-                .transactionId(order.getTransactionId())
-                .paymentMethod(order.getPaymentMethod())
-                .orderDate(order.getCreatedAt())
-                .deliveryStatus(order.getDeliveryStatus())
-                .deliveryAddress(order.getDeliveryAddress())
-                .deliveredAt(order.getDeliveredAt())
-                .build();
-                
-            dtos.add(orderDto);
+        if (!principal.canAccess(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Not allowed to view these orders");
+        }
+        // The token already identifies its own user; only an admin looking at another user needs the lookup
+        if (principal.userId() != userId && !userRepository.existsById(userId)) {
+            return ResponseEntity.badRequest().body("User not found");
         }
-        
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(orderHistoryService.getOrdersForUser(userId));
     }
     
     // ==================== ADMIN ENDPOINTS ====================
     
     /**
-     * Get all orders (Admin only) - sorted by date descending (newest first)
+     * Get one page of orders (Admin only) - newest first, filtered
+     * (?status=&deliveryStatus=&paymentMethod=&from=2025-01-01&to=2025-01-31&size=50&cursor=)
+     */
+    @GetMapping("/admin")
+    public ResponseEntity<?> getOrderPage(AdminOrderQuery query) {
+        try {
+            return ResponseEntity.ok(orderHistoryService.findOrders(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Total number of orders (Admin only)
+     */
+    @GetMapping("/admin/count")
+    public ResponseEntity<Long> countOrders() {
+        return ResponseEntity.ok(orderRepository.count());
+    }
+
+    /**
+     * Stream all matching orders as newline-delimited JSON (Admin only), same filters as /admin
+     */
+    @GetMapping(value = "/admin/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamOrders(AdminOrderQuery query) {
+        StreamingResponseBody body = out -> orderHistoryService.streamOrders(query, order -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(order));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    /**
+     * Get all orders (Admin only) - sorted by date descending (newest first).
+     * Loads every order at once; prefer /admin or /admin/stream.
      */
     @GetMapping("/admin/all")
     public ResponseEntity<?> getAllOrders() {
         try {
-            List<Order> orders = orderRepository.findAllByOrderByCreatedAtDesc();
-            List<OrderResponseDTO> dtos = new ArrayList<>();
-            
-            for (Order order : orders) {
-                List<OrderResponseDTO.Item> items = new ArrayList<>();
-                
-                // Add product items
-                for (OrderItem oi : order.getItems()) {
-                    items.add(OrderResponseDTO.Item.builder()
-                        .type("PRODUCT")
-                        .productId(oi.getProduct().getId())
-                        .rentalId(null)
-                        .name(oi.getProduct().getName())
-                        .quantity(oi.getQuantity())
-                        .unitPrice(oi.getUnitPrice())
-                        .subtotal(oi.getSubtotal())
-                        .rentalStart(null)
-                        .rentalEnd(null)
-                        .build());
-                }
-                
-                // Add rental items linked to this order
-                List<RentalOrder> rentalOrders = rentalOrderRepository.findByOrderId(order.getId());
-                for (RentalOrder rental : rentalOrders) {
-                    Tool tool = toolRepository.findById(rental.getToolId()).orElse(null);
-                    items.add(OrderResponseDTO.Item.builder()
-                        .type("RENTAL")
-                        .productId(null)
-                        .rentalId(rental.getId())
-                        .name(tool != null ? tool.getName() : "Unknown Tool")
-                        .quantity(rental.getQuantity())
-                        .unitPrice(tool != null ? tool.getDailyRate() : BigDecimal.ZERO)
-                        .subtotal(rental.getTotalCost())
-                        .rentalStart(rental.getStartDate().atStartOfDay())
-                        .rentalEnd(rental.getEndDate().atStartOfDay())
-                        .build());
-                }
-                
-                // Determine payment status for COD orders
-                String displayPaymentStatus = order.getPaymentStatus();
-                if ("CASH".equals(order.getPaymentMethod()) && 
-                    !"PAID".equals(order.getPaymentStatus())) {
-                    displayPaymentStatus = "COD";
-                }
-                
-                OrderResponseDTO orderDto = OrderResponseDTO.builder()
-                    .orderId(order.getId())
-                    .userId(order.getUser().getId())
-                    .userName(order.getUser().getUsername())
-                    .userEmail(order.getUser().getEmail())
-                    .total(order.getTotalAmount())
-                    .items(items)
-                    .paymentStatus(displayPaymentStatus)
-                    .transactionId(order.getTransactionId())
-                    .paymentMethod(order.getPaymentMethod())
-                    .orderDate(order.getCreatedAt())
-                    .deliveryStatus(order.getDeliveryStatus())
-                    .deliveryAddress(order.getDeliveryAddress())
-                    .deliveredAt(order.getDeliveredAt())
-                    .build();
-                    
-                dtos.add(orderDto);
-            }
-            
-            return ResponseEntity.ok(dtos);
+            return ResponseEntity.ok(orderHistoryService.getAllOrders());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error fetching orders: " + e.getMessage());
         }
@@ -189,67 +107,9 @@ public class OrderController {
     @GetMapping("/admin/{orderId}")
     public ResponseEntity<?> getOrderById(@PathVariable Long orderId) {
         try {
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            Order order = orderOpt.get();
-            List<OrderResponseDTO.Item> items = new ArrayList<>();
-            
-            // Add product items
-            for (OrderItem oi : order.getItems()) {
-                items.add(OrderResponseDTO.Item.builder()
-                    .type("PRODUCT")
-                    .productId(oi.getProduct().getId())
-                    .name(oi.getProduct().getName())
-                    .quantity(oi.getQuantity())
-                    .unitPrice(oi.getUnitPrice())
-                    .subtotal(oi.getSubtotal())
-                    .build());
-            }
-            
-            // Add rental items linked to this order
-            List<RentalOrder> rentalOrders = rentalOrderRepository.findByOrderId(order.getId());
-            for (RentalOrder rental : rentalOrders) {
-                Tool tool = toolRepository.findById(rental.getToolId()).orElse(null);
-                items.add(OrderResponseDTO.Item.builder()
-                    .type("RENTAL")
-                    .productId(null)
-                    .rentalId(rental.getId())
-                    .name(tool != null ? tool.getName() : "Unknown Tool")
-                    .quantity(rental.getQuantity())
-                    .unitPrice(tool != null ? tool.getDailyRate() : BigDecimal.ZERO)
-                    .subtotal(rental.getTotalCost())
-                    .rentalStart(rental.getStartDate().atStartOfDay())
-                    .rentalEnd(rental.getEndDate().atStartOfDay())
-                    .build());
-            }
-            
-            // Determine payment status for COD orders
-            String displayPaymentStatus = order.getPaymentStatus();
-            if ("CASH".equals(order.getPaymentMethod()) && 
-                !"PAID".equals(order.getPaymentStatus())) {
-                displayPaymentStatus = "COD";
-            }
-            
-            OrderResponseDTO orderDto = OrderResponseDTO.builder()
-                .orderId(order.getId())
-                .userId(order.getUser().getId())
-                .userName(order.getUser().getUsername())
-                .userEmail(order.getUser().getEmail())
-                .total(order.getTotalAmount())
-                .items(items)
-                .paymentStatus(displayPaymentStatus)
-                .transactionId(order.getTransactionId())
-                .paymentMethod(order.getPaymentMethod())
-                .orderDate(order.getCreatedAt())
-                .deliveryStatus(order.getDeliveryStatus())
-                .deliveryAddress(order.getDeliveryAddress())
-                .deliveredAt(order.getDeliveredAt())
-                .build();
-            
-            return ResponseEntity.ok(orderDto);
+            return orderHistoryService.getOrder(orderId)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error fetching order: " + e.getMessage());
         }
@@ -263,27 +123,32 @@ public class OrderController {
             @PathVariable Long orderId,
             @RequestBody DeliveryStatusUpdateRequest request) {
         try {
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            Order order = orderOpt.get();
-            order.setDeliveryStatus(request.getDeliveryStatus());
-            
-            // If status is DELIVERED, set delivered timestamp
-            if (Order.DELIVERY_DELIVERED.equals(request.getDeliveryStatus())) {
-                order.setDeliveredAt(java.time.LocalDateTime.now());
-            }
-            
-            if (request.getDeliveryAddress() != null) {
-                order.setDeliveryAddress(request.getDeliveryAddress());
-            }
-            
-            order.setUpdatedAt(java.time.LocalDateTime.now());
-            orderRepository.save(order);
-            
-            return ResponseEntity.ok().body("{\"message\":\"Delivery status updated successfully\"}");
+            // Re-read and re-applied if the order changes concurrently (e.g. a payment status update)
+            return optimisticRetryExecutor.execute("order.delivery-status", () -> {
+                Optional<Order> orderOpt = orderRepository.findById(orderId);
+                if (orderOpt.isEmpty()) {
+                    return ResponseEntity.notFound().build();
+                }
+
+                Order order = orderOpt.get();
+                order.setDeliveryStatus(request.getDeliveryStatus());
+
+                // If status is DELIVERED, set delivered timestamp
+                if (Order.DELIVERY_DELIVERED.equals(request.getDeliveryStatus())) {
+                    order.setDeliveredAt(java.time.LocalDateTime.now());
+                }
+
+                if (request.getDeliveryAddress() != null) {
+                    order.setDeliveryAddress(request.getDeliveryAddress());
+                }
+
+                order.setUpdatedAt(java.time.LocalDateTime.now());
+                orderRepository.save(order);
+
+                return ResponseEntity.ok().body("{\"message\":\"Delivery status updated successfully\"}");
+            });
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Order is being changed concurrently, please retry");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error updating delivery status: " + e.getMessage());
         }
@@ -295,25 +160,30 @@ public class OrderController {
     @PutMapping("/admin/{orderId}/payment-status")
     public ResponseEntity<?> updatePaymentStatus(@PathVariable Long orderId) {
         try {
-            Optional<Order> orderOpt = orderRepository.findById(orderId);
-            if (orderOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            Order order = orderOpt.get();
-            
-            // Only allow updating from COD to PAID
-            if (!"COD".equals(order.getPaymentStatus())) {
-                return ResponseEntity.badRequest().body("Order payment status is not COD");
-            }
-            
-            order.setPaymentStatus("PAID");
-            order.setStatus(Order.STATUS_PAID);
-            order.setPaymentDate(LocalDateTime.now());
-            order.setUpdatedAt(LocalDateTime.now());
-            orderRepository.save(order);
-            
-            return ResponseEntity.ok().body("{\"message\":\"Payment status updated to PAID\"}");
+            // The COD check runs again on a fresh read if the order changes concurrently
+            return optimisticRetryExecutor.execute("order.payment-status", () -> {
+                Optional<Order> orderOpt = orderRepository.findById(orderId);
+                if (orderOpt.isEmpty()) {
+                    return ResponseEntity.notFound().build();
+                }
+
+                Order order = orderOpt.get();
+
+                // Only allow updating from COD to PAID
+                if (!"COD".equals(order.getPaymentStatus())) {
+                    return ResponseEntity.badRequest().body("Order payment status is not COD");
+                }
+
+                order.setPaymentStatus("PAID");
+                order.setStatus(Order.STATUS_PAID);
+                order.setPaymentDate(LocalDateTime.now());
+                order.setUpdatedAt(LocalDateTime.now());
+                orderRepository.save(order);
+
+                return ResponseEntity.ok().body("{\"message\":\"Payment status updated to PAID\"}");
+            });
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Order is being changed concurrently, please retry");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error updating payment status: " + e.getMessage());
         }
@@ -1,23 +1,43 @@
 package com.SRVK.Hardware.controller;
 
+import com.SRVK.Hardware.dto.CatalogPageDTO;
+import com.SRVK.Hardware.dto.CatalogQuery;
+import com.SRVK.Hardware.dto.ProductSummaryDTO;
 import com.SRVK.Hardware.entity.Product;
+import com.SRVK.Hardware.service.CatalogQueryService;
+import com.SRVK.Hardware.service.ImageStorageService;
+import com.SRVK.Hardware.service.ImageVariantService;
 import com.SRVK.Hardware.service.ProductService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final long MAX_IMAGE_BYTES = 1048576;
+
     private final ProductService productService;
+    private final ImageStorageService imageStorageService;
+    private final ImageVariantService imageVariantService;
+    private final CatalogQueryService catalogQueryService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ImageStorageService imageStorageService,
+                             ImageVariantService imageVariantService, CatalogQueryService catalogQueryService) {
         this.productService = productService;
+        this.imageStorageService = imageStorageService;
+        this.imageVariantService = imageVariantService;
+        this.catalogQueryService = catalogQueryService;
     }
 
     // ✅ GET all products
@@ -26,6 +46,24 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts());
     }
 
+    // ✅ GET paged product listing without image bytes (?page=0&size=24&sort=price,asc)
+    @GetMapping("/summary")
+    public ResponseEntity<PagedModel<ProductSummaryDTO>> getProductSummaries(
+            @PageableDefault(size = 24, sort = "name") Pageable pageable) {
+        return ResponseEntity.ok(new PagedModel<>(productService.getProductSummaries(pageable)));
+    }
+
+    // ✅ GET filtered catalog page (?category=&subCategory=&minPrice=&maxPrice=&inStock=&sort=price&direction=asc&cursor=)
+    @GetMapping("/catalog")
+    public ResponseEntity<?> getCatalog(CatalogQuery query) {
+        try {
+            CatalogPageDTO<ProductSummaryDTO> page = catalogQueryService.findProducts(query);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // ✅ GET single product
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProduct(@PathVariable Long id) {
@@ -41,6 +79,16 @@ public class ProductController {
         }
     }
 
+    // ✅ GET product image: redirects to the content-addressed image URL
+    @GetMapping("/{id}/image")
+    public ResponseEntity<Void> getProductImage(@PathVariable Long id) {
+        String hash = productService.getProductImageHash(id);
+        if (hash == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/api/images/" + hash)).build();
+    }
+
     // ✅ POST: Add new product (multipart/form-data)
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> addNewProduct(
@@ -62,12 +110,15 @@ public class ProductController {
             product.setDescription(description);
 
             if (imageFile != null && !imageFile.isEmpty()) {
-                product.setImage(imageFile.getBytes());
+                product.setImageHash(storeImage(imageFile));
             }
 
             Product saved = productService.addProduct(product);
             return ResponseEntity.status(HttpStatus.CREATED).body(saved);
 
+        } catch (IllegalArgumentException e) {
+            // Rejected image (file size or pixel dimensions)
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -85,6 +136,7 @@ public class ProductController {
             @RequestParam("price") double price,
             @RequestParam("quantity") int quantity,
             @RequestParam("description") String description,
+            @RequestParam("version") long version, // version the form was loaded with
             @RequestParam(value = "image", required = false) MultipartFile imageFile
     ) {
         try {
@@ -101,12 +153,16 @@ public class ProductController {
             existing.setDescription(description);
 
             if (imageFile != null && !imageFile.isEmpty()) {
-                existing.setImage(imageFile.getBytes());
+                existing.setImageHash(storeImage(imageFile));
             }
 
-            Product updated = productService.updateProduct(id, existing);
+            Product updated = productService.updateProduct(id, existing, version);
             return ResponseEntity.ok(updated);
 
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -124,4 +180,15 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    private String storeImage(MultipartFile imageFile) throws IOException {
+        if (imageFile.getSize() > MAX_IMAGE_BYTES) {
+            throw new IllegalArgumentException("Image size must be less than 1MB");
+        }
+        byte[] bytes = imageFile.getBytes();
+        imageVariantService.checkDimensions(bytes);
+        String hash = imageStorageService.store(bytes);
+        imageVariantService.generateAsync(hash); // Thumbnails are built in the background
+        return hash;
+    }
 }
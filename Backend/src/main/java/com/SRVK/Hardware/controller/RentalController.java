@@ -3,6 +3,7 @@ package com.SRVK.Hardware.controller;
 import com.SRVK.Hardware.dto.CreateRentalRequest;
 import com.SRVK.Hardware.dto.UpdateRentalRequest;
 import com.SRVK.Hardware.entity.RentalOrder;
+import com.SRVK.Hardware.service.OptimisticRetryExecutor;
 import com.SRVK.Hardware.service.RentalService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +20,7 @@ import java.util.List;
 public class RentalController {
 
     private final RentalService rentalService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
 
     @PostMapping
     public ResponseEntity<RentalOrder> create(@Valid @RequestBody CreateRentalRequest request) {
@@ -61,7 +63,9 @@ public class RentalController {
         log.info("Update data - startDate: {}, endDate: {}, status: {}", 
             request.getStartDate(), request.getEndDate(), request.getStatus());
         
-        RentalOrder rental = rentalService.updateRental(id, request.getStartDate(), request.getEndDate(), request.getStatus());
+        // A concurrent change of the rental (e.g. a second return) is retried on the fresh row
+        RentalOrder rental = optimisticRetryExecutor.execute("rental.update", () ->
+                rentalService.updateRental(id, request.getStartDate(), request.getEndDate(), request.getStatus()));
         
         log.info("Updated rental - ID: {}, Status: {}", rental.getId(), rental.getStatus());
         return ResponseEntity.ok(rental);
@@ -69,7 +73,7 @@ public class RentalController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        rentalService.delete(id);
+        optimisticRetryExecutor.run("rental.delete", () -> rentalService.delete(id));
         return ResponseEntity.noContent().build();
     }
 }
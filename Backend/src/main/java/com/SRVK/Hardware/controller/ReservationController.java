@@ -0,0 +1,33 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.entity.InventoryHold.ItemType;
+import com.SRVK.Hardware.service.InventoryReservationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reservations")
+@RequiredArgsConstructor
+public class ReservationController {
+
+    private final InventoryReservationService reservationService;
+
+    // Stock, units held by carts and available-to-sell (?type=PRODUCT|TOOL&id=1)
+    @GetMapping("/available")
+    public ResponseEntity<?> available(@RequestParam String type, @RequestParam Long id) {
+        try {
+            return ResponseEntity.ok(reservationService.availability(ItemType.valueOf(type.toUpperCase()), id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Number of live holds and pending timers (Admin)
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(reservationService.stats());
+    }
+}
@@ -0,0 +1,37 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.dto.SearchHitDTO;
+import com.SRVK.Hardware.service.CatalogSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final CatalogSearchService catalogSearchService;
+
+    // Search products and tools by name, description and category
+    @GetMapping
+    public ResponseEntity<List<SearchHitDTO>> search(@RequestParam("q") String query,
+                                                     @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(catalogSearchService.search(query, clamp(limit)));
+    }
+
+    // Name suggestions while the user is typing
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<String>> autocomplete(@RequestParam("q") String prefix,
+                                                     @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(catalogSearchService.autocomplete(prefix, clamp(limit)));
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -1,14 +1,33 @@
 package com.SRVK.Hardware.controller;
 
+import com.SRVK.Hardware.dto.CatalogQuery;
+import com.SRVK.Hardware.dto.ToolAvailabilityQuery;
 import com.SRVK.Hardware.dto.ToolRequest;
+import com.SRVK.Hardware.dto.ToolSummaryDTO;
 import com.SRVK.Hardware.entity.Tool;
 import com.SRVK.Hardware.repository.RentalCartRepository;
 import com.SRVK.Hardware.repository.RentalOrderRepository;
 import com.SRVK.Hardware.repository.ToolRepository;
+import com.SRVK.Hardware.service.CatalogCacheService;
+import com.SRVK.Hardware.service.CatalogQueryService;
+import com.SRVK.Hardware.service.CatalogSearchService;
+import com.SRVK.Hardware.service.ImageStorageService;
+import com.SRVK.Hardware.service.ImageVariantService;
+import com.SRVK.Hardware.service.InventoryMutationService;
+import com.SRVK.Hardware.service.OptimisticRetryExecutor;
+import com.SRVK.Hardware.service.ToolAvailabilityService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.Base64;
 import java.util.List;
 
@@ -20,19 +39,80 @@ public class ToolController {
     private final ToolRepository toolRepository;
     private final RentalCartRepository rentalCartRepository;
     private final RentalOrderRepository rentalOrderRepository;
+    private final ImageStorageService imageStorageService;
+    private final ImageVariantService imageVariantService;
+    private final CatalogQueryService catalogQueryService;
+    private final CatalogSearchService catalogSearchService;
+    private final CatalogCacheService catalogCacheService;
+    private final ToolAvailabilityService toolAvailabilityService;
+    private final InventoryMutationService inventoryMutationService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
 
     @GetMapping
     public ResponseEntity<List<Tool>> all() {
         return ResponseEntity.ok(toolRepository.findAll());
     }
 
+    // Paged listing without image bytes (?page=0&size=24&sort=dailyRate,asc)
+    @GetMapping("/summary")
+    public ResponseEntity<PagedModel<ToolSummaryDTO>> summary(@PageableDefault(size = 24, sort = "name") Pageable pageable) {
+        return ResponseEntity.ok(new PagedModel<>(toolRepository.findSummaries(pageable)));
+    }
+
+    // Filtered catalog page (?category=&minPrice=&maxPrice=&inStock=&sort=price&direction=asc&cursor=)
+    @GetMapping("/catalog")
+    public ResponseEntity<?> catalog(CatalogQuery query) {
+        try {
+            return ResponseEntity.ok(catalogQueryService.findTools(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Redirects to the content-addressed image URL
+    @GetMapping("/{id}/image")
+    public ResponseEntity<Void> image(@PathVariable Long id) {
+        return toolRepository.findImageHashById(id)
+                .map(hash -> ResponseEntity.status(HttpStatus.FOUND).location(URI.create("/api/images/" + hash)).<Void>build())
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> byId(@PathVariable Long id) {
-        return toolRepository.findById(id)
+        return catalogCacheService.getTool(id)
                 .<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(404).body("Tool not found"));
     }
 
+    // Tools with enough free units on every day of a window (?category=&from=2025-03-01&to=2025-03-07&quantity=2)
+    @GetMapping("/available")
+    public ResponseEntity<?> available(ToolAvailabilityQuery query) {
+        try {
+            return ResponseEntity.ok(toolAvailabilityService.findAvailable(query));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Booked and free units per day for a calendar (?from=2025-03-01&to=2025-03-31)
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> availability(@PathVariable Long id,
+                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(toolAvailabilityService.getAvailability(id, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Recompute the per-day booking table from active rentals (Admin)
+    @PostMapping("/availability/rebuild")
+    public ResponseEntity<?> rebuildAvailability() {
+        int rows = toolAvailabilityService.rebuild();
+        return ResponseEntity.ok().body("{\"message\":\"Rebuilt " + rows + " booking day(s)\"}");
+    }
+
     @PostMapping
     public ResponseEntity<?> create(@RequestBody ToolRequest request) {
         try {
@@ -42,9 +122,9 @@ public class ToolController {
             tool.setCategory(request.getCategory());
             tool.setDescription(request.getDescription());
             
-            // Handle image conversion from base64 to byte[]
+            // Handle image conversion from base64 and store it by content hash
             if (request.getImage() != null && !request.getImage().isEmpty()) {
-                tool.setImage(convertBase64ToBytes(request.getImage()));
+                tool.setImageHash(storeImage(request.getImage()));
             }
             
             // When creating a new tool, both totalStock and stockQuantity should be the same
@@ -66,6 +146,7 @@ public class ToolController {
             tool.setAvailable(tool.getStockQuantity() > 0);
             
             Tool savedTool = toolRepository.save(tool);
+            catalogSearchService.indexTool(savedTool);
             return ResponseEntity.ok(savedTool);
         } catch (Exception e) {
             e.printStackTrace();
@@ -79,55 +160,51 @@ public class ToolController {
             if (!toolRepository.existsById(id)) {
                 return ResponseEntity.status(404).body("Tool not found");
             }
-            
-            Tool existing = toolRepository.findById(id).orElseThrow();
-            Tool tool = new Tool();
-            tool.setId(id);
-            tool.setName(request.getName());
-            tool.setDailyRate(request.getDailyRate());
-            tool.setCategory(request.getCategory());
-            tool.setDescription(request.getDescription());
-            
-            // Handle image conversion from base64 to byte[]
-            if (request.getImage() != null && !request.getImage().isEmpty()) {
-                tool.setImage(convertBase64ToBytes(request.getImage()));
-            } else {
-                tool.setImage(existing.getImage()); // Keep existing image
+            if (request.getVersion() == null) {
+                return ResponseEntity.badRequest().body("Tool version is required");
             }
             
-            // Handle totalStock update
-            if (request.getTotalStock() != null && request.getTotalStock() > 0) {
-                int oldTotalStock = existing.getTotalStock() != null ? existing.getTotalStock() : existing.getStockQuantity();
-                int newTotalStock = request.getTotalStock();
-                int difference = newTotalStock - oldTotalStock;
-                
-                // Adjust stockQuantity by the same difference
-                int newStockQuantity = existing.getStockQuantity() + difference;
-                
-                // Ensure stockQuantity doesn't go negative
-                if (newStockQuantity < 0) {
-                    return ResponseEntity.badRequest().body(
-                        "Cannot reduce total stock below currently rented quantity. " +
-                        "Available: " + existing.getStockQuantity() + 
-                        ", Rented: " + (oldTotalStock - existing.getStockQuantity()) + 
-                        ", New Total: " + newTotalStock
-                    );
-                }
-                
-                tool.setTotalStock(newTotalStock);
-                tool.setStockQuantity(newStockQuantity);
-                
-                // Update availability based on new stock quantity
-                tool.setAvailable(newStockQuantity > 0);
-            } else {
-                // If totalStock not provided, keep existing values
-                tool.setTotalStock(existing.getTotalStock());
-                tool.setStockQuantity(existing.getStockQuantity());
-                tool.setAvailable(existing.isAvailable());
+            // Handle image conversion from base64 and store it by content hash (otherwise keep existing image)
+            String imageHash = request.getImage() != null && !request.getImage().isEmpty()
+                    ? storeImage(request.getImage()) : null;
+
+            Tool updatedTool;
+            try {
+                // Catalog fields and total stock change together, only on the version the admin edited
+                updatedTool = optimisticRetryExecutor.execute("tool.update", () -> {
+                    Tool tool = toolRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Tool not found"));
+                    if (!tool.getVersion().equals(request.getVersion())) {
+                        throw new IllegalStateException("Tool was changed since it was loaded, please reload and retry");
+                    }
+                    tool.setName(request.getName());
+                    tool.setDailyRate(request.getDailyRate());
+                    tool.setCategory(request.getCategory());
+                    tool.setDescription(request.getDescription());
+                    if (imageHash != null) {
+                        tool.setImageHash(imageHash);
+                    }
+
+                    // Stock columns are left untouched here (only changed columns are written, see Tool)
+                    Tool saved = toolRepository.save(tool);
+
+                    // Handle totalStock update: stockQuantity moves by the same difference, atomically
+                    if (request.getTotalStock() != null && request.getTotalStock() > 0) {
+                        inventoryMutationService.resizeTool(id, request.getTotalStock());
+                    }
+                    return saved;
+                });
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage() + ". New Total: " + request.getTotalStock());
             }
             
-            Tool updatedTool = toolRepository.save(tool);
-            return ResponseEntity.ok(updatedTool);
+            catalogCacheService.invalidateTool(id);
+            catalogSearchService.indexTool(updatedTool);
+            // Fresh stock columns
+            return ResponseEntity.ok(catalogCacheService.getToolWithLiveStock(id).orElse(updatedTool));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Tool is being changed concurrently, please retry");
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body("Failed to update tool: " + e.getMessage());
@@ -147,14 +224,26 @@ public class ToolController {
             try {
                 rentalOrderRepository.deleteByToolId(id);
             } catch (Exception ignored) {}
+            toolAvailabilityService.removeTool(id);
 
             toolRepository.deleteById(id);
+            catalogCacheService.invalidateTool(id);
+            catalogSearchService.removeTool(id);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to delete tool: " + e.getMessage());
         }
     }
     
+    // Store the uploaded image and queue its resized variants
+    private String storeImage(String base64String) {
+        byte[] bytes = convertBase64ToBytes(base64String);
+        imageVariantService.checkDimensions(bytes);
+        String hash = imageStorageService.store(bytes);
+        imageVariantService.generateAsync(hash);
+        return hash;
+    }
+
     // Helper method to convert base64 string to byte array
     private byte[] convertBase64ToBytes(String base64String) {
         if (base64String == null || base64String.isEmpty()) {
@@ -1,12 +1,18 @@
 package com.SRVK.Hardware.controller;
 
+import com.SRVK.Hardware.config.RateLimitInterceptor;
+import com.SRVK.Hardware.config.RateLimited;
 import com.SRVK.Hardware.dto.LoginDTO;
 import com.SRVK.Hardware.dto.RegisterDTO;
 import com.SRVK.Hardware.dto.ResponseDTO;
 import com.SRVK.Hardware.dto.ChangePasswordDTO;
 import com.SRVK.Hardware.entity.User;
+import com.SRVK.Hardware.service.RateLimitService;
 import com.SRVK.Hardware.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,12 +25,21 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final RateLimitService rateLimitService;
+
+    // Password hashing pool saturated (see PasswordHashingService)
+    private static final String BUSY = "Too many requests, please try again shortly";
 
     @PostMapping("/register")
+    @RateLimited(value = RateLimitService.REGISTER_CLIENT, byAddress = true)
     public ResponseEntity<ResponseDTO> register(@RequestBody RegisterDTO dto){
         try{
             return ResponseEntity.ok(userService.register(dto));
         }
+        catch (TaskRejectedException e){
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ResponseDTO.builder().message(BUSY).build());
+        }
         catch (Exception e){
             ResponseDTO rd = ResponseDTO.builder().message(e.getMessage()).build();
             return ResponseEntity.status(HttpStatus.CONFLICT).body(rd);
@@ -32,11 +47,23 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<ResponseDTO> login(@RequestBody LoginDTO dto){
+    @RateLimited(value = RateLimitService.CREDENTIALS_CLIENT, byAddress = true)
+    public ResponseEntity<ResponseDTO> login(@RequestBody LoginDTO dto, HttpServletRequest request){
+        // Before any database or BCrypt work for the attempt
+        long retryAfter = rateLimitService.tryAcquire(RateLimitService.LOGIN_USERNAME,
+                dto.getUsername() + "@" + RateLimitInterceptor.addressKey(request));
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(ResponseDTO.builder().message("Too many login attempts, try again in " + retryAfter + "s").build());
+        }
         try{
             ResponseDTO user = userService.login(dto);
             return ResponseEntity.ok(user);
         }
+        catch (TaskRejectedException e){
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ResponseDTO.builder().message(BUSY).build());
+        }
         catch (Exception e){
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -62,6 +89,8 @@ public class UserController {
         try{
             userService.update(id,dto);
             return ResponseEntity.ok("Updated user with ID: " + id + " Successfully");
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(BUSY);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(e.getMessage());
         }
@@ -78,10 +107,20 @@ public class UserController {
     }
 
     @PostMapping("/{id}/change-password")
-    public ResponseEntity<String> changePassword(@PathVariable Long id, @RequestBody ChangePasswordDTO dto) {
+    @RateLimited(value = RateLimitService.CREDENTIALS_CLIENT, byAddress = true)
+    public ResponseEntity<String> changePassword(@PathVariable Long id, @RequestBody ChangePasswordDTO dto,
+                                                 HttpServletRequest request) {
+        long retryAfter = rateLimitService.tryAcquire(RateLimitService.PASSWORD_CHANGE_USER,
+                id + "@" + RateLimitInterceptor.addressKey(request));
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body("Too many attempts, try again in " + retryAfter + "s");
+        }
         try {
             userService.changePassword(id, dto.getOldPassword(), dto.getNewPassword());
             return ResponseEntity.ok("Password changed successfully");
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(BUSY);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
@@ -0,0 +1,23 @@
+package com.SRVK.Hardware.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Filters and keyset cursor for the admin order listing, bound from query parameters.
+ * Orders are always returned newest first (createdAt desc, id desc).
+ */
+@Data
+public class AdminOrderQuery {
+    private String status;          // CREATED, PAID, FAILED
+    private String deliveryStatus;  // PENDING, PROCESSING, SHIPPED, DELIVERED, CANCELLED
+    private String paymentMethod;   // CARD, UPI, CASH
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;         // inclusive
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;           // inclusive
+    private String cursor;          // nextCursor from the previous page, null for the first page
+    private Integer size = 50;
+}
@@ -0,0 +1,16 @@
+package com.SRVK.Hardware.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A tool matched by the availability search with the units still free on its busiest day of the window
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableToolDTO {
+    private ToolSummaryDTO tool;
+    private int availableUnits;
+}
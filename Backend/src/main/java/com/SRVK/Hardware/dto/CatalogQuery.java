@@ -0,0 +1,19 @@
+package com.SRVK.Hardware.dto;
+
+import lombok.Data;
+
+/**
+ * Filters, sort and keyset cursor for catalog listing endpoints, bound from query parameters.
+ */
+@Data
+public class CatalogQuery {
+    private String category;
+    private String subCategory; // products only
+    private Double minPrice;
+    private Double maxPrice;
+    private Boolean inStock;
+    private String sort = "name";      // name or price
+    private String direction = "asc";  // asc or desc
+    private String cursor;             // nextCursor from the previous page, null for the first page
+    private Integer size = 24;
+}
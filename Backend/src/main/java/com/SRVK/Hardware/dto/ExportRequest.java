@@ -0,0 +1,20 @@
+package com.SRVK.Hardware.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Options for a bulk export, bound from query parameters.
+ */
+@Data
+public class ExportRequest {
+    private String format = "csv";  // csv or ndjson
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;         // inclusive
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;           // inclusive
+    private boolean incremental;    // only rows after the last completed incremental export; no from / to
+    private boolean gzip;
+}
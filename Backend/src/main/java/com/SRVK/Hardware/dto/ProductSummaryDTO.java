@@ -0,0 +1,32 @@
+package com.SRVK.Hardware.dto;
+
+import com.SRVK.Hardware.service.ImageVariantService;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight product listing entry. Carries an image URL instead of the image bytes.
+ */
+@Data
+@NoArgsConstructor
+public class ProductSummaryDTO {
+    private Long id;
+    private String name;
+    private double price;
+    private String category;
+    private String subCategory;
+    private int quantity;
+    private String imageUrl;
+
+    // Used by JPQL constructor expressions in ProductRepository
+    public ProductSummaryDTO(Long id, String name, double price, String category, String subCategory,
+                             int quantity, String imageHash) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.category = category;
+        this.subCategory = subCategory;
+        this.quantity = quantity;
+        this.imageUrl = ImageVariantService.url(imageHash, ImageVariantService.Variant.THUMB);
+    }
+}
@@ -0,0 +1,25 @@
+package com.SRVK.Hardware.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A product or tool matched by the catalog search index
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchHitDTO {
+    private String type; // PRODUCT or TOOL
+    private Long id;
+    private String name;
+    private String category;
+    private BigDecimal price; // unit price for products, daily rate for tools
+    private String imageUrl;
+    private double score;
+}
@@ -0,0 +1,31 @@
+package com.SRVK.Hardware.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Day-by-day availability of a tool for a calendar (from and to inclusive)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ToolAvailabilityDTO {
+    private Long toolId;
+    private int totalStock;
+    private LocalDate from;
+    private LocalDate to;
+    private List<Day> days;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Day {
+        private LocalDate date;
+        private int booked;
+        private int available;
+    }
+}
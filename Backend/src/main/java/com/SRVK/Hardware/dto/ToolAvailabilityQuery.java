@@ -0,0 +1,20 @@
+package com.SRVK.Hardware.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Multi-tool availability search, bound from query parameters:
+ * tools (optionally of one category) with at least quantity units free on every day from..to.
+ */
+@Data
+public class ToolAvailabilityQuery {
+    private String category;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;         // inclusive
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;           // inclusive
+    private Integer quantity = 1;
+}
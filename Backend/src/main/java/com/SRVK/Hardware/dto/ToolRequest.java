@@ -14,4 +14,5 @@ public class ToolRequest {
     private Integer stockQuantity;
     private String description;
     private String image; // Base64 string
+    private Long version; // Version of the tool the edit was made on (required on update)
 }
@@ -0,0 +1,36 @@
+package com.SRVK.Hardware.dto;
+
+import com.SRVK.Hardware.service.ImageVariantService;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Lightweight tool listing entry. Carries an image URL instead of the image bytes.
+ */
+@Data
+@NoArgsConstructor
+public class ToolSummaryDTO {
+    private Long id;
+    private String name;
+    private BigDecimal dailyRate;
+    private String category;
+    private boolean available;
+    private Integer stockQuantity;
+    private Integer totalStock;
+    private String imageUrl;
+
+    // Used by JPQL constructor expressions in ToolRepository
+    public ToolSummaryDTO(Long id, String name, BigDecimal dailyRate, String category, boolean available,
+                          Integer stockQuantity, Integer totalStock, String imageHash) {
+        this.id = id;
+        this.name = name;
+        this.dailyRate = dailyRate;
+        this.category = category;
+        this.available = available;
+        this.stockQuantity = stockQuantity;
+        this.totalStock = totalStock;
+        this.imageUrl = ImageVariantService.url(imageHash, ImageVariantService.Variant.THUMB);
+    }
+}
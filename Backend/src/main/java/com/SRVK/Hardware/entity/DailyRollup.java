@@ -0,0 +1,62 @@
+package com.SRVK.Hardware.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated sales/rental figures for one day and one dimension value,
+ * e.g. (2025-03-01, CATEGORY, "Paint") or (2025-03-01, TOTAL, "").
+ * Maintained incrementally by AnalyticsService.
+ */
+@Entity
+@Table(name = "daily_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyRollup {
+
+    /**
+     * Dimension constants
+     */
+    public static final String DIM_TOTAL = "TOTAL";
+    public static final String DIM_CATEGORY = "CATEGORY";  // product category
+    public static final String DIM_TOOL = "TOOL";          // tool id
+    public static final String DIM_PAYMENT = "PAYMENT";    // payment method
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyRollupKey implements Serializable {
+        @Column(name = "rollup_day", nullable = false)
+        private LocalDate day;
+
+        @Column(name = "dimension", nullable = false, length = 16)
+        private String dimension;
+
+        @Column(name = "dimension_key", nullable = false, length = 100)
+        private String dimensionKey;
+    }
+
+    @EmbeddedId
+    private DailyRollupKey id;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    // Products sold, or tools rented for the TOOL dimension
+    @Column(nullable = false)
+    private Long units;
+
+    // Sum of rental days x quantity
+    @Column(name = "rental_days", nullable = false)
+    private Long rentalDays;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+}
@@ -0,0 +1,37 @@
+package com.SRVK.Hardware.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position of the last completed incremental export of a dataset: the (created_at, id) of the
+ * last row written. Exports only read rows older than the settle time (see ExportService), so
+ * rows committed later can't appear behind it.
+ */
+@Entity
+@Table(name = "export_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExportWatermark {
+
+    @Id
+    @Column(length = 32)
+    private String dataset;
+
+    // Position of the last exported row: its creation time, with the id breaking ties
+    @Column(name = "last_created_at", nullable = false, columnDefinition = "datetime")
+    private LocalDateTime lastCreatedAt;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(name = "exported_at", nullable = false, columnDefinition = "datetime")
+    private LocalDateTime exportedAt;
+}
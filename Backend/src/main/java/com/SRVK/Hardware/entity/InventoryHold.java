@@ -0,0 +1,58 @@
+package com.SRVK.Hardware.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Short-lived hold of product or tool stock by one user's cart line.
+ * The live set is kept in memory by InventoryReservationService; this table is only
+ * its write-through copy, reloaded on startup so holds survive a restart.
+ */
+@Entity
+@Table(name = "inventory_holds")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryHold {
+
+    public enum ItemType {
+        PRODUCT, TOOL
+    }
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InventoryHoldKey implements Serializable {
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "item_type", nullable = false)
+        private ItemType itemType;
+
+        @Column(name = "item_id", nullable = false)
+        private Long itemId;
+    }
+
+    @EmbeddedId
+    private InventoryHoldKey id;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Inclusive rental days of a tool hold; null for products
+    @Column(name = "start_date")
+    private LocalDate startDate;
+
+    @Column(name = "end_date")
+    private LocalDate endDate;
+}
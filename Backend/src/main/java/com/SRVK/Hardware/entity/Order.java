@@ -1,5 +1,6 @@
 package com.SRVK.Hardware.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -14,7 +15,14 @@ import java.util.List;
  * Order and Payment entities.
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Seek pagination of the admin listing
+        @Index(name = "idx_orders_created", columnList = "created_at, id"),
+        // Order history of one user (V5 migration)
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at"),
+        // Sweep of orders stuck awaiting payment (V8 migration)
+        @Index(name = "idx_orders_status_created", columnList = "status, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,6 +32,7 @@ public class Order {
      * Order status constants
      */
     public static final String STATUS_CREATED = "CREATED";
+    public static final String STATUS_PENDING_PAYMENT = "PENDING_PAYMENT";
     public static final String STATUS_PAID = "PAID";
     public static final String STATUS_FAILED = "FAILED";
     
@@ -45,6 +54,9 @@ public class Order {
     /**giv e
      * Payment status constants
      */
+    public static final String PAYMENT_STATUS_PENDING = "PENDING";
+    // Sent to the gateway, outcome not recorded yet
+    public static final String PAYMENT_STATUS_CHARGING = "CHARGING";
     public static final String PAYMENT_STATUS_SUCCESS = "SUCCESS";
     public static final String PAYMENT_STATUS_FAILED = "FAILED";
     
@@ -52,6 +64,13 @@ public class Order {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * Optimistic lock version; concurrent status updates conflict instead of overwriting each other
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -60,7 +79,7 @@ public class Order {
     private BigDecimal totalAmount;
 
     /**
-     * Order status: CREATED, PAID, FAILED
+     * Order status: CREATED, PENDING_PAYMENT, PAID, FAILED
      */
     @Column(name = "status", nullable = false)
     private String status;
@@ -84,7 +103,7 @@ public class Order {
     private String paymentMethod;
     
     /**
-     * Payment status: SUCCESS, FAILED
+     * Payment status: PENDING, CHARGING, SUCCESS, FAILED
      */
     @Column(name = "payment_status")
     private String paymentStatus;
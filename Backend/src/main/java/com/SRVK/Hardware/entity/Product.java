@@ -1,14 +1,20 @@
 package com.SRVK.Hardware.entity;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+        // Backing indexes for keyset-paginated catalog queries (see CatalogQueryService)
+        @Index(name = "idx_product_category_price", columnList = "category, sub_category, price, id"),
+        @Index(name = "idx_product_category_name", columnList = "category, sub_category, name"),
+        @Index(name = "idx_product_category_only_price", columnList = "category, price, id"),
+        @Index(name = "idx_product_category_only_name", columnList = "category, name, id"),
+        @Index(name = "idx_product_price", columnList = "price, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,6 +24,11 @@ public class Product {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Optimistic lock; stock UPDATEs bump it too, so a save based on stale stock fails (see OptimisticRetryExecutor).
+    // Admin edits send back the version they were loaded with and are refused once it moved on.
+    @Version
+    private Long version;
+
     @Column(name = "name", unique = true, nullable = false, length = 50)
     private String name;
 
@@ -36,8 +47,14 @@ public class Product {
     @Column(name = "price", nullable = false)
     private double price;
 
-    @Lob
-    @Column(length = 1048576)
-    @Size(max = 1048576, message = "Image size must be less than 1MB")
-    private byte[] image;
+    /**
+     * SHA-256 of the image bytes in the content-addressed image store (see ImageStorageService)
+     */
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
+    // Exposed to the frontend instead of the image bytes (detail-size variant); not a persistent column
+    public String getImageUrl() {
+        return imageHash != null ? "/api/images/" + imageHash + "/detail" : null;
+    }
 }
@@ -1,5 +1,6 @@
 package com.SRVK.Hardware.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,9 +9,15 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "rental_orders")
+@Table(name = "rental_orders", indexes = {
+        // Created by the V5 migration; listed here so the mapping documents them
+        @Index(name = "idx_rental_orders_tool_dates", columnList = "tool_id, start_date, end_date"),
+        @Index(name = "idx_rental_orders_user", columnList = "user_id"),
+        @Index(name = "idx_rental_orders_order", columnList = "order_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,10 +28,18 @@ public class RentalOrder {
         ACTIVE, RETURNED
     }
 
+    // Pooled table ids (not IDENTITY) so a checkout's rentals can be inserted in one JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "rental_order_ids")
+    @TableGenerator(name = "rental_order_ids", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "rental_orders", allocationSize = 50)
     private Long id;
 
+    // Optimistic lock; e.g. two concurrent returns of one rental can't both put the tools back
+    @Version
+    @JsonIgnore
+    private Long version;
+
     @Column(nullable = false)
     private Long userId;
 
@@ -51,4 +66,8 @@ public class RentalOrder {
     
     @Column(name = "order_id")
     private Long orderId;
+
+    // When the rental was booked; incremental exports continue from it (see ExportService)
+    @Column(name = "created_at", nullable = false, columnDefinition = "datetime")
+    private LocalDateTime createdAt;
 }
\ No newline at end of file
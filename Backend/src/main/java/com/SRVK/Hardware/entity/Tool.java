@@ -5,21 +5,33 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "tools")
+@Table(name = "tools", indexes = {
+        // Backing indexes for keyset-paginated catalog queries (see CatalogQueryService)
+        @Index(name = "idx_tools_category_rate", columnList = "category, daily_rate, id"),
+        @Index(name = "idx_tools_category_name", columnList = "category, name"),
+        @Index(name = "idx_tools_rate", columnList = "daily_rate, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@DynamicUpdate // Entity saves write only changed columns, never stale stock (see InventoryMutationService)
 public class Tool {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Optimistic lock; stock UPDATEs bump it too, so a save based on stale stock fails (see OptimisticRetryExecutor).
+    // Admin edits send back the version they were loaded with and are refused once it moved on.
+    @Version
+    private Long version;
+
     @Column(nullable = false, unique = true)
     private String name;
 
@@ -43,8 +55,16 @@ public class Tool {
     @Column(length = 2000)
     private String description;
 
-    @Lob
-    private byte[] image;
+    /**
+     * SHA-256 of the image bytes in the content-addressed image store (see ImageStorageService)
+     */
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
+    // Exposed to the frontend instead of the image bytes (detail-size variant); not a persistent column
+    public String getImageUrl() {
+        return imageHash != null ? "/api/images/" + imageHash + "/detail" : null;
+    }
 
     // Helper method to check if tool has available stock
     public boolean hasAvailableStock() {
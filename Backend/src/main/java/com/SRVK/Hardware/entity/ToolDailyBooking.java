@@ -0,0 +1,42 @@
+package com.SRVK.Hardware.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Number of units of a tool held by active rentals on one day.
+ * A rental occupies every day from its start date to its end date, both inclusive.
+ * Maintained by ToolAvailabilityService; days with nothing booked have no row.
+ */
+@Entity
+@Table(name = "tool_daily_booking", indexes = {
+        // Covers the date-window aggregate across all tools (see ToolDailyBookingRepository.findPeaks)
+        @Index(name = "idx_booking_day_tool", columnList = "booking_day, tool_id, booked")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ToolDailyBooking {
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ToolDailyBookingKey implements Serializable {
+        @Column(name = "tool_id", nullable = false)
+        private Long toolId;
+
+        @Column(name = "booking_day", nullable = false)
+        private LocalDate day;
+    }
+
+    @EmbeddedId
+    private ToolDailyBookingKey id;
+
+    @Column(nullable = false)
+    private Integer booked;
+}
@@ -0,0 +1,44 @@
+package com.SRVK.Hardware.repository;
+
+import com.SRVK.Hardware.entity.DailyRollup;
+import com.SRVK.Hardware.entity.DailyRollup.DailyRollupKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, DailyRollupKey> {
+
+    @Query("SELECT r FROM DailyRollup r WHERE r.id.dimension = :dimension AND r.id.day BETWEEN :from AND :to " +
+           "ORDER BY r.id.day, r.id.dimensionKey")
+    List<DailyRollup> findRange(@Param("dimension") String dimension,
+                                @Param("from") LocalDate from,
+                                @Param("to") LocalDate to);
+
+    /**
+     * Add deltas to a rollup row, creating it if needed, in a single statement
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_rollups (rollup_day, dimension, dimension_key, revenue, units, rental_days, order_count) " +
+                   "VALUES (:day, :dimension, :dimensionKey, :revenue, :units, :rentalDays, :orderCount) " +
+                   "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), units = units + VALUES(units), " +
+                   "rental_days = rental_days + VALUES(rental_days), order_count = order_count + VALUES(order_count)",
+           nativeQuery = true)
+    void increment(@Param("day") LocalDate day,
+                   @Param("dimension") String dimension,
+                   @Param("dimensionKey") String dimensionKey,
+                   @Param("revenue") BigDecimal revenue,
+                   @Param("units") long units,
+                   @Param("rentalDays") long rentalDays,
+                   @Param("orderCount") long orderCount);
+
+    @Modifying
+    @Query("DELETE FROM DailyRollup r WHERE r.id.day BETWEEN :from AND :to")
+    int deleteRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,64 @@
+package com.SRVK.Hardware.repository;
+
+import com.SRVK.Hardware.entity.InventoryHold;
+import com.SRVK.Hardware.entity.InventoryHold.InventoryHoldKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Write-through storage of inventory holds (see InventoryReservationService).
+ * Writes run in the caller's transaction, or in their own when called from the expiry timer.
+ */
+@Repository
+public interface InventoryHoldRepository extends JpaRepository<InventoryHold, InventoryHoldKey> {
+
+    List<InventoryHold> findByExpiresAtAfter(LocalDateTime now);
+
+    /**
+     * Create or replace the hold of one cart line in a single statement; dates are null for products
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO inventory_holds (user_id, item_type, item_id, quantity, expires_at, start_date, end_date) " +
+                   "VALUES (:userId, :itemType, :itemId, :quantity, :expiresAt, :startDate, :endDate) " +
+                   "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), expires_at = VALUES(expires_at), " +
+                   "start_date = VALUES(start_date), end_date = VALUES(end_date)",
+           nativeQuery = true)
+    void upsert(@Param("userId") Long userId,
+                @Param("itemType") String itemType,
+                @Param("itemId") Long itemId,
+                @Param("quantity") int quantity,
+                @Param("expiresAt") LocalDateTime expiresAt,
+                @Param("startDate") LocalDate startDate,
+                @Param("endDate") LocalDate endDate);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InventoryHold h WHERE h.id.userId = :userId AND h.id.itemType = :itemType AND h.id.itemId = :itemId")
+    int deleteHold(@Param("userId") Long userId,
+                   @Param("itemType") InventoryHold.ItemType itemType,
+                   @Param("itemId") Long itemId);
+
+    // Only removes the row if it was not renewed after the in-memory hold expired
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InventoryHold h WHERE h.id.userId = :userId AND h.id.itemType = :itemType " +
+           "AND h.id.itemId = :itemId AND h.expiresAt <= :now")
+    int deleteIfExpired(@Param("userId") Long userId,
+                        @Param("itemType") InventoryHold.ItemType itemType,
+                        @Param("itemId") Long itemId,
+                        @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InventoryHold h WHERE h.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -2,10 +2,35 @@ package com.SRVK.Hardware.repository;
 
 import com.SRVK.Hardware.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-}
 
+    /**
+     * Read model for a product line of an order, with the product name joined in
+     */
+    interface ItemLine {
+        Long getOrderId();
+        Long getProductId();
+        String getName();
+        Integer getQuantity();
+        BigDecimal getUnitPrice();
+        BigDecimal getSubtotal();
+    }
 
+    @Query("SELECT oi.order.id AS orderId, p.id AS productId, p.name AS name, oi.quantity AS quantity, " +
+           "oi.unitPrice AS unitPrice, oi.subtotal AS subtotal " +
+           "FROM OrderItem oi LEFT JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<ItemLine> findLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // Lines of one order with their products, e.g. to put the stock back when its payment fails
+    @Query("SELECT oi FROM OrderItem oi LEFT JOIN FETCH oi.product WHERE oi.order.id = :orderId")
+    List<OrderItem> findWithProductByOrderId(@Param("orderId") Long orderId);
+}
@@ -3,14 +3,43 @@ package com.SRVK.Hardware.repository;
 import com.SRVK.Hardware.entity.Order;
 import com.SRVK.Hardware.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUser(User user);
     List<Order> findAllByOrderByCreatedAtDesc();
-}
 
+    // Orders with their user in one query; items and rentals are loaded separately in bulk
+    @Query("SELECT o FROM Order o JOIN FETCH o.user WHERE o.user.id = :userId ORDER BY o.id")
+    List<Order> findWithUserByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.user ORDER BY o.createdAt DESC")
+    List<Order> findAllWithUserNewestFirst();
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.user WHERE o.id = :id")
+    Optional<Order> findWithUserById(@Param("id") Long id);
 
+    // Orders still in the given status that were created before the cutoff
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.createdAt < :before")
+    List<Long> findIdsByStatusCreatedBefore(@Param("status") String status, @Param("before") LocalDateTime before);
+
+    /**
+     * Record that the order's charge is being sent to the gateway, so after a restart it is
+     * reconciled with the gateway instead of failed (see PaymentOrchestrator)
+     * @return 1 if marked, 0 if the order no longer awaits payment
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.paymentStatus = '" + Order.PAYMENT_STATUS_CHARGING + "', o.version = o.version + 1 " +
+           "WHERE o.id = :id AND o.status = '" + Order.STATUS_PENDING_PAYMENT + "'")
+    int markCharging(@Param("id") Long id);
+}
@@ -3,9 +3,13 @@ package com.SRVK.Hardware.repository;
 import com.SRVK.Hardware.entity.ProductCart;
 import com.SRVK.Hardware.entity.ProductCart.ProductCartKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,12 +18,44 @@ import java.util.List;
  */
 @Repository
 public interface ProductCartRepository extends JpaRepository<ProductCart, ProductCartKey> {
+    /**
+     * Read model for a single product line in the cart.
+     * Only carries the columns the cart view needs, so the product image is never loaded.
+     */
+    interface CartLine {
+        Long getProductId();
+        String getName();
+        double getPrice();
+        Integer getQuantity();
+        String getImageHash();
+    }
+
     /**
      * Find all product cart items for a specific user
      * @param userId the user ID
      * @return list of product cart items
      */
     List<ProductCart> findByIdUserId(Long userId);
+
+    /**
+     * Load selected cart items of a user together with their products in a single query
+     * @param userId the user ID
+     * @param productIds the product IDs to load
+     * @return the matching cart items, missing ids are simply absent
+     */
+    @Query("SELECT pc FROM ProductCart pc JOIN FETCH pc.product WHERE pc.id.userId = :userId AND pc.id.productId IN :productIds")
+    List<ProductCart> findWithProductByUserIdAndProductIds(@Param("userId") Long userId,
+                                                           @Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Load the product lines of a user's cart joined with their product in a single query
+     * @param userId the user ID
+     * @return list of cart lines
+     */
+    @Query("SELECT pc.id.productId AS productId, p.name AS name, p.price AS price, pc.quantity AS quantity, " +
+           "p.imageHash AS imageHash " +
+           "FROM ProductCart pc JOIN pc.product p WHERE pc.id.userId = :userId")
+    List<CartLine> findCartLinesByUserId(@Param("userId") Long userId);
     
     /**
      * Delete a specific product cart item by user ID and product ID
@@ -28,6 +64,15 @@ public interface ProductCartRepository extends JpaRepository<ProductCart, Produc
      */
     @Transactional
     void deleteByIdUserIdAndIdProductId(Long userId, Long productId);
-}
-
 
+    /**
+     * Delete several product cart items of a user in a single statement
+     * @param userId the user ID
+     * @param productIds the product IDs to remove
+     * @return number of rows deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProductCart pc WHERE pc.id.userId = :userId AND pc.id.productId IN :productIds")
+    int deleteByUserIdAndProductIds(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
+}
@@ -1,12 +1,59 @@
 package com.SRVK.Hardware.repository;
 
+import com.SRVK.Hardware.dto.ProductSummaryDTO;
 import com.SRVK.Hardware.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /**
+     * Stock and version of a product, read fresh alongside the catalog cache
+     */
+    interface StockLevel {
+        Integer getQuantity();
+        Long getVersion();
+    }
+
     Optional<Product> findByName(String name);
     boolean existsByName(String name);
+
+    // Load only the image hash so callers don't pull the whole entity
+    @Query("SELECT p.imageHash FROM Product p WHERE p.id = :id")
+    Optional<String> findImageHashById(@Param("id") Long id);
+
+    // Current stock only, used alongside the catalog cache
+    @Query("SELECT p.quantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+
+    // Stock UPDATEs bump the version, so it is read together with the stock
+    @Query("SELECT p.quantity AS quantity, p.version AS version FROM Product p WHERE p.id = :id")
+    Optional<StockLevel> findStockLevelById(@Param("id") Long id);
+
+    /**
+     * Take stock in a single conditional UPDATE so concurrent checkouts can't oversell.
+     * Bumps the version so a concurrent read-modify-write of the product conflicts instead of restoring old stock.
+     * @return 1 if the stock was taken, 0 if the product is missing or has too little stock
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :qty, p.version = p.version + 1 WHERE p.id = :id AND p.quantity >= :qty")
+    int decrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    // Put stock back, e.g. when the payment for an order fails
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :qty, p.version = p.version + 1 WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    // Paged listing of catalog fields only
+    @Query(value = "SELECT new com.SRVK.Hardware.dto.ProductSummaryDTO(p.id, p.name, p.price, p.category, " +
+                   "p.subCategory, p.quantity, p.imageHash) FROM Product p",
+           countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductSummaryDTO> findSummaries(Pageable pageable);
 }
@@ -3,8 +3,15 @@ package com.SRVK.Hardware.repository;
 import com.SRVK.Hardware.entity.RentalCart;
 import com.SRVK.Hardware.entity.RentalCart.RentalCartKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,12 +20,45 @@ import java.util.List;
  */
 @Repository
 public interface RentalCartRepository extends JpaRepository<RentalCart, RentalCartKey> {
+    /**
+     * Read model for a single rental line in the cart.
+     * Only carries the columns the cart view needs, so the tool image is never loaded.
+     */
+    interface CartLine {
+        Long getToolId();
+        String getName();
+        BigDecimal getDailyRate();
+        Integer getQuantity();
+        LocalDate getRentalStart();
+        LocalDate getRentalEnd();
+    }
+
     /**
      * Find all rental cart items for a specific user
      * @param userId the user ID
      * @return list of rental cart items
      */
     List<RentalCart> findByIdUserId(Long userId);
+
+    /**
+     * Load selected cart items of a user together with their tools in a single query
+     * @param userId the user ID
+     * @param toolIds the tool IDs to load
+     * @return the matching cart items, missing ids are simply absent
+     */
+    @Query("SELECT rc FROM RentalCart rc JOIN FETCH rc.tool WHERE rc.id.userId = :userId AND rc.id.toolId IN :toolIds")
+    List<RentalCart> findWithToolByUserIdAndToolIds(@Param("userId") Long userId,
+                                                    @Param("toolIds") Collection<Long> toolIds);
+
+    /**
+     * Load the rental lines of a user's cart joined with their tool in a single query
+     * @param userId the user ID
+     * @return list of cart lines
+     */
+    @Query("SELECT rc.id.toolId AS toolId, t.name AS name, t.dailyRate AS dailyRate, rc.quantity AS quantity, " +
+           "rc.rentalStart AS rentalStart, rc.rentalEnd AS rentalEnd " +
+           "FROM RentalCart rc JOIN rc.tool t WHERE rc.id.userId = :userId")
+    List<CartLine> findCartLinesByUserId(@Param("userId") Long userId);
     
     /**
      * Delete a specific rental cart item by user ID and tool ID
@@ -28,6 +68,17 @@ public interface RentalCartRepository extends JpaRepository<RentalCart, RentalCa
     @Transactional
     void deleteByIdUserIdAndIdToolId(Long userId, Long toolId);
 
+    /**
+     * Delete several rental cart items of a user in a single statement
+     * @param userId the user ID
+     * @param toolIds the tool IDs to remove
+     * @return number of rows deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RentalCart rc WHERE rc.id.userId = :userId AND rc.id.toolId IN :toolIds")
+    int deleteByUserIdAndToolIds(@Param("userId") Long userId, @Param("toolIds") Collection<Long> toolIds);
+
     /**
      * Delete all rental cart items referencing a specific tool
      */
@@ -6,16 +6,34 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RentalOrderRepository extends JpaRepository<RentalOrder, Long> {
 
+    /**
+     * Read model for a rental line of an order, with the tool name and rate joined in
+     */
+    interface RentalLine {
+        Long getId();
+        Long getOrderId();
+        String getName();
+        BigDecimal getDailyRate();
+        Integer getQuantity();
+        BigDecimal getTotalCost();
+        LocalDate getStartDate();
+        LocalDate getEndDate();
+    }
+
     List<RentalOrder> findByUserId(Long userId);
 
     List<RentalOrder> findByToolId(Long toolId);
 
+    List<RentalOrder> findByStatus(RentalOrder.RentalStatus status);
+
     /**
      * Delete all rental orders for a specific tool (dev/test convenience).
      * Prefer marking tools unavailable in production to preserve history.
@@ -39,4 +57,16 @@ public interface RentalOrderRepository extends JpaRepository<RentalOrder, Long>
                                                 @Param("excludeRentalId") Long excludeRentalId);
     
     List<RentalOrder> findByOrderId(Long orderId);
+
+    // Rentals of many orders with their tool in one query
+    @Query("SELECT r.id AS id, r.orderId AS orderId, t.name AS name, t.dailyRate AS dailyRate, r.quantity AS quantity, " +
+           "r.totalCost AS totalCost, r.startDate AS startDate, r.endDate AS endDate " +
+           "FROM RentalOrder r LEFT JOIN Tool t ON t.id = r.toolId WHERE r.orderId IN :orderIds ORDER BY r.id")
+    List<RentalLine> findLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // A user's rentals booked outside a checkout order (/api/rentals, CartService.checkoutRentals)
+    @Query("SELECT r.id AS id, r.orderId AS orderId, t.name AS name, t.dailyRate AS dailyRate, r.quantity AS quantity, " +
+           "r.totalCost AS totalCost, r.startDate AS startDate, r.endDate AS endDate " +
+           "FROM RentalOrder r LEFT JOIN Tool t ON t.id = r.toolId WHERE r.userId = :userId AND r.orderId IS NULL ORDER BY r.id")
+    List<RentalLine> findStandaloneLinesByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.SRVK.Hardware.repository;
+
+import com.SRVK.Hardware.entity.ToolDailyBooking;
+import com.SRVK.Hardware.entity.ToolDailyBooking.ToolDailyBookingKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ToolDailyBookingRepository extends JpaRepository<ToolDailyBooking, ToolDailyBookingKey> {
+
+    /**
+     * Highest booked quantity of a tool within a date window
+     */
+    interface Peak {
+        Long getToolId();
+        Integer getPeak();
+    }
+
+    // Primary key range scan: one row per booked day
+    @Query("SELECT b FROM ToolDailyBooking b WHERE b.id.toolId = :toolId AND b.id.day BETWEEN :from AND :to " +
+           "ORDER BY b.id.day")
+    List<ToolDailyBooking> findRange(@Param("toolId") Long toolId,
+                                     @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to);
+
+    // Busiest day per tool in the window, for every tool (of the category, if given) with any booking in it
+    @Query("SELECT b.id.toolId AS toolId, MAX(b.booked) AS peak FROM ToolDailyBooking b, Tool t " +
+           "WHERE t.id = b.id.toolId AND b.id.day BETWEEN :from AND :to " +
+           "AND (:category IS NULL OR t.category = :category) GROUP BY b.id.toolId")
+    List<Peak> findPeaks(@Param("category") String category,
+                         @Param("from") LocalDate from,
+                         @Param("to") LocalDate to);
+
+    // Drop days that no longer hold anything after a release
+    @Modifying
+    @Query("DELETE FROM ToolDailyBooking b WHERE b.id.toolId = :toolId AND b.id.day BETWEEN :from AND :to " +
+           "AND b.booked <= 0")
+    int deleteEmpty(@Param("toolId") Long toolId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM ToolDailyBooking b WHERE b.id.toolId = :toolId")
+    int deleteByToolId(@Param("toolId") Long toolId);
+}
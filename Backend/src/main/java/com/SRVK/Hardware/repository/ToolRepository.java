@@ -1,11 +1,88 @@
 package com.SRVK.Hardware.repository;
 
+import com.SRVK.Hardware.dto.ToolSummaryDTO;
 import com.SRVK.Hardware.entity.Tool;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ToolRepository extends JpaRepository<Tool, Long> {
-}
 
+    /**
+     * Stock columns and version of a tool, read fresh alongside the catalog cache (stock UPDATEs bump the version)
+     */
+    interface StockLevel {
+        Integer getStockQuantity();
+        Integer getTotalStock();
+        boolean getAvailable();
+        Long getVersion();
+    }
+
+    // Load only the image hash so callers don't pull the whole entity
+    @Query("SELECT t.imageHash FROM Tool t WHERE t.id = :id")
+    Optional<String> findImageHashById(@Param("id") Long id);
+
+    @Query("SELECT t.stockQuantity AS stockQuantity, t.totalStock AS totalStock, t.available AS available, " +
+           "t.version AS version FROM Tool t WHERE t.id = :id")
+    Optional<StockLevel> findStockLevelById(@Param("id") Long id);
+
+    // Units of the tool out on :today: booked for that day, plus active rentals past their end date not yet returned
+    String UNITS_OUT = "(COALESCE((SELECT b.booked FROM ToolDailyBooking b WHERE b.id.toolId = t.id AND b.id.day = :today), 0) + " +
+            "COALESCE((SELECT SUM(r.quantity) FROM RentalOrder r WHERE r.toolId = t.id " +
+            "AND r.status = com.SRVK.Hardware.entity.RentalOrder.RentalStatus.ACTIVE AND r.endDate < :today), 0))";
 
+    /**
+     * Set stockQuantity / available from the tool's rentals (see InventoryMutationService.refreshTool).
+     * Pending changes are flushed first so the subqueries see the caller's rental and booking changes.
+     * Each stock UPDATE bumps the version, so saves of tools loaded before it fail (see Tool.version).
+     * @return 1 if the tool exists
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Tool t SET t.available = CASE WHEN t.totalStock - " + UNITS_OUT + " > 0 THEN true ELSE false END, " +
+           "t.stockQuantity = t.totalStock - " + UNITS_OUT + ", t.version = t.version + 1 WHERE t.id = :id")
+    int refreshStock(@Param("id") Long id, @Param("today") LocalDate today);
+
+    /**
+     * refreshStock for every tool whose stock is out of date for :today
+     * @return number of tools changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Tool t SET t.available = CASE WHEN t.totalStock - " + UNITS_OUT + " > 0 THEN true ELSE false END, " +
+           "t.stockQuantity = t.totalStock - " + UNITS_OUT + ", t.version = t.version + 1 " +
+           "WHERE t.stockQuantity <> t.totalStock - " + UNITS_OUT)
+    int refreshAllStock(@Param("today") LocalDate today);
+
+    /**
+     * Change the number of tools owned, moving the rentable stock by the same difference.
+     * Columns are assigned in an order that only reads values not yet assigned, as MySQL applies them left to right.
+     * Pending changes are flushed first (their version check must run against the old version)
+     * and loaded tools are detached afterwards, as their stock columns and version are stale.
+     * @return 1 if resized, 0 if the tool is missing or more units are rented out than the new total
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Tool t SET t.available = CASE WHEN t.stockQuantity + (:total - t.totalStock) > 0 THEN true ELSE false END, " +
+           "t.stockQuantity = t.stockQuantity + (:total - t.totalStock), t.totalStock = :total, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND t.stockQuantity + (:total - t.totalStock) >= 0")
+    int resizeStock(@Param("id") Long id, @Param("total") int total);
+
+    // Paged listing of catalog fields only
+    @Query(value = "SELECT new com.SRVK.Hardware.dto.ToolSummaryDTO(t.id, t.name, t.dailyRate, t.category, " +
+                   "t.available, t.stockQuantity, t.totalStock, t.imageHash) FROM Tool t",
+           countQuery = "SELECT COUNT(t) FROM Tool t")
+    Page<ToolSummaryDTO> findSummaries(Pageable pageable);
+
+    // Catalog fields of every tool, or of one category
+    @Query("SELECT new com.SRVK.Hardware.dto.ToolSummaryDTO(t.id, t.name, t.dailyRate, t.category, " +
+           "t.available, t.stockQuantity, t.totalStock, t.imageHash) FROM Tool t " +
+           "WHERE :category IS NULL OR t.category = :category ORDER BY t.name")
+    List<ToolSummaryDTO> findSummariesByCategory(@Param("category") String category);
+}
@@ -0,0 +1,212 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.entity.DailyRollup;
+import com.SRVK.Hardware.entity.Order;
+import com.SRVK.Hardware.entity.OrderItem;
+import com.SRVK.Hardware.entity.RentalOrder;
+import com.SRVK.Hardware.repository.DailyRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily sales and rental rollups (see DailyRollup).
+ * Product sales and payment splits count on the order day; rentals count on their start day.
+ * Writers call the record* methods inside their transaction; the deltas are applied as
+ * upserts after that transaction commits, on the bounded rollupExecutor (see AnalyticsConfig)
+ * in short transactions of its own, so rolled-back checkouts never count and hot rollup rows are not locked for the
+ * whole checkout.
+ * rebuild() recomputes a date range from the source tables (backfill or repair).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsService {
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor rollupExecutor;
+
+    /**
+     * Change to one rollup row
+     */
+    public record Delta(LocalDate day, String dimension, String key, BigDecimal revenue,
+                        long units, long rentalDays, long orders) {
+    }
+
+    /**
+     * Deltas produced by one business transaction, applied after it commits
+     */
+    public record RollupEvent(List<Delta> deltas) {
+    }
+
+    public void recordCheckout(Order order, List<OrderItem> items, List<RentalOrder> rentals) {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        orderDeltas(deltas, order, items, 1);
+        for (RentalOrder rental : rentals) {
+            rentalDeltas(deltas, rental, 1);
+        }
+        eventPublisher.publishEvent(new RollupEvent(new ArrayList<>(deltas.values())));
+    }
+
+    /**
+     * The order's payment failed: take back its order and product figures.
+     * Its rentals are removed separately (recordRental with sign -1).
+     */
+    public void recordPaymentFailed(Order order, List<OrderItem> items) {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        orderDeltas(deltas, order, items, -1);
+        eventPublisher.publishEvent(new RollupEvent(new ArrayList<>(deltas.values())));
+    }
+
+    /**
+     * A rental was booked (sign 1) or removed (sign -1)
+     */
+    public void recordRental(RentalOrder rental, int sign) {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        rentalDeltas(deltas, rental, sign);
+        eventPublisher.publishEvent(new RollupEvent(new ArrayList<>(deltas.values())));
+    }
+
+    /**
+     * A rental's dates or cost changed: move its figures from the old values to the new ones
+     */
+    public void recordRentalChange(RentalOrder before, RentalOrder after) {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        rentalDeltas(deltas, before, -1);
+        rentalDeltas(deltas, after, 1);
+        eventPublisher.publishEvent(new RollupEvent(new ArrayList<>(deltas.values())));
+    }
+
+    /**
+     * Hands the deltas to the rollup executor. Writing them here would need a second connection
+     * while the committing request still holds its own (open-in-view), which can exhaust the
+     * pool when many checkouts commit at once.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void apply(RollupEvent event) {
+        rollupExecutor.execute(() -> write(event));
+    }
+
+    private void write(RollupEvent event) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Delta d : event.deltas()) {
+                    dailyRollupRepository.increment(d.day(), d.dimension(), d.key(), d.revenue(),
+                            d.units(), d.rentalDays(), d.orders());
+                }
+            });
+        } catch (RuntimeException e) {
+            // The business transaction already committed; a rebuild of the day repairs the rollup
+            log.error("Failed to update daily rollups ({} deltas)", event.deltas().size(), e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyRollup> getDaily(String dimension, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return dailyRollupRepository.findRange(dimension.toUpperCase(), from, to);
+    }
+
+    /**
+     * Recompute all rollup rows of the date range (inclusive) from orders, order items and rentals
+     */
+    @Transactional
+    public void rebuild(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        int removed = dailyRollupRepository.deleteRange(from, to);
+        Object[] orderRange = {from.atStartOfDay(), to.plusDays(1).atStartOfDay()};
+        Object[] rentalRange = {from, to};
+
+        String upsert = "INSERT INTO daily_rollups (rollup_day, dimension, dimension_key, revenue, units, rental_days, order_count) ";
+        String onDuplicate = " ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), units = units + VALUES(units), " +
+                "rental_days = rental_days + VALUES(rental_days), order_count = order_count + VALUES(order_count)";
+        String rentalDays = "GREATEST(TIMESTAMPDIFF(DAY, r.start_date, r.end_date), 1) * r.quantity";
+
+        // Orders: count and payment split. Orders whose payment failed don't count; their rentals were deleted
+        jdbcTemplate.update(upsert +
+                "SELECT DATE(o.created_at), 'TOTAL', '', 0, 0, 0, COUNT(*) FROM orders o " +
+                "WHERE o.created_at >= ? AND o.created_at < ? AND o.status <> 'FAILED' GROUP BY DATE(o.created_at)" + onDuplicate, orderRange);
+        jdbcTemplate.update(upsert +
+                "SELECT DATE(o.created_at), 'PAYMENT', o.payment_method, SUM(o.total_amount), 0, 0, COUNT(*) FROM orders o " +
+                "WHERE o.created_at >= ? AND o.created_at < ? AND o.status <> 'FAILED' AND o.payment_method IS NOT NULL " +
+                "GROUP BY DATE(o.created_at), o.payment_method" + onDuplicate, orderRange);
+        // Product lines: totals and categories
+        jdbcTemplate.update(upsert +
+                "SELECT DATE(o.created_at), 'TOTAL', '', SUM(oi.subtotal), SUM(oi.quantity), 0, 0 " +
+                "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                "WHERE o.created_at >= ? AND o.created_at < ? AND o.status <> 'FAILED' GROUP BY DATE(o.created_at)" + onDuplicate, orderRange);
+        jdbcTemplate.update(upsert +
+                "SELECT DATE(o.created_at), 'CATEGORY', p.category, SUM(oi.subtotal), SUM(oi.quantity), 0, 0 " +
+                "FROM order_items oi JOIN orders o ON o.id = oi.order_id JOIN product p ON p.id = oi.product_id " +
+                "WHERE o.created_at >= ? AND o.created_at < ? AND o.status <> 'FAILED' GROUP BY DATE(o.created_at), p.category" + onDuplicate, orderRange);
+        // Rentals: totals and tools, on the start day
+        jdbcTemplate.update(upsert +
+                "SELECT r.start_date, 'TOTAL', '', SUM(r.total_cost), 0, SUM(" + rentalDays + "), 0 FROM rental_orders r " +
+                "WHERE r.start_date BETWEEN ? AND ? GROUP BY r.start_date" + onDuplicate, rentalRange);
+        jdbcTemplate.update(upsert +
+                "SELECT r.start_date, 'TOOL', CAST(r.tool_id AS CHAR), SUM(r.total_cost), SUM(r.quantity), SUM(" + rentalDays + "), 0 " +
+                "FROM rental_orders r WHERE r.start_date BETWEEN ? AND ? GROUP BY r.start_date, r.tool_id" + onDuplicate, rentalRange);
+
+        log.info("Rebuilt daily rollups {}..{} (replaced {} rows)", from, to, removed);
+    }
+
+    private static void orderDeltas(Map<String, Delta> deltas, Order order, List<OrderItem> items, int sign) {
+        LocalDate day = order.getCreatedAt().toLocalDate();
+        BigDecimal factor = BigDecimal.valueOf(sign);
+
+        long units = 0;
+        BigDecimal productRevenue = BigDecimal.ZERO;
+        for (OrderItem oi : items) {
+            units += oi.getQuantity();
+            productRevenue = productRevenue.add(oi.getSubtotal());
+            if (oi.getProduct() != null) {
+                merge(deltas, new Delta(day, DailyRollup.DIM_CATEGORY, oi.getProduct().getCategory(),
+                        oi.getSubtotal().multiply(factor), (long) oi.getQuantity() * sign, 0, 0));
+            }
+        }
+        merge(deltas, new Delta(day, DailyRollup.DIM_TOTAL, "", productRevenue.multiply(factor), units * sign, 0, sign));
+        if (order.getPaymentMethod() != null) {
+            merge(deltas, new Delta(day, DailyRollup.DIM_PAYMENT, order.getPaymentMethod(),
+                    order.getTotalAmount().multiply(factor), 0, 0, sign));
+        }
+    }
+
+    private static void rentalDeltas(Map<String, Delta> deltas, RentalOrder rental, int sign) {
+        long days = ChronoUnit.DAYS.between(rental.getStartDate(), rental.getEndDate());
+        if (days == 0) days = 1; // Minimum 1 day rental, as when the rental was priced
+        long rentalDays = days * rental.getQuantity() * sign;
+        BigDecimal revenue = rental.getTotalCost().multiply(BigDecimal.valueOf(sign));
+        LocalDate day = rental.getStartDate();
+
+        merge(deltas, new Delta(day, DailyRollup.DIM_TOTAL, "", revenue, 0, rentalDays, 0));
+        merge(deltas, new Delta(day, DailyRollup.DIM_TOOL, String.valueOf(rental.getToolId()), revenue,
+                (long) rental.getQuantity() * sign, rentalDays, 0));
+    }
+
+    // Combine deltas for the same row so each row gets one upsert
+    private static void merge(Map<String, Delta> deltas, Delta d) {
+        deltas.merge(d.day() + "|" + d.dimension() + "|" + d.key(), d, (a, b) -> new Delta(a.day(), a.dimension(), a.key(),
+                a.revenue().add(b.revenue()), a.units() + b.units(), a.rentalDays() + b.rentalDays(), a.orders() + b.orders()));
+    }
+}
@@ -2,6 +2,7 @@ package com.SRVK.Hardware.service;
 
 import com.SRVK.Hardware.dto.*;
 import com.SRVK.Hardware.entity.*;
+import com.SRVK.Hardware.entity.InventoryHold.ItemType;
 import com.SRVK.Hardware.entity.ProductCart.ProductCartKey;
 import com.SRVK.Hardware.entity.RentalCart.RentalCartKey;
 import com.SRVK.Hardware.repository.*;
@@ -14,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,62 +30,63 @@ public class CartService {
     private final ToolRepository toolRepository;
     private final UserRepository userRepository;
     private final RentalService rentalService;
+    private final CatalogCacheService catalogCacheService;
+    private final InventoryReservationService reservationService;
+    private final ToolAvailabilityService toolAvailabilityService;
 
     /**
      * Get cart information for a specific user
      * @param userId the ID of the user
+     * @param checkUser whether to verify the user exists (not needed when the caller was authenticated as them)
      * @return CartResponseDTO containing all product and rental items in the cart
      */
-    public CartResponseDTO getCartByUser(Long userId) {
+    public CartResponseDTO getCartByUser(Long userId, boolean checkUser) {
         // Validate user exists
-        userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        if (checkUser && !userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("User not found");
+        }
 
-        // Get all product cart items for the user
-        List<ProductCart> productCarts = productCartRepository.findByIdUserId(userId);
+        // Get all product and rental lines for the user, joined with their product/tool in one query each
+        List<ProductCartRepository.CartLine> productLines = productCartRepository.findCartLinesByUserId(userId);
+        List<RentalCartRepository.CartLine> rentalLines = rentalCartRepository.findCartLinesByUserId(userId);
 
-        // Get all rental cart items for the user
-        List<RentalCart> rentalCarts = rentalCartRepository.findByIdUserId(userId);
-
-        // Map product cart items to DTOs
-        List<CartProductItemDTO> products = productCarts.stream().map(pc -> {
+        // Map product cart lines to DTOs
+        List<CartProductItemDTO> products = productLines.stream().map(line -> {
             CartProductItemDTO dto = new CartProductItemDTO();
-            dto.setUserId(pc.getId().getUserId());
-            dto.setProductId(pc.getId().getProductId());
-            dto.setName(pc.getProduct().getName());
-            dto.setImage(pc.getProduct().getImage());
-            dto.setUnitPrice(BigDecimal.valueOf(pc.getProduct().getPrice()));
-            dto.setQuantity(pc.getQuantity());
+            dto.setUserId(userId);
+            dto.setProductId(line.getProductId());
+            dto.setName(line.getName());
+            dto.setImageUrl(ImageVariantService.url(line.getImageHash(), ImageVariantService.Variant.THUMB));
+            dto.setUnitPrice(BigDecimal.valueOf(line.getPrice()));
+            dto.setQuantity(line.getQuantity());
             // Calculate subtotal
-            BigDecimal subtotal = dto.getUnitPrice().multiply(BigDecimal.valueOf(pc.getQuantity()));
+            BigDecimal subtotal = dto.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity()));
             dto.setSubtotal(subtotal);
             return dto;
         }).collect(Collectors.toList());
 
-        // Map rental cart items to DTOs
-        List<CartRentalItemDTO> rentals = rentalCarts.stream().map(rc -> {
-            long days = rc.getRentalStart() != null && rc.getRentalEnd() != null ?
-                ChronoUnit.DAYS.between(rc.getRentalStart(), rc.getRentalEnd()) : 0;
+        // Map rental cart lines to DTOs
+        List<CartRentalItemDTO> rentals = rentalLines.stream().map(line -> {
+            long days = line.getRentalStart() != null && line.getRentalEnd() != null ?
+                ChronoUnit.DAYS.between(line.getRentalStart(), line.getRentalEnd()) : 0;
             if (days < 0) days = 0;
 
-            // Use the tool directly from the relationship
-            Tool tool = rc.getTool();
-
             CartRentalItemDTO dto = new CartRentalItemDTO();
-            dto.setUserId(rc.getId().getUserId());
+            dto.setUserId(userId);
             // Critical fix: Set rentalId to be the same as toolId for consistency with frontend
-            dto.setRentalId(rc.getId().getToolId());
-            dto.setName(tool.getName());
-            dto.setDailyRate(tool.getDailyRate());
-            dto.setQuantity(rc.getQuantity());
-            dto.setRentalStart(rc.getRentalStart());
-            dto.setRentalEnd(rc.getRentalEnd());
+            dto.setRentalId(line.getToolId());
+            dto.setName(line.getName());
+            dto.setDailyRate(line.getDailyRate());
+            dto.setQuantity(line.getQuantity());
+            dto.setRentalStart(line.getRentalStart());
+            dto.setRentalEnd(line.getRentalEnd());
 
             // Calculate subtotal: dailyRate * quantity * days
             // We already calculated days above, just ensure minimum 1 day
             if (days == 0) days = 1; // Minimum 1 day rental
 
-            BigDecimal subtotal = tool.getDailyRate()
-                .multiply(BigDecimal.valueOf(rc.getQuantity()))
+            BigDecimal subtotal = line.getDailyRate()
+                .multiply(BigDecimal.valueOf(line.getQuantity()))
                 .multiply(BigDecimal.valueOf(days));
             dto.setSubtotal(subtotal);
 
@@ -124,19 +127,14 @@ public class CartService {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
 
-        // Get product and validate it exists
-        Product product = productRepository.findById(request.getProductId())
+        // Get product and validate it exists (catalog fields cached, stock read fresh)
+        Product product = catalogCacheService.getProductWithLiveStock(request.getProductId())
             .orElseThrow(() -> new IllegalArgumentException("Product not found"));
 
         // Get user and validate it exists
         User user = userRepository.findById(request.getUserId())
             .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        // Check if product has sufficient stock
-        if (product.getQuantity() < request.getQuantity()) {
-            throw new IllegalArgumentException("Insufficient stock");
-        }
-
         // Create composite key for product cart
         ProductCartKey id = new ProductCartKey(request.getUserId(), request.getProductId());
 
@@ -145,7 +143,7 @@ public class CartService {
             .orElse(ProductCart.builder()
                 .id(id)
                 .user(user)
-                .product(product)
+                .product(productRepository.getReferenceById(request.getProductId()))
                 .quantity(0)
                 .addedAt(LocalDateTime.now())
                 .build());
@@ -153,6 +151,10 @@ public class CartService {
         // Update quantity
         productCart.setQuantity(productCart.getQuantity() + request.getQuantity());
 
+        // Hold the whole line quantity; fails if other carts already hold the rest of the stock
+        reservationService.reserve(request.getUserId(), ItemType.PRODUCT, request.getProductId(),
+                productCart.getQuantity(), product.getQuantity());
+
         // Save to database
         productCartRepository.save(productCart);
 
@@ -179,17 +181,17 @@ public class CartService {
         }
 
         // Get tool
-        Tool tool = toolRepository.findById(request.getRentalId())
+        Tool tool = catalogCacheService.getToolWithLiveStock(request.getRentalId())
                 .orElseThrow(() -> new IllegalArgumentException("Tool not found with ID: " + request.getRentalId()));
 
         // Get user
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + request.getUserId()));
 
-        // Check stock
-        if (tool.getStockQuantity() < request.getQuantity()) {
-            throw new IllegalArgumentException("Insufficient stock for tool: " + tool.getName());
-        }
+        // Hold the stock for this cart line, against the units free on every day of the rental
+        reservationService.reserveRental(request.getUserId(), request.getRentalId(), request.getQuantity(),
+                toolAvailabilityService.freeUnits(tool.getId(), tool.getTotalStock(), request.getRentalStart(), request.getRentalEnd()),
+                request.getRentalStart(), request.getRentalEnd());
 
         // Calculate days and total cost
         long days = ChronoUnit.DAYS.between(request.getRentalStart(), request.getRentalEnd());
@@ -216,7 +218,7 @@ public class CartService {
             rentalCart = RentalCart.builder()
                     .id(id)
                     .user(user)
-                    .tool(tool)
+                    .tool(toolRepository.getReferenceById(request.getRentalId()))
                     .quantity(request.getQuantity())
                     .rentalStart(request.getRentalStart())
                     .rentalEnd(request.getRentalEnd())
@@ -253,10 +255,9 @@ public class CartService {
         ProductCart productCart = productCartRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Item not found in cart"));
 
-        // Check if product has sufficient stock
-        if (productCart.getProduct().getQuantity() < request.getQuantity()) {
-            throw new IllegalArgumentException("Insufficient stock");
-        }
+        // Move the hold to the new quantity
+        reservationService.reserve(userId, ItemType.PRODUCT, productId,
+                request.getQuantity(), productCart.getProduct().getQuantity());
 
         // Update quantity
         productCart.setQuantity(request.getQuantity());
@@ -293,13 +294,13 @@ public class CartService {
             .orElseThrow(() -> new IllegalArgumentException("Item not found in cart"));
 
         // Ensure corresponding tool exists
-        Tool tool = toolRepository.findById(toolId)
+        Tool tool = catalogCacheService.getToolWithLiveStock(toolId)
             .orElseThrow(() -> new IllegalArgumentException("Tool not found"));
 
-        // Check if tool has sufficient stock
-        if (tool.getStockQuantity() < request.getQuantity()) {
-            throw new IllegalArgumentException("Insufficient stock");
-        }
+        // Move the hold to the new quantity and dates
+        reservationService.reserveRental(userId, toolId, request.getQuantity(),
+                toolAvailabilityService.freeUnits(toolId, tool.getTotalStock(), request.getRentalStart(), request.getRentalEnd()),
+                request.getRentalStart(), request.getRentalEnd());
 
         // Update quantity and rental dates
         rentalCart.setQuantity(request.getQuantity());
@@ -325,6 +326,7 @@ public class CartService {
     @Transactional
     public void removeProductFromCart(Long userId, Long productId) {
         productCartRepository.deleteByIdUserIdAndIdProductId(userId, productId);
+        reservationService.release(userId, ItemType.PRODUCT, productId);
         log.info("Removed product {} from cart of user {}", productId, userId);
     }
 
@@ -336,6 +338,7 @@ public class CartService {
     @Transactional
     public void removeRentalFromCart(Long userId, Long toolId) {
         rentalCartRepository.deleteByIdUserIdAndIdToolId(userId, toolId);
+        reservationService.release(userId, ItemType.TOOL, toolId);
         log.info("Removed rental tool {} from cart of user {}", toolId, userId);
     }
 
@@ -347,20 +350,16 @@ public class CartService {
      */
     @Transactional
     public void clearSelectedItems(Long userId, List<Long> productIds, List<Long> toolIds) {
-        // Delete selected product cart items
+        // Delete selected product cart items in one statement
         if (productIds != null && !productIds.isEmpty()) {
-            for (Long productId : productIds) {
-                productCartRepository.deleteByIdUserIdAndIdProductId(userId, productId);
-                log.info("Removed product {} from cart of user {}", productId, userId);
-            }
+            productCartRepository.deleteByUserIdAndProductIds(userId, productIds);
+            reservationService.releaseAll(userId, ItemType.PRODUCT, productIds);
         }
 
-        // Delete selected rental cart items
+        // Delete selected rental cart items in one statement
         if (toolIds != null && !toolIds.isEmpty()) {
-            for (Long toolId : toolIds) {
-                rentalCartRepository.deleteByIdUserIdAndIdToolId(userId, toolId);
-                log.info("Removed rental tool {} from cart of user {}", toolId, userId);
-            }
+            rentalCartRepository.deleteByUserIdAndToolIds(userId, toolIds);
+            reservationService.releaseAll(userId, ItemType.TOOL, toolIds);
         }
 
         log.info("Cleared selected items from cart for user {} - {} products, {} rentals", 
@@ -383,6 +382,7 @@ public class CartService {
         List<RentalCart> rentalCarts = rentalCartRepository.findByIdUserId(userId);
         rentalCartRepository.deleteAll(rentalCarts);
 
+        reservationService.releaseUser(userId);
         log.info("Cleared entire cart for user {}", userId);
     }
 
@@ -402,7 +402,10 @@ public class CartService {
             return createdRentalOrders;
         }
 
-        // Create rental orders using existing validation logic in RentalService
+        // Create rental orders using existing validation logic in RentalService,
+        // in tool id order since each booking locks its tool row until commit (see CheckoutService)
+        rentalCarts = new ArrayList<>(rentalCarts);
+        rentalCarts.sort(Comparator.comparing(rc -> rc.getId().getToolId()));
         for (RentalCart item : rentalCarts) {
             Long toolId = item.getId().getToolId();
 
@@ -421,8 +424,10 @@ public class CartService {
             createdRentalOrders.add(rentalOrder);
         }
 
-        // Remove all rental items from the cart
+        // Remove all rental items from the cart; their stock is now taken by the rentals
         rentalCartRepository.deleteAll(rentalCarts);
+        reservationService.releaseAfterCommit(userId, ItemType.TOOL,
+                rentalCarts.stream().map(rc -> rc.getId().getToolId()).toList());
 
         return createdRentalOrders;
     }
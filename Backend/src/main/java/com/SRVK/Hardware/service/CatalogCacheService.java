@@ -0,0 +1,267 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.entity.Product;
+import com.SRVK.Hardware.entity.Tool;
+import com.SRVK.Hardware.repository.ProductRepository;
+import com.SRVK.Hardware.repository.ToolRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded read-through cache of catalog fields (name, price, category, description, image)
+ * for products and tools. Stock columns are cached separately with a short TTL: display reads
+ * (getProduct/getTool) may show stock up to that old, while the cart paths use the
+ * ...WithLiveStock variants, which always read the stock columns (checkout itself takes stock
+ * with conditional UPDATEs, so a stale display value can't oversell). The version is kept with
+ * the stock, since stock UPDATEs bump it, so admin edits can send back the version they were shown.
+ * Entries are evicted by size and TTL, and invalidated by the product/tool write paths.
+ */
+@Service
+@Slf4j
+public class CatalogCacheService {
+
+    private final ProductRepository productRepository;
+    private final ToolRepository toolRepository;
+    private final Cache<Long, Product> products;
+    private final Cache<Long, Tool> tools;
+    private final Cache<Long, ProductRepository.StockLevel> productStock;
+    private final Cache<Long, ToolRepository.StockLevel> toolStock;
+
+    public CatalogCacheService(ProductRepository productRepository,
+                               ToolRepository toolRepository,
+                               @Value("${app.cache.catalog.max-size:10000}") long maxSize,
+                               @Value("${app.cache.catalog.ttl:10m}") Duration ttl,
+                               @Value("${app.cache.catalog.stock-ttl:2s}") Duration stockTtl) {
+        this.productRepository = productRepository;
+        this.toolRepository = toolRepository;
+        this.products = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        this.tools = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        this.productStock = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(stockTtl).recordStats().build();
+        this.toolStock = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(stockTtl).recordStats().build();
+    }
+
+    /**
+     * Get a product for display: cached catalog fields and a stock snapshot at most stock-ttl old
+     * @param id product id
+     * @return a detached copy the caller may modify, empty if the product doesn't exist
+     */
+    public Optional<Product> getProduct(Long id) {
+        return getProduct(id, false);
+    }
+
+    /**
+     * Get a product with cached catalog fields and its current stock
+     */
+    public Optional<Product> getProductWithLiveStock(Long id) {
+        return getProduct(id, true);
+    }
+
+    /**
+     * Get a tool for display: cached catalog fields and a stock snapshot at most stock-ttl old
+     * @param id tool id
+     * @return a detached copy the caller may modify, empty if the tool doesn't exist
+     */
+    public Optional<Tool> getTool(Long id) {
+        return getTool(id, false);
+    }
+
+    /**
+     * Get a tool with cached catalog fields and its current stock and availability
+     */
+    public Optional<Tool> getToolWithLiveStock(Long id) {
+        return getTool(id, true);
+    }
+
+    public void invalidateProduct(Long id) {
+        products.invalidate(id);
+        productStock.invalidate(id);
+    }
+
+    public void invalidateTool(Long id) {
+        tools.invalidate(id);
+        toolStock.invalidate(id);
+    }
+
+    /**
+     * Drop the stock snapshot of a product whose stock the current transaction changes, once it commits
+     */
+    public void invalidateProductStockAfterCommit(Long id) {
+        afterCommit(() -> productStock.invalidate(id));
+    }
+
+    /**
+     * Drop the stock snapshot of a tool whose stock the current transaction changes, once it commits
+     */
+    public void invalidateToolStockAfterCommit(Long id) {
+        afterCommit(() -> toolStock.invalidate(id));
+    }
+
+    /**
+     * Hit/miss counters and sizes for both caches
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", describe(products));
+        stats.put("tools", describe(tools));
+        stats.put("productStock", describe(productStock));
+        stats.put("toolStock", describe(toolStock));
+        return stats;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Optional<Product> getProduct(Long id, boolean liveStock) {
+        Product cached = products.getIfPresent(id);
+        if (cached == null) {
+            Optional<Product> loaded = productRepository.findById(id);
+            loaded.ifPresent(p -> {
+                products.put(id, copy(p));
+                productStock.put(id, new ProductStock(p.getQuantity(), p.getVersion()));
+            });
+            return loaded.map(CatalogCacheService::copy);
+        }
+
+        ProductRepository.StockLevel stock = liveStock ? null : productStock.getIfPresent(id);
+        if (stock == null) {
+            stock = productRepository.findStockLevelById(id).orElse(null);
+            if (stock == null) {
+                invalidateProduct(id); // Deleted by another instance
+                return Optional.empty();
+            }
+            // Copied out of the query's projection proxy
+            stock = new ProductStock(stock.getQuantity(), stock.getVersion());
+            productStock.put(id, stock);
+        }
+        Product product = copy(cached);
+        product.setQuantity(stock.getQuantity());
+        product.setVersion(stock.getVersion());
+        return Optional.of(product);
+    }
+
+    private Optional<Tool> getTool(Long id, boolean liveStock) {
+        Tool cached = tools.getIfPresent(id);
+        if (cached == null) {
+            Optional<Tool> loaded = toolRepository.findById(id);
+            loaded.ifPresent(t -> {
+                tools.put(id, copy(t));
+                toolStock.put(id, new Stock(t.getStockQuantity(), t.getTotalStock(), t.isAvailable(), t.getVersion()));
+            });
+            return loaded.map(CatalogCacheService::copy);
+        }
+
+        ToolRepository.StockLevel stock = liveStock ? null : toolStock.getIfPresent(id);
+        if (stock == null) {
+            stock = toolRepository.findStockLevelById(id).orElse(null);
+            if (stock == null) {
+                invalidateTool(id);
+                return Optional.empty();
+            }
+            // Copied out of the query's projection proxy
+            stock = new Stock(stock.getStockQuantity(), stock.getTotalStock(), stock.getAvailable(), stock.getVersion());
+            toolStock.put(id, stock);
+        }
+        Tool tool = copy(cached);
+        tool.setStockQuantity(stock.getStockQuantity());
+        tool.setTotalStock(stock.getTotalStock());
+        tool.setAvailable(stock.getAvailable());
+        tool.setVersion(stock.getVersion());
+        return Optional.of(tool);
+    }
+
+    private record ProductStock(Integer quantity, Long version) implements ProductRepository.StockLevel {
+        @Override
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+    }
+
+    private record Stock(Integer stockQuantity, Integer totalStock, boolean available, Long version)
+            implements ToolRepository.StockLevel {
+        @Override
+        public Integer getStockQuantity() {
+            return stockQuantity;
+        }
+
+        @Override
+        public Integer getTotalStock() {
+            return totalStock;
+        }
+
+        @Override
+        public boolean getAvailable() {
+            return available;
+        }
+
+        @Override
+        public Long getVersion() {
+            return version;
+        }
+    }
+
+    private static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("size", cache.estimatedSize());
+        m.put("hits", s.hitCount());
+        m.put("misses", s.missCount());
+        m.put("hitRate", s.hitRate());
+        m.put("evictions", s.evictionCount());
+        return m;
+    }
+
+    private static Product copy(Product p) {
+        return Product.builder()
+                .id(p.getId())
+                .version(p.getVersion())
+                .name(p.getName())
+                .quantity(p.getQuantity())
+                .category(p.getCategory())
+                .subCategory(p.getSubCategory())
+                .description(p.getDescription())
+                .price(p.getPrice())
+                .imageHash(p.getImageHash())
+                .build();
+    }
+
+    private static Tool copy(Tool t) {
+        return Tool.builder()
+                .id(t.getId())
+                .version(t.getVersion())
+                .name(t.getName())
+                .dailyRate(t.getDailyRate())
+                .category(t.getCategory())
+                .available(t.isAvailable())
+                .totalStock(t.getTotalStock())
+                .stockQuantity(t.getStockQuantity())
+                .description(t.getDescription())
+                .imageHash(t.getImageHash())
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.dto.CatalogPageDTO;
+import com.SRVK.Hardware.dto.CatalogQuery;
+import com.SRVK.Hardware.dto.ProductSummaryDTO;
+import com.SRVK.Hardware.dto.ToolSummaryDTO;
+import com.SRVK.Hardware.entity.Product;
+import com.SRVK.Hardware.entity.Tool;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Filtered, sorted catalog listings paged with keyset (seek) pagination.
+ * Each page continues from the last (sort value, id) seen instead of using OFFSET,
+ * so page N costs the same as page 1 and rows inserted meanwhile don't shift pages.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CatalogQueryService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final EntityManager entityManager;
+
+    public CatalogPageDTO<ProductSummaryDTO> findProducts(CatalogQuery query) {
+        boolean byPrice = isPriceSort(query);
+        boolean desc = isDescending(query);
+        KeysetCursor cursor = KeysetCursor.decode(query.getCursor());
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummaryDTO> cq = cb.createQuery(ProductSummaryDTO.class);
+        Root<Product> p = cq.from(Product.class);
+        cq.select(cb.construct(ProductSummaryDTO.class, p.get("id"), p.get("name"), p.get("price"),
+                p.get("category"), p.get("subCategory"), p.get("quantity"), p.get("imageHash")));
+
+        List<Predicate> where = new ArrayList<>();
+        if (hasText(query.getCategory())) where.add(cb.equal(p.get("category"), query.getCategory()));
+        if (hasText(query.getSubCategory())) where.add(cb.equal(p.get("subCategory"), query.getSubCategory()));
+        if (query.getMinPrice() != null) where.add(cb.ge(p.<Double>get("price"), query.getMinPrice()));
+        if (query.getMaxPrice() != null) where.add(cb.le(p.<Double>get("price"), query.getMaxPrice()));
+        if (Boolean.TRUE.equals(query.getInStock())) where.add(cb.gt(p.<Integer>get("quantity"), 0));
+
+        Path<Comparable<Object>> sortPath = p.<Comparable<Object>>get(byPrice ? "price" : "name");
+        if (cursor != null) {
+            Comparable<?> value = byPrice ? Double.valueOf(cursor.value()) : cursor.value();
+            where.add(seek(cb, sortPath, p.<Long>get("id"), value, cursor.id(), desc));
+        }
+
+        return page(cq, cb, where, sortPath, p.<Long>get("id"), desc, pageSize(query),
+                dto -> new KeysetCursor(byPrice ? String.valueOf(dto.getPrice()) : dto.getName(), dto.getId()));
+    }
+
+    public CatalogPageDTO<ToolSummaryDTO> findTools(CatalogQuery query) {
+        boolean byPrice = isPriceSort(query);
+        boolean desc = isDescending(query);
+        KeysetCursor cursor = KeysetCursor.decode(query.getCursor());
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ToolSummaryDTO> cq = cb.createQuery(ToolSummaryDTO.class);
+        Root<Tool> t = cq.from(Tool.class);
+        cq.select(cb.construct(ToolSummaryDTO.class, t.get("id"), t.get("name"), t.get("dailyRate"),
+                t.get("category"), t.get("available"), t.get("stockQuantity"), t.get("totalStock"), t.get("imageHash")));
+
+        List<Predicate> where = new ArrayList<>();
+        if (hasText(query.getCategory())) where.add(cb.equal(t.get("category"), query.getCategory()));
+        if (query.getMinPrice() != null) where.add(cb.ge(t.<BigDecimal>get("dailyRate"), BigDecimal.valueOf(query.getMinPrice())));
+        if (query.getMaxPrice() != null) where.add(cb.le(t.<BigDecimal>get("dailyRate"), BigDecimal.valueOf(query.getMaxPrice())));
+        if (Boolean.TRUE.equals(query.getInStock())) {
+            where.add(cb.isTrue(t.<Boolean>get("available")));
+            where.add(cb.gt(t.<Integer>get("stockQuantity"), 0));
+        }
+
+        Path<Comparable<Object>> sortPath = t.<Comparable<Object>>get(byPrice ? "dailyRate" : "name");
+        if (cursor != null) {
+            Comparable<?> value = byPrice ? new BigDecimal(cursor.value()) : cursor.value();
+            where.add(seek(cb, sortPath, t.<Long>get("id"), value, cursor.id(), desc));
+        }
+
+        return page(cq, cb, where, sortPath, t.<Long>get("id"), desc, pageSize(query),
+                dto -> new KeysetCursor(byPrice ? dto.getDailyRate().toPlainString() : dto.getName(), dto.getId()));
+    }
+
+    // Rows strictly after (value, id) in the requested order
+    @SuppressWarnings("unchecked")
+    private static Predicate seek(CriteriaBuilder cb, Path<Comparable<Object>> sortPath, Path<Long> idPath,
+                                  Comparable<?> value, Long id, boolean desc) {
+        Comparable<Object> v = (Comparable<Object>) value;
+        if (desc) {
+            return cb.or(cb.lessThan(sortPath, v), cb.and(cb.equal(sortPath, v), cb.lessThan(idPath, id)));
+        }
+        return cb.or(cb.greaterThan(sortPath, v), cb.and(cb.equal(sortPath, v), cb.greaterThan(idPath, id)));
+    }
+
+    private <T> CatalogPageDTO<T> page(CriteriaQuery<T> cq, CriteriaBuilder cb, List<Predicate> where,
+                                       Path<?> sortPath, Path<Long> idPath, boolean desc, int size,
+                                       Function<T, KeysetCursor> cursorOf) {
+        cq.where(where.toArray(new Predicate[0]));
+        // id as tie-breaker keeps the order total, which the seek predicate relies on
+        cq.orderBy(desc ? cb.desc(sortPath) : cb.asc(sortPath), desc ? cb.desc(idPath) : cb.asc(idPath));
+
+        // Fetch one extra row to know whether another page exists
+        List<T> rows = entityManager.createQuery(cq).setMaxResults(size + 1).getResultList();
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String next = hasMore ? cursorOf.apply(items.get(items.size() - 1)).encode() : null;
+        return new CatalogPageDTO<>(items, next, hasMore);
+    }
+
+    private static boolean isPriceSort(CatalogQuery query) {
+        if (query.getSort() == null || query.getSort().equalsIgnoreCase("name")) return false;
+        if (query.getSort().equalsIgnoreCase("price")) return true;
+        throw new IllegalArgumentException("Unsupported sort: " + query.getSort() + " (use name or price)");
+    }
+
+    private static boolean isDescending(CatalogQuery query) {
+        return "desc".equalsIgnoreCase(query.getDirection());
+    }
+
+    private static int pageSize(CatalogQuery query) {
+        int size = query.getSize() != null ? query.getSize() : 24;
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
+}
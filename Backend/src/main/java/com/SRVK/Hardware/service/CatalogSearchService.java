@@ -0,0 +1,254 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.dto.SearchHitDTO;
+import com.SRVK.Hardware.entity.Product;
+import com.SRVK.Hardware.entity.Tool;
+import com.SRVK.Hardware.repository.ProductRepository;
+import com.SRVK.Hardware.repository.ToolRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index over product and tool text fields.
+ * Built once at startup and kept current by the product/tool write paths, so searches
+ * never hit MySQL. Supports prefix matching (autocomplete) and single-typo tolerance.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSearchService {
+
+    private static final String PRODUCT = "PRODUCT";
+    private static final String TOOL = "TOOL";
+
+    // Matches in the name count more than matches in description/category
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double FIELD_WEIGHT = 1.0;
+    private static final double PREFIX_FACTOR = 0.7;
+    private static final double FUZZY_FACTOR = 0.4;
+    // Fuzzy matches are at most one edit away, whatever the term length
+    private static final int MAX_TYPOS = 1;
+
+    private final ProductRepository productRepository;
+    private final ToolRepository toolRepository;
+
+    /**
+     * Indexed document: display fields plus the weight of each term it contains
+     */
+    private record Document(SearchHitDTO hit, Map<String, Double> termWeights) {}
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    // Sorted so prefix lookups are a range scan
+    private final ConcurrentSkipListMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        productRepository.findAll().forEach(this::indexProduct);
+        toolRepository.findAll().forEach(this::indexTool);
+        log.info("Search index built: {} documents, {} terms", documents.size(), postings.size());
+    }
+
+    public void indexProduct(Product product) {
+        SearchHitDTO hit = SearchHitDTO.builder()
+                .type(PRODUCT)
+                .id(product.getId())
+                .name(product.getName())
+                .category(product.getCategory())
+                .price(BigDecimal.valueOf(product.getPrice()))
+                .imageUrl(ImageVariantService.url(product.getImageHash(), ImageVariantService.Variant.THUMB))
+                .build();
+        index(key(PRODUCT, product.getId()), hit, product.getName(),
+                product.getDescription(), product.getCategory(), product.getSubCategory());
+    }
+
+    public void indexTool(Tool tool) {
+        SearchHitDTO hit = SearchHitDTO.builder()
+                .type(TOOL)
+                .id(tool.getId())
+                .name(tool.getName())
+                .category(tool.getCategory())
+                .price(tool.getDailyRate())
+                .imageUrl(ImageVariantService.url(tool.getImageHash(), ImageVariantService.Variant.THUMB))
+                .build();
+        index(key(TOOL, tool.getId()), hit, tool.getName(), tool.getDescription(), tool.getCategory());
+    }
+
+    public void removeProduct(Long id) {
+        remove(key(PRODUCT, id));
+    }
+
+    public void removeTool(Long id) {
+        remove(key(TOOL, id));
+    }
+
+    /**
+     * Full-text search. Every query term must match (exactly, as a prefix, or with one typo).
+     * @param query free text
+     * @param limit maximum number of hits
+     * @return hits ordered by relevance
+     */
+    public List<SearchHitDTO> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Double> scores = null;
+        for (String term : terms) {
+            Map<String, Double> termScores = scoreTerm(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                // AND semantics: keep documents matched by every term
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((doc, score) -> score + termScores.get(doc));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(limit)
+                .map(e -> {
+                    Document doc = documents.get(e.getKey());
+                    if (doc == null) return null; // Removed concurrently
+                    SearchHitDTO hit = copy(doc.hit());
+                    hit.setScore(e.getValue());
+                    return hit;
+                })
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Name suggestions for a partially typed query
+     * @param prefix what the user typed so far
+     * @param limit maximum number of suggestions
+     * @return distinct product/tool names
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        return search(prefix, limit * 2).stream()
+                .map(SearchHitDTO::getName)
+                .distinct()
+                .limit(limit)
+                .toList();
+    }
+
+    // Score every document containing the term exactly, by prefix, or within edit distance
+    private Map<String, Double> scoreTerm(String term) {
+        Map<String, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : postings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+            double factor = entry.getKey().equals(term) ? 1.0 : PREFIX_FACTOR;
+            addScores(scores, entry.getKey(), entry.getValue(), factor);
+        }
+
+        if (scores.isEmpty() && term.length() >= 3) {
+            // No exact or prefix hit: try terms one typo away, sharing the first letter to bound the scan
+            String first = term.substring(0, 1);
+            for (Map.Entry<String, Set<String>> entry : postings.subMap(first, true, first + Character.MAX_VALUE, true).entrySet()) {
+                String candidate = entry.getKey();
+                if (Math.abs(candidate.length() - term.length()) <= MAX_TYPOS
+                        && editDistance(term, candidate, MAX_TYPOS) <= MAX_TYPOS) {
+                    addScores(scores, candidate, entry.getValue(), FUZZY_FACTOR);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void addScores(Map<String, Double> scores, String term, Set<String> docKeys, double factor) {
+        for (String docKey : docKeys) {
+            Document doc = documents.get(docKey);
+            if (doc == null) continue;
+            double weight = doc.termWeights().getOrDefault(term, 0.0) * factor;
+            scores.merge(docKey, weight, Math::max);
+        }
+    }
+
+    private synchronized void index(String docKey, SearchHitDTO hit, String name, String... fields) {
+        remove(docKey);
+
+        Map<String, Double> weights = new HashMap<>();
+        for (String term : tokenize(name)) {
+            weights.merge(term, NAME_WEIGHT, Math::max);
+        }
+        for (String field : fields) {
+            for (String term : tokenize(field)) {
+                weights.merge(term, FIELD_WEIGHT, Math::max);
+            }
+        }
+
+        documents.put(docKey, new Document(hit, weights));
+        for (String term : weights.keySet()) {
+            postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(docKey);
+        }
+    }
+
+    private synchronized void remove(String docKey) {
+        Document old = documents.remove(docKey);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.termWeights().keySet()) {
+            postings.computeIfPresent(term, (t, docs) -> {
+                docs.remove(docKey);
+                return docs.isEmpty() ? null : docs;
+            });
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) terms.add(token);
+        }
+        return terms;
+    }
+
+    // Levenshtein distance, giving up early once every cell in a row exceeds max
+    private static int editDistance(String a, String b, int max) {
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > max) return max + 1;
+            int[] tmp = prev; prev = curr; curr = tmp;
+        }
+        return prev[b.length()];
+    }
+
+    private static String key(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    private static SearchHitDTO copy(SearchHitDTO hit) {
+        return SearchHitDTO.builder()
+                .type(hit.getType())
+                .id(hit.getId())
+                .name(hit.getName())
+                .category(hit.getCategory())
+                .price(hit.getPrice())
+                .imageUrl(hit.getImageUrl())
+                .build();
+    }
+}
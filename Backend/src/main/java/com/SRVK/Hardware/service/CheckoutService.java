@@ -3,6 +3,7 @@ package com.SRVK.Hardware.service;
 import com.SRVK.Hardware.dto.CheckoutRequestDTO;
 import com.SRVK.Hardware.dto.OrderResponseDTO;
 import com.SRVK.Hardware.entity.*;
+import com.SRVK.Hardware.entity.InventoryHold.ItemType;
 import com.SRVK.Hardware.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +14,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -22,13 +26,15 @@ public class CheckoutService {
 
     private final ProductCartRepository productCartRepository;
     private final RentalCartRepository rentalCartRepository;
-    private final ProductRepository productRepository;
-    private final ToolRepository toolRepository;
     private final RentalOrderRepository rentalOrderRepository;
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
-    private final PaymentService paymentService;
+    private final PaymentOrchestrator paymentOrchestrator;
+    private final AnalyticsService analyticsService;
+    private final ToolAvailabilityService toolAvailabilityService;
+    private final InventoryReservationService reservationService;
+    private final InventoryMutationService inventoryMutationService;
 
     @Transactional
     public OrderResponseDTO checkout(CheckoutRequestDTO request) {
@@ -38,17 +44,36 @@ public class CheckoutService {
         
         User user = userRepository.findById(request.getUserId()).orElseThrow(() -> new IllegalArgumentException("User not found"));
 
+        // Cash is collected on delivery; anything else is charged once this transaction commits
+        boolean cashOnDelivery = Order.PAYMENT_METHOD_CASH.equals(request.getPaymentMethod());
+        if (!cashOnDelivery && !paymentOrchestrator.isAccepting()) {
+            throw new IllegalStateException("Card payments are temporarily unavailable, please try again later");
+        }
+
         // Validate and compute totals
         BigDecimal total = BigDecimal.ZERO;
         List<OrderItem> orderItems = new ArrayList<>();
+        List<ProductCart> productCarts = new ArrayList<>();
 
-        if (request.getSelectedProducts() != null) {
-            for (CheckoutRequestDTO.Key key : request.getSelectedProducts()) {
-                ProductCart.ProductCartKey id = new ProductCart.ProductCartKey(key.getUserId(), key.getProductId());
-                ProductCart pc = productCartRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Product cart item not found"));
+        // Cart lines and their products/tools are loaded once here and reused for the rest of checkout
+        if (request.getSelectedProducts() != null && !request.getSelectedProducts().isEmpty()) {
+            Map<Long, ProductCart> loaded = new HashMap<>();
+            List<Long> productIds = request.getSelectedProducts().stream().map(CheckoutRequestDTO.Key::getProductId).toList();
+            for (ProductCart pc : productCartRepository.findWithProductByUserIdAndProductIds(user.getId(), productIds)) {
+                loaded.put(pc.getId().getProductId(), pc);
+            }
+            for (Long productId : productIds) {
+                ProductCart pc = loaded.get(productId);
+                if (pc == null) throw new IllegalArgumentException("Product cart item not found");
                 Product product = pc.getProduct();
                 if (pc.getQuantity() <= 0) throw new IllegalArgumentException("Quantity must be > 0");
-                if (product.getQuantity() < pc.getQuantity()) throw new IllegalArgumentException("Insufficient stock for product " + product.getName());
+                // Renew the cart hold for the rest of checkout; fails early if other carts hold the stock
+                try {
+                    reservationService.reserve(user.getId(), ItemType.PRODUCT, productId, pc.getQuantity(), product.getQuantity());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Insufficient stock for product " + product.getName());
+                }
+                productCarts.add(pc);
                 BigDecimal unitPrice = BigDecimal.valueOf(product.getPrice());
                 BigDecimal subtotal = unitPrice.multiply(BigDecimal.valueOf(pc.getQuantity()));
                 total = total.add(subtotal);
@@ -62,11 +87,17 @@ public class CheckoutService {
         }
 
         List<RentalOrder> rentalOrders = new ArrayList<>();
-        if (request.getSelectedRentals() != null) {
-            for (CheckoutRequestDTO.Key key : request.getSelectedRentals()) {
-                // Create composite key using toolId (rentalId in the key is actually toolId)
-                RentalCart.RentalCartKey id = new RentalCart.RentalCartKey(key.getUserId(), key.getRentalId());
-                RentalCart rc = rentalCartRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Rental cart item not found"));
+        List<RentalCart> rentalCarts = new ArrayList<>();
+        if (request.getSelectedRentals() != null && !request.getSelectedRentals().isEmpty()) {
+            // rentalId in the key is actually the toolId
+            Map<Long, RentalCart> loaded = new HashMap<>();
+            List<Long> toolIds = request.getSelectedRentals().stream().map(CheckoutRequestDTO.Key::getRentalId).toList();
+            for (RentalCart rc : rentalCartRepository.findWithToolByUserIdAndToolIds(user.getId(), toolIds)) {
+                loaded.put(rc.getId().getToolId(), rc);
+            }
+            for (Long toolId : toolIds) {
+                RentalCart rc = loaded.get(toolId);
+                if (rc == null) throw new IllegalArgumentException("Rental cart item not found");
                 
                 // Get the tool directly from the rental cart relationship
                 Tool tool = rc.getTool();
@@ -74,7 +105,14 @@ public class CheckoutService {
                 if (rc.getQuantity() <= 0) throw new IllegalArgumentException("Quantity must be > 0");
                 if (rc.getRentalStart() == null || rc.getRentalEnd() == null || !rc.getRentalStart().isBefore(rc.getRentalEnd()))
                     throw new IllegalArgumentException("Invalid rental dates");
-                if (tool.getStockQuantity() < rc.getQuantity()) throw new IllegalArgumentException("Insufficient stock for rental " + tool.getName());
+                try {
+                    reservationService.reserveRental(user.getId(), toolId, rc.getQuantity(),
+                            toolAvailabilityService.freeUnits(toolId, tool.getTotalStock(), rc.getRentalStart(), rc.getRentalEnd()),
+                            rc.getRentalStart(), rc.getRentalEnd());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Insufficient stock for rental " + tool.getName());
+                }
+                rentalCarts.add(rc);
                 
                 long days = ChronoUnit.DAYS.between(rc.getRentalStart(), rc.getRentalEnd());
                 if (days == 0) days = 1; // Minimum 1 day rental
@@ -84,13 +122,14 @@ public class CheckoutService {
                 
                 // Create RentalOrder record for tracking rentals separately from orders
                 RentalOrder rentalOrder = RentalOrder.builder()
-                    .userId(key.getUserId())
+                    .userId(user.getId())
                     .toolId(tool.getId())
                     .startDate(rc.getRentalStart())
                     .endDate(rc.getRentalEnd())
                     .quantity(rc.getQuantity())
                     .totalCost(subtotal)
                     .status(RentalOrder.RentalStatus.ACTIVE)
+                    .createdAt(LocalDateTime.now())
                     .build();
                 
                 // Add to list to save after payment confirmation
@@ -101,22 +140,26 @@ public class CheckoutService {
             }
         }
 
-        // Adjust stock BEFORE payment - will be rolled back if payment fails
-        if (request.getSelectedProducts() != null) {
-            for (CheckoutRequestDTO.Key key : request.getSelectedProducts()) {
-                Product product = productRepository.findById(key.getProductId()).orElseThrow();
-                ProductCart pc = productCartRepository.findById(new ProductCart.ProductCartKey(key.getUserId(), key.getProductId())).orElseThrow();
-                product.setQuantity(product.getQuantity() - pc.getQuantity());
-                productRepository.save(product);
+        // Adjust stock BEFORE payment - put back by PaymentOrchestrator if payment fails.
+        // The checks above are only a fast path; the conditional UPDATE is what guards against overselling.
+        // Each UPDATE keeps its row locked until commit, so rows are taken in product id order: two checkouts
+        // of the same products in a different order would otherwise deadlock.
+        List<ProductCart> byProductId = new ArrayList<>(productCarts);
+        byProductId.sort(Comparator.comparing(pc -> pc.getProduct().getId()));
+        for (ProductCart pc : byProductId) {
+            if (!inventoryMutationService.takeProduct(pc.getProduct().getId(), pc.getQuantity())) {
+                throw new IllegalArgumentException("Insufficient stock for product " + pc.getProduct().getName());
             }
         }
-        if (request.getSelectedRentals() != null) {
-            for (CheckoutRequestDTO.Key key : request.getSelectedRentals()) {
-                RentalCart rc = rentalCartRepository.findById(new RentalCart.RentalCartKey(key.getUserId(), key.getRentalId())).orElseThrow();
-                Tool tool = rc.getTool();
-                tool.setStockQuantity(tool.getStockQuantity() - rc.getQuantity());
-                toolRepository.save(tool);
-            }
+        // Rentals are gated by the per-day bookings against total stock, not by today's stock.
+        // Booking locks the tool row until commit, so tools are booked in tool id order like product rows above.
+        List<RentalCart> byToolId = new ArrayList<>(rentalCarts);
+        byToolId.sort(Comparator.comparing(rc -> rc.getTool().getId()));
+        for (RentalCart rc : byToolId) {
+            toolAvailabilityService.book(rc.getTool().getId(), rc.getRentalStart(), rc.getRentalEnd(), rc.getQuantity());
+        }
+        for (RentalCart rc : byToolId) {
+            inventoryMutationService.refreshTool(rc.getTool().getId());
         }
 
         // Create order with user's address
@@ -136,32 +179,26 @@ public class CheckoutService {
                 .build();
         order = orderRepository.save(order);
 
+        // Pooled ids let Hibernate send all items as one JDBC batch at flush
         for (OrderItem oi : orderItems) {
             oi.setOrder(order);
-            orderItemRepository.save(oi);
         }
-
-        // Process payment directly in the Order entity
-        // PaymentService.PaymentResult result = paymentService.charge(total, request.getPaymentMethod(), request.getPaymentDetails());
-        // if (!result.isSuccess()) {
-        //     throw new IllegalStateException("Payment failed: " + result.getMessage());
-        // }
+        orderItemRepository.saveAll(orderItems);
 
         // Update order with payment information
         order.setPaymentAmount(total);
         order.setPaymentMethod(request.getPaymentMethod());
         
         // For Cash on Delivery, mark as COD (not paid yet)
-        if ("CASH".equals(request.getPaymentMethod())) {
+        if (cashOnDelivery) {
             order.setPaymentStatus("COD");
             order.setStatus(Order.STATUS_CREATED);
         } else {
-            order.setPaymentStatus(Order.PAYMENT_STATUS_SUCCESS);
-            order.setStatus(Order.STATUS_PAID);
-            order.setPaymentDate(LocalDateTime.now());
+            // Charged after commit, so the gateway call doesn't hold this transaction's connection and row locks
+            order.setPaymentStatus(Order.PAYMENT_STATUS_PENDING);
+            order.setStatus(Order.STATUS_PENDING_PAYMENT);
         }
         
-        // order.setTransactionId(result.getTransactionId());
         order.setUpdatedAt(LocalDateTime.now());
         
         // Determine order type
@@ -182,34 +219,34 @@ public class CheckoutService {
         
         orderRepository.save(order);
 
-        // Save all rental records now that payment is confirmed and link them to the order
+        // Save all rental records and link them to the order
         if (!rentalOrders.isEmpty()) {
-            // We're not using a batch save here to ensure each rental order gets its own ID
             for (RentalOrder rentalOrder : rentalOrders) {
                 rentalOrder.setOrderId(order.getId()); // Link to the main order
-                RentalOrder savedRentalOrder = rentalOrderRepository.save(rentalOrder);
-                log.info("Created rental order record: {}", savedRentalOrder);
             }
+            rentalOrderRepository.saveAll(rentalOrders);
+            log.info("Created {} rental order record(s) for order {}", rentalOrders.size(), order.getId());
         }
 
-        // Clear carts after successful payment
-        if (request.getSelectedProducts() != null) {
-            log.info("Clearing {} selected product(s) from cart", request.getSelectedProducts().size());
-            for (CheckoutRequestDTO.Key key : request.getSelectedProducts()) {
-                log.info("Deleting product cart item: userId={}, productId={}", key.getUserId(), key.getProductId());
-                productCartRepository.deleteByIdUserIdAndIdProductId(key.getUserId(), key.getProductId());
-            }
-        } else {
-            log.info("No products to clear from cart");
+        // Daily rollups are updated once this transaction commits
+        analyticsService.recordCheckout(order, orderItems, rentalOrders);
+
+        // Clear carts of the checked out items, one DELETE per cart table
+        if (!productCarts.isEmpty()) {
+            List<Long> productIds = productCarts.stream().map(pc -> pc.getId().getProductId()).toList();
+            int removed = productCartRepository.deleteByUserIdAndProductIds(user.getId(), productIds);
+            reservationService.releaseAfterCommit(user.getId(), ItemType.PRODUCT, productIds);
+            log.info("Cleared {} product(s) from cart of user {}", removed, user.getId());
         }
-        if (request.getSelectedRentals() != null) {
-            log.info("Clearing {} selected rental(s) from cart", request.getSelectedRentals().size());
-            for (CheckoutRequestDTO.Key key : request.getSelectedRentals()) {
-                log.info("Deleting rental cart item: userId={}, toolId={}", key.getUserId(), key.getRentalId());
-                rentalCartRepository.deleteByIdUserIdAndIdToolId(key.getUserId(), key.getRentalId());
-            }
-        } else {
-            log.info("No rentals to clear from cart");
+        if (!rentalCarts.isEmpty()) {
+            List<Long> toolIds = rentalCarts.stream().map(rc -> rc.getId().getToolId()).toList();
+            int removed = rentalCartRepository.deleteByUserIdAndToolIds(user.getId(), toolIds);
+            reservationService.releaseAfterCommit(user.getId(), ItemType.TOOL, toolIds);
+            log.info("Cleared {} rental(s) from cart of user {}", removed, user.getId());
+        }
+
+        if (!cashOnDelivery) {
+            paymentOrchestrator.chargeAfterCommit(order.getId(), total, request.getPaymentMethod(), request.getPaymentDetails());
         }
 
         // Create response DTO with combined items list
@@ -230,9 +267,13 @@ public class CheckoutService {
                 .build());
         }
         
-        // Add rental items
+        // Add rental items (tools were already loaded with the rental cart rows)
+        Map<Long, Tool> toolsById = new HashMap<>();
+        for (RentalCart rc : rentalCarts) {
+            toolsById.put(rc.getTool().getId(), rc.getTool());
+        }
         for (RentalOrder savedRental : rentalOrders) {
-            Tool tool = toolRepository.findById(savedRental.getToolId()).orElse(null);
+            Tool tool = toolsById.get(savedRental.getToolId());
             items.add(OrderResponseDTO.Item.builder()
                 .type("RENTAL")
                 .productId(null)
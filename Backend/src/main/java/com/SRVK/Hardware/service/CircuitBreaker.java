@@ -0,0 +1,140 @@
+package com.SRVK.Hardware.service;
+
+import java.util.Arrays;
+
+/**
+ * Count-based circuit breaker for calls to an unreliable dependency.
+ * Closed: calls pass, and the outcomes of the last windowSize calls are kept in a ring. Once at
+ * least minimumCalls are recorded and the failure rate reaches the threshold, it opens.
+ * Open: calls are refused until openMillis have passed.
+ * Half open: one trial call passes; its success closes the breaker, its failure opens it again.
+ * Methods are synchronized; they are cheap next to the calls they guard.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failed;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long timesOpened;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @return true if the call may go ahead; it must then report onSuccess or onFailure
+     */
+    public synchronized boolean tryAcquire(long now) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (now - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        // Half open: only one trial call at a time
+        if (trialInFlight) {
+            return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            state = State.CLOSED;
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(long now) {
+        if (state == State.HALF_OPEN) {
+            open(now);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && (double) failed / recorded >= failureRateThreshold) {
+                open(now);
+            }
+        }
+    }
+
+    /**
+     * An acquired call was not made after all (e.g. rejected by a bulkhead)
+     */
+    public synchronized void onCancelled() {
+        trialInFlight = false;
+    }
+
+    /**
+     * @return true if a call made now would be let through: closed, or due for a trial call and
+     * none in flight. Does not move to half open.
+     */
+    public synchronized boolean isAccepting(long now) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return now - openedAt >= openMillis;
+            default:
+                return !trialInFlight;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0.0 : (double) failed / recorded;
+    }
+
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            if (failures[next]) failed--;
+        } else {
+            recorded++;
+        }
+        failures[next] = failure;
+        if (failure) failed++;
+        next = (next + 1) % failures.length;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+        trialInFlight = false;
+        timesOpened++;
+        reset();
+    }
+
+    private void reset() {
+        next = 0;
+        recorded = 0;
+        failed = 0;
+        Arrays.fill(failures, false);
+    }
+}
@@ -0,0 +1,357 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.dto.ExportRequest;
+import com.SRVK.Hardware.entity.ExportWatermark;
+import com.SRVK.Hardware.repository.ExportWatermarkRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk export of orders, order items and rentals as CSV or NDJSON.
+ * Rows go straight from a forward-only streaming result set to the output stream one at a time,
+ * so heap usage does not depend on the number of rows. Incremental exports continue after the
+ * (created_at, id) of the last row of the previous one and stop short of rows created within the
+ * settle time: ids are allocated before commit, so the highest id is not a safe position, but a
+ * row older than the settle time is assumed committed and can't show up behind the watermark.
+ */
+@Service
+@Slf4j
+public class ExportService {
+
+    // Fetch size used where the driver honours it with a cursor; MySQL instead streams row by row (see constructor)
+    private static final int FETCH_SIZE = 1000;
+
+    public enum Dataset {
+        ORDERS("orders",
+                "SELECT o.id, o.user_id, o.created_at, o.status, o.total_amount, o.payment_method, " +
+                "o.payment_status, o.transaction_id, o.delivery_status, o.order_type FROM orders o",
+                "o.id", "o.created_at", "o.created_at"),
+        ORDER_ITEMS("order-items",
+                "SELECT oi.id, oi.order_id, oi.product_id, p.name AS product_name, oi.quantity, oi.unit_price, " +
+                "oi.subtotal, o.created_at FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                "LEFT JOIN product p ON p.id = oi.product_id",
+                "oi.id", "o.created_at", "o.created_at"),
+        RENTALS("rentals",
+                "SELECT r.id, r.order_id, r.user_id, r.tool_id, t.name AS tool_name, r.start_date, r.end_date, " +
+                "r.quantity, r.total_cost, r.status, r.created_at FROM rental_orders r LEFT JOIN tools t ON t.id = r.tool_id",
+                "r.id", "r.start_date", "r.created_at");
+
+        private final String key;
+        private final String select;
+        private final String idColumn;
+        private final String dateColumn;     // from / to filter
+        private final String createdColumn;  // incremental position, selected as created_at
+
+        Dataset(String key, String select, String idColumn, String dateColumn, String createdColumn) {
+            this.key = key;
+            this.select = select;
+            this.idColumn = idColumn;
+            this.dateColumn = dateColumn;
+            this.createdColumn = createdColumn;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public static Dataset fromKey(String key) {
+            for (Dataset d : values()) {
+                if (d.key.equalsIgnoreCase(key)) return d;
+            }
+            throw new IllegalArgumentException("Unknown export dataset: " + key + " (use orders, order-items or rentals)");
+        }
+    }
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ExportWatermarkRepository watermarkRepository;
+    private final ObjectMapper objectMapper;
+    private final Path exportDir;
+    private final Duration incrementalSettle;
+
+    public ExportService(DataSource dataSource, ExportWatermarkRepository watermarkRepository,
+                         ObjectMapper objectMapper, @Value("${app.exports.dir:./data/exports}") String exportDir,
+                         @Value("${app.exports.incremental-settle:2m}") Duration incrementalSettle) {
+        // Own template so the streaming fetch size only applies to export statements. On MySQL,
+        // Integer.MIN_VALUE makes Connector/J stream rows one at a time on an ordinary connection,
+        // without switching the shared pool to cursor fetch for every query.
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(isMySql(dataSource) ? Integer.MIN_VALUE : FETCH_SIZE);
+        this.watermarkRepository = watermarkRepository;
+        this.objectMapper = objectMapper;
+        this.exportDir = Path.of(exportDir);
+        this.incrementalSettle = incrementalSettle;
+    }
+
+    /**
+     * File name (with extension) for an export of the dataset in the requested format
+     */
+    public String fileName(Dataset dataset, ExportRequest request) {
+        String ext = isNdjson(request) ? ".ndjson" : ".csv";
+        return dataset.key() + "-" + LocalDateTime.now().withNano(0).toString().replace(":", "") + ext
+                + (request.isGzip() ? ".gz" : "");
+    }
+
+    /**
+     * Write the export to the stream. The stream is not closed.
+     * @return number of rows written
+     */
+    public long export(Dataset dataset, ExportRequest request, OutputStream out) throws IOException {
+        validate(request);
+        boolean gzip = request.isGzip();
+        OutputStream target = gzip ? new GZIPOutputStream(new NonClosingOutputStream(out), 64 * 1024)
+                                   : new NonClosingOutputStream(out);
+        Progress progress;
+        try (RowWriter writer = isNdjson(request) ? new NdjsonWriter(objectMapper, target) : new CsvWriter(target)) {
+            progress = request.isIncremental()
+                    ? stream(dataset, request, watermarkRepository.findById(dataset.key()).orElse(null),
+                             LocalDateTime.now().minus(incrementalSettle), writer)
+                    : stream(dataset, request, null, null, writer);
+        }
+
+        // Only a fully written incremental export moves the watermark forward
+        if (request.isIncremental() && progress.rows() > 0) {
+            watermarkRepository.save(ExportWatermark.builder()
+                    .dataset(dataset.key())
+                    .lastCreatedAt(progress.lastCreatedAt())
+                    .lastId(progress.lastId())
+                    .exportedAt(LocalDateTime.now())
+                    .build());
+        }
+        log.info("Exported {} {} row(s){}", progress.rows(), dataset.key(), request.isIncremental() && progress.rows() > 0
+                ? " up to " + progress.lastCreatedAt() + " / id " + progress.lastId() : "");
+        return progress.rows();
+    }
+
+    /**
+     * Write the export to a file in the export directory. The file only appears under its final name when complete.
+     * @return path of the written file
+     */
+    public Path exportToFile(Dataset dataset, ExportRequest request, String fileName) throws IOException {
+        Files.createDirectories(exportDir);
+        Path target = exportDir.resolve(fileName);
+        Path tmp = Files.createTempFile(exportDir, dataset.key(), ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+            export(dataset, request, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        return Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param since position to continue after, or null to start at the beginning
+     * @param until for incremental exports, only rows created before this; null for full exports
+     */
+    private Progress stream(Dataset dataset, ExportRequest request, ExportWatermark since, LocalDateTime until,
+                            RowWriter writer) {
+        StringBuilder sql = new StringBuilder(dataset.select);
+        List<Object> args = new ArrayList<>();
+        List<String> where = new ArrayList<>();
+        if (since != null) {
+            // Rows strictly after (lastCreatedAt, lastId)
+            where.add("(" + dataset.createdColumn + " > ? OR (" + dataset.createdColumn + " = ? AND "
+                    + dataset.idColumn + " > ?))");
+            args.add(since.getLastCreatedAt());
+            args.add(since.getLastCreatedAt());
+            args.add(since.getLastId());
+        }
+        if (until != null) {
+            where.add(dataset.createdColumn + " < ?");
+            args.add(until);
+        }
+        if (request.getFrom() != null) {
+            where.add(dataset.dateColumn + " >= ?");
+            args.add(request.getFrom().atStartOfDay());
+        }
+        if (request.getTo() != null) {
+            where.add(dataset.dateColumn + " < ?");
+            args.add(request.getTo().plusDays(1).atStartOfDay());
+        }
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        // Incremental exports walk in watermark order so the last row written is the new position
+        sql.append(" ORDER BY ").append(until != null ? dataset.createdColumn + ", " + dataset.idColumn : dataset.idColumn);
+
+        return streamingJdbcTemplate.query(sql.toString(), (ResultSet rs) -> {
+            long rows = 0;
+            LocalDateTime lastCreatedAt = null;
+            long lastId = 0;
+            try {
+                writer.header(rs.getMetaData());
+                int createdAt = rs.findColumn("created_at");
+                while (rs.next()) {
+                    writer.row(rs);
+                    rows++;
+                    lastCreatedAt = rs.getTimestamp(createdAt).toLocalDateTime();
+                    lastId = rs.getLong(1);
+                }
+            } catch (IOException e) {
+                // Client went away or disk full: abort the query instead of draining the cursor
+                throw new UncheckedIOException(e);
+            }
+            return new Progress(rows, lastCreatedAt, lastId);
+        }, args.toArray());
+    }
+
+    /**
+     * Reject unsupported formats, inverted date ranges and date ranges on incremental exports
+     * before any output is written
+     */
+    public void validate(ExportRequest request) {
+        String format = request.getFormat();
+        if (format != null && !format.equalsIgnoreCase("csv") && !format.equalsIgnoreCase("ndjson")) {
+            throw new IllegalArgumentException("Unsupported format: " + format + " (use csv or ndjson)");
+        }
+        if (request.getFrom() != null && request.getTo() != null && request.getFrom().isAfter(request.getTo())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        // A filtered incremental export would move the watermark past the rows it filtered out
+        if (request.isIncremental() && (request.getFrom() != null || request.getTo() != null)) {
+            throw new IllegalArgumentException("from and to cannot be combined with incremental");
+        }
+    }
+
+    private static boolean isMySql(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot determine the database type", e);
+        }
+    }
+
+    private record Progress(long rows, LocalDateTime lastCreatedAt, long lastId) {
+    }
+
+    private static boolean isNdjson(ExportRequest request) {
+        return "ndjson".equalsIgnoreCase(request.getFormat());
+    }
+
+    // JDBC date types as java.time, so both formats print ISO-8601
+    private static Object value(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof java.sql.Timestamp ts) return ts.toLocalDateTime();
+        if (value instanceof java.sql.Date d) return d.toLocalDate();
+        return value;
+    }
+
+    private interface RowWriter extends Closeable {
+        void header(ResultSetMetaData meta) throws SQLException, IOException;
+
+        void row(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+        private int columns;
+
+        CsvWriter(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void header(ResultSetMetaData meta) throws SQLException, IOException {
+            columns = meta.getColumnCount();
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) out.write(',');
+                out.write(meta.getColumnLabel(i));
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) out.write(',');
+                Object value = value(rs, i);
+                if (value != null) out.write(escape(value.toString()));
+            }
+            out.write("\r\n");
+        }
+
+        private static String escape(String s) {
+            if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+                return s;
+            }
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator json;
+        private String[] names;
+
+        NdjsonWriter(ObjectMapper mapper, OutputStream out) throws IOException {
+            this.json = mapper.getFactory().createGenerator(out);
+            // One object per line with no separator between root values other than the newline
+            this.json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void header(ResultSetMetaData meta) throws SQLException {
+            names = new String[meta.getColumnCount()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = meta.getColumnLabel(i + 1);
+            }
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                json.writeFieldName(names[i]);
+                json.writeObject(value(rs, i + 1));
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    // Lets the writers close (and finish gzip) without closing the caller's stream
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.SRVK.Hardware.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image store in the images table, so images live as long as the database
+ * rather than the container filesystem.
+ * Images are keyed by the SHA-256 of their bytes, so identical uploads share one row
+ * and a stored image never changes once written (safe to cache forever by hash).
+ * Recently served images are kept in memory, up to app.images.cache-max-bytes.
+ */
+@Service
+@Slf4j
+public class ImageStorageService {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern VARIANT_PATTERN = Pattern.compile("[a-z]+");
+
+    // Variant key of the original image
+    private static final String ORIGINAL = "";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxBytes;
+    // Keyed by hash + "/" + variant
+    private final Cache<String, byte[]> cache;
+
+    public ImageStorageService(JdbcTemplate jdbcTemplate,
+                               @Value("${app.images.max-bytes:5242880}") long maxBytes,
+                               @Value("${app.images.cache-max-bytes:67108864}") long cacheMaxBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxBytes = maxBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .<String, byte[]>weigher((key, bytes) -> bytes.length)
+                .build();
+    }
+
+    /**
+     * Store image bytes and return their content hash
+     * @param bytes raw image bytes
+     * @return SHA-256 hex of the bytes, or null when there is nothing to store
+     */
+    public String store(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException("Image size must be less than " + (maxBytes / 1024 / 1024) + "MB");
+        }
+        return storeUnchecked(bytes);
+    }
+
+    /**
+     * Store image bytes that are already part of the catalog, without the upload size limit
+     * (e.g. images moved out of the old BLOB columns, which never had one)
+     * @return SHA-256 hex of the bytes, or null when there is nothing to store
+     */
+    public String storeExisting(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return storeUnchecked(bytes);
+    }
+
+    private String storeUnchecked(byte[] bytes) {
+        String hash = sha256(bytes);
+        write(hash, ORIGINAL, bytes);
+        log.info("Stored image {} ({} bytes)", hash, bytes.length);
+        return hash;
+    }
+
+    /**
+     * Store a derived (resized) version of an already stored image
+     * @param hash hash of the original image
+     * @param variant variant name, e.g. "thumb"
+     * @param bytes encoded variant bytes
+     */
+    public void storeVariant(String hash, String variant, byte[] bytes) {
+        write(hash, variant, bytes);
+    }
+
+    /**
+     * Look up a stored image by hash
+     * @param hash SHA-256 hex returned by {@link #store(byte[])}
+     * @return the image as a resource, empty if the hash is malformed or unknown
+     */
+    public Optional<Resource> load(String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        return read(hash, ORIGINAL);
+    }
+
+    /**
+     * Look up a derived version of a stored image
+     * @param hash hash of the original image
+     * @param variant variant name
+     * @return the variant, empty if it has not been generated (yet)
+     */
+    public Optional<Resource> loadVariant(String hash, String variant) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches() || !VARIANT_PATTERN.matcher(variant).matches()) {
+            return Optional.empty();
+        }
+        return read(hash, variant);
+    }
+
+    /**
+     * Detect the media type of a stored image from its leading bytes
+     * @param resource image returned by {@link #load(String)}
+     * @return image media type, defaulting to JPEG (what the admin upload pipeline produces)
+     */
+    public MediaType contentType(Resource resource) {
+        byte[] head = new byte[12];
+        int read;
+        try (InputStream in = resource.getInputStream()) {
+            read = in.readNBytes(head, 0, head.length);
+        } catch (IOException e) {
+            return MediaType.IMAGE_JPEG;
+        }
+        if (read >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return MediaType.IMAGE_PNG;
+        }
+        if (read >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F') {
+            return MediaType.IMAGE_GIF;
+        }
+        if (read >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return MediaType.parseMediaType("image/webp");
+        }
+        return MediaType.IMAGE_JPEG;
+    }
+
+    private Optional<Resource> read(String hash, String variant) {
+        String key = hash + "/" + variant;
+        byte[] bytes = cache.getIfPresent(key);
+        if (bytes == null) {
+            List<byte[]> rows = jdbcTemplate.queryForList(
+                    "SELECT content FROM images WHERE hash = ? AND variant = ?", byte[].class, hash, variant);
+            if (rows.isEmpty()) {
+                return Optional.empty(); // Not cached: a missing variant may be generated any moment
+            }
+            bytes = rows.get(0);
+            cache.put(key, bytes);
+        }
+        return Optional.of(new ByteArrayResource(bytes));
+    }
+
+    // Stored images never change, so an existing row is left as is
+    private void write(String hash, String variant, byte[] bytes) {
+        jdbcTemplate.update("INSERT INTO images (hash, variant, content) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE hash = hash", hash, variant, bytes);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
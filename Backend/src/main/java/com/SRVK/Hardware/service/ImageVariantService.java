@@ -0,0 +1,226 @@
+package com.SRVK.Hardware.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Produces pre-sized, recompressed JPEG versions of uploaded images so listing pages
+ * don't download full-resolution originals for small thumbnails.
+ * Images are decoded in full, so their pixel dimensions are read from the header first and
+ * images over app.images.max-pixels are refused: a small, highly compressed file can otherwise
+ * decode to a bitmap that fills the heap.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    /**
+     * Available sizes, by longest edge in pixels
+     */
+    public enum Variant {
+        THUMB(160), CARD(480), DETAIL(1200);
+
+        private final int maxEdge;
+
+        Variant(int maxEdge) {
+            this.maxEdge = maxEdge;
+        }
+
+        public String key() {
+            return name().toLowerCase();
+        }
+
+        public static Optional<Variant> fromKey(String key) {
+            for (Variant v : values()) {
+                if (v.key().equals(key)) return Optional.of(v);
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final ImageStorageService imageStorageService;
+    private final ThreadPoolTaskExecutor executor;
+    private final long maxPixels;
+
+    public ImageVariantService(ImageStorageService imageStorageService,
+                               @Qualifier("imageProcessingExecutor") ThreadPoolTaskExecutor executor,
+                               @Value("${app.images.max-pixels:40000000}") long maxPixels) {
+        this.imageStorageService = imageStorageService;
+        this.executor = executor;
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * Build URL for a variant of a stored image
+     * @param hash original image hash, may be null
+     * @param variant requested size
+     * @return the URL, or null when there is no image
+     */
+    public static String url(String hash, Variant variant) {
+        return hash != null ? "/api/images/" + hash + "/" + variant.key() : null;
+    }
+
+    /**
+     * Refuse an upload whose pixel dimensions exceed the limit; only the image header is read.
+     * Bytes that are not a readable image pass, as they get no variants anyway.
+     * @throws IllegalArgumentException if the image is too large
+     */
+    public void checkDimensions(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return;
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            ImageReader reader = readerFor(in);
+            if (reader != null) {
+                try {
+                    checkDimensions(reader);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException e) {
+            // Unreadable header: left to generate(), which skips it
+        }
+    }
+
+    /**
+     * Queue generation of all variants for a stored image. Returns immediately.
+     * @param hash hash returned by ImageStorageService.store, ignored when null
+     */
+    public void generateAsync(String hash) {
+        if (hash == null) {
+            return;
+        }
+        executor.execute(() -> generate(hash));
+    }
+
+    private void generate(String hash) {
+        Resource original = imageStorageService.load(hash).orElse(null);
+        if (original == null) {
+            log.warn("Cannot generate variants, image {} not found", hash);
+            return;
+        }
+
+        BufferedImage source;
+        try (InputStream in = original.getInputStream()) {
+            source = read(in);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to read image {}: {}", hash, e.getMessage());
+            return;
+        }
+        if (source == null) {
+            log.warn("Unsupported image format for {}", hash);
+            return;
+        }
+
+        for (Variant variant : Variant.values()) {
+            if (imageStorageService.loadVariant(hash, variant.key()).isPresent()) {
+                continue; // Already generated for this content
+            }
+            try {
+                imageStorageService.storeVariant(hash, variant.key(), encodeJpeg(resize(source, variant.maxEdge)));
+            } catch (IOException e) {
+                log.warn("Failed to generate {} variant for {}: {}", variant.key(), hash, e.getMessage());
+            }
+        }
+        log.info("Generated image variants for {}", hash);
+    }
+
+    // Decode an image only once its header shows it is within the pixel limit; null if the format is unknown
+    private BufferedImage read(InputStream original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original)) {
+            ImageReader reader = readerFor(in);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                checkDimensions(reader);
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream in) {
+        if (in == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(in, true, true);
+        return reader;
+    }
+
+    private void checkDimensions(ImageReader reader) throws IOException {
+        long width = reader.getWidth(0);
+        long height = reader.getHeight(0);
+        if (width * height > maxPixels) {
+            throw new IllegalArgumentException("Image dimensions " + width + "x" + height + " exceed the limit of " +
+                    maxPixels + " pixels");
+        }
+    }
+
+    // Scale down to fit maxEdge (never up) onto an opaque RGB canvas, since JPEG has no alpha
+    private static BufferedImage resize(BufferedImage source, int maxEdge) {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
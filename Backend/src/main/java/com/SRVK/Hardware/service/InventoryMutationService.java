@@ -0,0 +1,84 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.repository.ProductRepository;
+import com.SRVK.Hardware.repository.ToolRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * The only place that changes Product.quantity and Tool.stockQuantity / totalStock / available
+ * (admin edits of a product's quantity aside).
+ * Tool stock is derived from the tool's rentals (see refreshTool).
+ * Each change is one conditional UPDATE of the item's row, so concurrent changes to the same
+ * SKU are serialised by that row lock and can't lose updates, while other SKUs proceed in parallel.
+ * Callers must not modify stock fields on loaded entities; those copies are stale after a change.
+ * Each change also drops the catalog cache's stock snapshot of the item once it commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryMutationService {
+
+    private final ProductRepository productRepository;
+    private final ToolRepository toolRepository;
+    private final CatalogCacheService catalogCacheService;
+
+    /**
+     * @return false if the product is missing or has fewer than qty units
+     */
+    @Transactional
+    public boolean takeProduct(Long productId, int qty) {
+        catalogCacheService.invalidateProductStockAfterCommit(productId);
+        return productRepository.decrementStock(productId, qty) == 1;
+    }
+
+    /**
+     * Put products back into stock (e.g. the order's payment failed)
+     */
+    @Transactional
+    public void returnProduct(Long productId, int qty) {
+        catalogCacheService.invalidateProductStockAfterCommit(productId);
+        if (productRepository.incrementStock(productId, qty) == 0) {
+            log.warn("Product {} no longer exists, {} unit(s) not returned to stock", productId, qty);
+        }
+    }
+
+    /**
+     * Recompute the tool's stockQuantity / available from its rentals: totalStock less the units
+     * booked today and the active rentals past their end date. Rentals are checked against the
+     * per-day bookings (see ToolAvailabilityService.book), so this only reflects them; call it after
+     * the rental and booking changes of the transaction.
+     */
+    @Transactional
+    public void refreshTool(Long toolId) {
+        catalogCacheService.invalidateToolStockAfterCommit(toolId);
+        if (toolRepository.refreshStock(toolId, LocalDate.now()) == 0) {
+            throw new IllegalArgumentException("Tool not found");
+        }
+    }
+
+    /**
+     * refreshTool for every tool, as rentals start and end when the day changes.
+     * The catalog cache's stock snapshots catch up within their short TTL.
+     * @return number of tools whose stock changed
+     */
+    @Transactional
+    public int refreshAllTools() {
+        return toolRepository.refreshAllStock(LocalDate.now());
+    }
+
+    /**
+     * Set the number of tools owned; the units currently rented out stay rented
+     */
+    @Transactional
+    public void resizeTool(Long toolId, int totalStock) {
+        catalogCacheService.invalidateToolStockAfterCommit(toolId);
+        if (toolRepository.resizeStock(toolId, totalStock) == 0) {
+            throw new IllegalArgumentException("Cannot reduce total stock below currently rented quantity");
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.entity.InventoryHold;
+import com.SRVK.Hardware.entity.InventoryHold.ItemType;
+import com.SRVK.Hardware.repository.InventoryHoldRepository;
+import com.SRVK.Hardware.repository.ProductRepository;
+import com.SRVK.Hardware.repository.ToolRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Short-lived holds on Product.quantity / Tool.stockQuantity for cart lines.
+ * Holds are placed when an item enters the cart and renewed when checkout starts, so other
+ * shoppers see the held units as gone and checkouts fail early instead of at payment.
+ * Live holds and per-item held totals are kept in memory: available-to-sell is stock minus
+ * one counter read, and changes to an item are serialised by one of a fixed set of lock stripes
+ * instead of database locks. Tool holds carry their rental days and only count against
+ * rentals on overlapping days.
+ * Every change is written through to inventory_holds, which is reloaded on startup. The row is
+ * written in the caller's transaction after the stripe lock is released, so a row lock held by
+ * another transaction never blocks the stripe; the in-memory change is undone if the write fails
+ * or the transaction rolls back. Expiry is driven by a timer wheel ticking once a second.
+ * Holds are advisory: the conditional stock UPDATE in checkout still prevents overselling.
+ */
+@Service
+@Slf4j
+public class InventoryReservationService {
+
+    private static final int STRIPES = 64;
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 512;
+
+    public record ItemKey(ItemType type, long itemId) {
+    }
+
+    public record HoldKey(long userId, ItemType type, long itemId) {
+        ItemKey item() {
+            return new ItemKey(type, itemId);
+        }
+    }
+
+    // start/end are the inclusive rental days of a tool hold, null for products
+    private record Hold(int quantity, long expiresAtMillis, LocalDate start, LocalDate end) {
+        boolean overlaps(LocalDate from, LocalDate to) {
+            return !start.isAfter(to) && !end.isBefore(from);
+        }
+    }
+
+    private final InventoryHoldRepository holdRepository;
+    private final ProductRepository productRepository;
+    private final ToolRepository toolRepository;
+    private final long ttlMillis;
+
+    private final Map<HoldKey, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<ItemKey, AtomicInteger> held = new ConcurrentHashMap<>();
+    // Lines holding each tool, to net only the holds on overlapping days
+    private final Map<ItemKey, Set<HoldKey>> toolLines = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final TimerWheel<HoldKey> wheel = new TimerWheel<>(TICK_MILLIS, WHEEL_SLOTS, System.currentTimeMillis());
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "inventory-holds");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public InventoryReservationService(InventoryHoldRepository holdRepository, ProductRepository productRepository,
+                                       ToolRepository toolRepository,
+                                       @Value("${app.reservations.ttl:15m}") Duration ttl) {
+        this.holdRepository = holdRepository;
+        this.productRepository = productRepository;
+        this.toolRepository = toolRepository;
+        this.ttlMillis = ttl.toMillis();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        LocalDateTime now = LocalDateTime.now();
+        int dropped = holdRepository.deleteExpired(now);
+        List<InventoryHold> live = holdRepository.findByExpiresAtAfter(now);
+        for (InventoryHold h : live) {
+            HoldKey key = new HoldKey(h.getId().getUserId(), h.getId().getItemType(), h.getId().getItemId());
+            long expires = toMillis(h.getExpiresAt());
+            Hold hold = new Hold(h.getQuantity(), expires, h.getStartDate(), h.getEndDate());
+            holds.put(key, hold);
+            index(key, hold);
+            counter(key.item()).addAndGet(h.getQuantity());
+            wheel.schedule(key, expires);
+        }
+        log.info("Restored {} inventory hold(s), dropped {} expired", live.size(), dropped);
+        ticker.scheduleWithFixedDelay(this::expire, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Hold quantity units of a product for a user's cart line, replacing the line's previous hold
+     * and restarting its time to live. Only other users' holds count against the stock.
+     * @param stock current stock of the product
+     * @return units still available to other shoppers
+     */
+    public int reserve(Long userId, ItemType type, Long itemId, int quantity, int stock) {
+        return reserve(new HoldKey(userId, type, itemId), quantity, stock, null, null);
+    }
+
+    /**
+     * Hold quantity units of a tool for a user's rental cart line over the inclusive days start..end.
+     * Only other users' holds on any of those days count against the free units.
+     * @param freeUnits units of the tool not booked on any day of the range
+     * @return units still available to other shoppers on the busiest day of the range
+     */
+    public int reserveRental(Long userId, Long toolId, int quantity, int freeUnits, LocalDate start, LocalDate end) {
+        return reserve(new HoldKey(userId, ItemType.TOOL, toolId), quantity, freeUnits, start, end);
+    }
+
+    private int reserve(HoldKey key, int quantity, int stock, LocalDate start, LocalDate end) {
+        long expires = System.currentTimeMillis() + ttlMillis;
+        Hold hold = new Hold(quantity, expires, start, end);
+        Hold current;
+        int available;
+        ReentrantLock lock = stripe(key.item());
+        lock.lock();
+        try {
+            current = holds.get(key);
+            available = stock - heldByOthers(key, current, start, end);
+            if (quantity > available) {
+                throw new IllegalArgumentException("Insufficient stock. Available: " + Math.max(available, 0) +
+                        ", Requested: " + quantity);
+            }
+            replace(key, current, hold);
+            wheel.schedule(key, expires);
+        } finally {
+            lock.unlock();
+        }
+        writeThrough(key, hold, current, () -> holdRepository.upsert(key.userId(), key.type().name(), key.itemId(),
+                quantity, toDateTime(expires), start, end));
+        return available - quantity;
+    }
+
+    /**
+     * Drop the hold of one cart line
+     */
+    public void release(Long userId, ItemType type, Long itemId) {
+        HoldKey key = new HoldKey(userId, type, itemId);
+        Hold current;
+        ReentrantLock lock = stripe(key.item());
+        lock.lock();
+        try {
+            current = holds.get(key);
+            if (current == null) {
+                return;
+            }
+            replace(key, current, null);
+        } finally {
+            lock.unlock();
+        }
+        writeThrough(key, null, current, () -> holdRepository.deleteHold(userId, type, itemId));
+    }
+
+    public void releaseAll(Long userId, ItemType type, Collection<Long> itemIds) {
+        for (Long itemId : itemIds) {
+            release(userId, type, itemId);
+        }
+    }
+
+    /**
+     * Drop every hold of a user (cart cleared)
+     */
+    public void releaseUser(Long userId) {
+        for (HoldKey key : new ArrayList<>(holds.keySet())) {
+            if (key.userId() == userId) {
+                release(userId, key.type(), key.itemId());
+            }
+        }
+    }
+
+    /**
+     * Drop holds that a checkout turned into real stock decrements. The rows are deleted in the
+     * checkout transaction; the in-memory holds only go once it commits, so a rolled-back
+     * checkout keeps them until they expire.
+     */
+    public void releaseAfterCommit(Long userId, ItemType type, Collection<Long> itemIds) {
+        Map<HoldKey, Hold> released = new LinkedHashMap<>();
+        for (Long itemId : itemIds) {
+            holdRepository.deleteHold(userId, type, itemId);
+            HoldKey key = new HoldKey(userId, type, itemId);
+            Hold current = holds.get(key);
+            if (current != null) {
+                released.put(key, current);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    released.forEach((key, hold) -> replaceLocked(key, hold, null));
+                }
+            });
+        } else {
+            released.forEach((key, hold) -> replaceLocked(key, hold, null));
+        }
+    }
+
+    /**
+     * Units currently held across all carts
+     */
+    public int heldQuantity(ItemType type, Long itemId) {
+        AtomicInteger total = held.get(new ItemKey(type, itemId));
+        return total != null ? total.get() : 0;
+    }
+
+    /**
+     * Stock, held units and available-to-sell of an item; one primary key read plus a counter lookup
+     */
+    public Map<String, Object> availability(ItemType type, Long itemId) {
+        int stock = (type == ItemType.PRODUCT
+                ? productRepository.findQuantityById(itemId)
+                : toolRepository.findStockLevelById(itemId).map(ToolRepository.StockLevel::getStockQuantity))
+                .orElseThrow(() -> new IllegalArgumentException(type == ItemType.PRODUCT ? "Product not found" : "Tool not found"));
+        // Tool stock counts the units rented out today, so only holds covering today apply
+        LocalDate today = LocalDate.now();
+        int heldUnits = type == ItemType.PRODUCT ? heldQuantity(type, itemId) : heldOn(new ItemKey(type, itemId), null, today, today);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", type);
+        m.put("id", itemId);
+        m.put("stock", stock);
+        m.put("held", heldUnits);
+        m.put("available", Math.max(stock - heldUnits, 0));
+        return m;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("holds", holds.size());
+        m.put("items", held.size());
+        m.put("timers", wheel.size());
+        m.put("ttlSeconds", ttlMillis / 1000);
+        return m;
+    }
+
+    // Runs on the ticker thread
+    private void expire() {
+        try {
+            long now = System.currentTimeMillis();
+            for (HoldKey key : wheel.advance(now)) {
+                boolean expired = false;
+                ReentrantLock lock = stripe(key.item());
+                lock.lock();
+                try {
+                    Hold h = holds.get(key);
+                    // Renewed holds keep their old timer entries; only the latest deadline counts
+                    if (h != null && h.expiresAtMillis() <= now) {
+                        replace(key, h, null);
+                        expired = true;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (expired) {
+                    holdRepository.deleteIfExpired(key.userId(), key.type(), key.itemId(), toDateTime(now));
+                    log.debug("Inventory hold expired: {}", key);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Keep ticking; the row is removed on the next restart at the latest
+            log.error("Failed to expire inventory holds", e);
+        }
+    }
+
+    /**
+     * Swap the line's hold from expected to next (null = none), unless it changed in the meantime.
+     * Caller holds the stripe lock.
+     */
+    private void replace(HoldKey key, Hold expected, Hold next) {
+        if (holds.get(key) != expected) {
+            return;
+        }
+        if (next != null) {
+            holds.put(key, next);
+            index(key, next);
+        } else {
+            holds.remove(key);
+            Set<HoldKey> lines = toolLines.get(key.item());
+            if (lines != null) {
+                lines.remove(key);
+            }
+        }
+        int delta = (next != null ? next.quantity() : 0) - (expected != null ? expected.quantity() : 0);
+        counter(key.item()).addAndGet(delta);
+    }
+
+    private void replaceLocked(HoldKey key, Hold expected, Hold next) {
+        ReentrantLock lock = stripe(key.item());
+        lock.lock();
+        try {
+            replace(key, expected, next);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the row for an in-memory change already made, after the stripe lock was released.
+     * The row change rolls back with the caller's transaction; the in-memory hold is put back to
+     * match if the write fails or the transaction rolls back.
+     */
+    private void writeThrough(HoldKey key, Hold applied, Hold previous, Runnable write) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        undo(key, applied, previous);
+                    }
+                }
+            });
+        }
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            undo(key, applied, previous);
+            throw e;
+        }
+    }
+
+    private void undo(HoldKey key, Hold applied, Hold previous) {
+        replaceLocked(key, applied, previous);
+        if (previous != null) {
+            wheel.schedule(key, previous.expiresAtMillis());
+        }
+    }
+
+    /**
+     * Units held by the other lines of the item: for a product all of them, for a tool the most
+     * held on any one day of start..end. Caller holds the stripe lock.
+     */
+    private int heldByOthers(HoldKey key, Hold own, LocalDate start, LocalDate end) {
+        if (start == null) {
+            return counter(key.item()).get() - (own != null ? own.quantity() : 0);
+        }
+        return heldOn(key.item(), key, start, end);
+    }
+
+    // Most units held on any one of the inclusive days from..to by the tool's lines other than except
+    private int heldOn(ItemKey item, HoldKey except, LocalDate from, LocalDate to) {
+        Set<HoldKey> lines = toolLines.get(item);
+        if (lines == null || lines.isEmpty()) {
+            return 0;
+        }
+        int[] perDay = new int[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        for (HoldKey line : lines) {
+            Hold h = holds.get(line);
+            if (line.equals(except) || h == null || h.start() == null || !h.overlaps(from, to)) {
+                continue;
+            }
+            int first = (int) Math.max(ChronoUnit.DAYS.between(from, h.start()), 0);
+            int last = (int) Math.min(ChronoUnit.DAYS.between(from, h.end()), perDay.length - 1);
+            for (int i = first; i <= last; i++) {
+                perDay[i] += h.quantity();
+            }
+        }
+        int peak = 0;
+        for (int units : perDay) {
+            peak = Math.max(peak, units);
+        }
+        return peak;
+    }
+
+    private void index(HoldKey key, Hold hold) {
+        if (hold.start() != null) {
+            toolLines.computeIfAbsent(key.item(), k -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    private AtomicInteger counter(ItemKey item) {
+        return held.computeIfAbsent(item, k -> new AtomicInteger());
+    }
+
+    private ReentrantLock stripe(ItemKey item) {
+        return stripes[Math.floorMod(item.hashCode(), STRIPES)];
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
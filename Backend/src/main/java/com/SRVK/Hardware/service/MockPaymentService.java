@@ -2,20 +2,91 @@ package com.SRVK.Hardware.service;
 
 import com.SRVK.Hardware.dto.PaymentRequestDTO;
 import com.SRVK.Hardware.dto.PaymentResponseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
 
 /**
  * Mock Payment Service that simulates a payment gateway
  * Supports CARD and CASH payment methods
+ * Card payments behave like a remote gateway for load tests (app.payment.simulator.*):
+ * - latency drawn from a FIXED, NORMAL or PERCENTILES (long tail, interpolated between p50/p90/p99/p99.9) distribution
+ * - declines, gateway errors and timeouts (a hang, then an error) at configured rates
+ * - at most max-concurrent calls in flight; calls beyond it are throttled with an error, as a gateway's 429
+ * - a seeded RNG for repeatable runs; with concurrent calls the draws follow arrival order
+ * - keyed charges answered from memory when repeated, like a gateway's idempotency keys (kept for a day,
+ *   but not across restarts); errors and timeouts are not remembered, as nothing was charged
+ * The defaults answer at once and decline 5% of card payments.
  */
 @Service
 @Slf4j
 public class MockPaymentService implements PaymentService {
+
+    public enum LatencyDistribution {
+        FIXED, NORMAL, PERCENTILES
+    }
+
+    private final LatencyDistribution distribution;
+    private final long fixedMillis;
+    private final long meanMillis;
+    private final long stdDevMillis;
+    // Inverse CDF of the PERCENTILES distribution, linear between the points
+    private final double[] quantiles = {0.0, 0.5, 0.9, 0.99, 0.999, 1.0};
+    private final long[] quantileMillis;
+    private final double declineRate;
+    private final double errorRate;
+    private final double timeoutRate;
+    private final long hangMillis;
+    private final Semaphore concurrency;
+    private final Random random;
+    private final Cache<String, PaymentResult> keyedResults = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    public MockPaymentService(@Value("${app.payment.simulator.latency.distribution:FIXED}") LatencyDistribution distribution,
+                              @Value("${app.payment.simulator.latency.fixed:0ms}") Duration fixed,
+                              @Value("${app.payment.simulator.latency.mean:200ms}") Duration mean,
+                              @Value("${app.payment.simulator.latency.std-dev:50ms}") Duration stdDev,
+                              @Value("${app.payment.simulator.latency.p50:150ms}") Duration p50,
+                              @Value("${app.payment.simulator.latency.p90:400ms}") Duration p90,
+                              @Value("${app.payment.simulator.latency.p99:1500ms}") Duration p99,
+                              @Value("${app.payment.simulator.latency.p999:5s}") Duration p999,
+                              @Value("${app.payment.simulator.latency.max:10s}") Duration max,
+                              @Value("${app.payment.simulator.decline-rate:0.05}") double declineRate,
+                              @Value("${app.payment.simulator.error-rate:0}") double errorRate,
+                              @Value("${app.payment.simulator.timeout-rate:0}") double timeoutRate,
+                              @Value("${app.payment.simulator.hang:30s}") Duration hang,
+                              @Value("${app.payment.simulator.max-concurrent:0}") int maxConcurrent,
+                              @Value("${app.payment.simulator.seed:0}") long seed) {
+        if (declineRate < 0 || errorRate < 0 || timeoutRate < 0 || declineRate + errorRate + timeoutRate > 1) {
+            throw new IllegalArgumentException("Simulator decline, error and timeout rates must be >= 0 and add up to at most 1");
+        }
+        this.distribution = distribution;
+        this.fixedMillis = fixed.toMillis();
+        this.meanMillis = mean.toMillis();
+        this.stdDevMillis = stdDev.toMillis();
+        this.quantileMillis = new long[]{p50.toMillis() / 2, p50.toMillis(), p90.toMillis(), p99.toMillis(),
+                p999.toMillis(), Math.max(max.toMillis(), p999.toMillis())};
+        this.declineRate = declineRate;
+        this.errorRate = errorRate;
+        this.timeoutRate = timeoutRate;
+        this.hangMillis = hang.toMillis();
+        this.concurrency = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        this.random = seed != 0 ? new Random(seed) : new Random();
+        log.info("Payment simulator: {} latency, decline {}, error {}, timeout {}, max concurrent {}{}",
+                distribution, declineRate, errorRate, timeoutRate, maxConcurrent > 0 ? maxConcurrent : "unlimited",
+                seed != 0 ? ", seed " + seed : "");
+    }
     
     @Override
     public PaymentResult charge(BigDecimal amount, String method, String details) {
@@ -47,6 +118,18 @@ public class MockPaymentService implements PaymentService {
         }
     }
     
+    @Override
+    public PaymentResult charge(BigDecimal amount, String method, String details, String idempotencyKey) {
+        PaymentResult previous = keyedResults.getIfPresent(idempotencyKey);
+        if (previous != null) {
+            log.info("Payment {} was already processed, returning its result", idempotencyKey);
+            return previous;
+        }
+        PaymentResult result = charge(amount, method, details);
+        keyedResults.put(idempotencyKey, result);
+        return result;
+    }
+
     /**
      * Process card payment with validation
      */
@@ -60,14 +143,67 @@ public class MockPaymentService implements PaymentService {
         // 4. Validate CVV
         // 5. Call actual payment gateway API
         
-        // For mock implementation, simulate success with 95% probability
-        double random = Math.random();
-        if (random < 0.95) {
+        // For mock implementation, simulate the gateway's throttling, latency and outcome
+        if (concurrency != null && !concurrency.tryAcquire()) {
+            log.warn("Card payment throttled by the gateway");
+            throw new IllegalStateException("Payment gateway throttled the request (429)");
+        }
+        try {
+            double outcome;
+            long latency;
+            synchronized (random) {
+                outcome = random.nextDouble();
+                latency = nextLatency();
+            }
+            if (outcome < timeoutRate) {
+                sleep(hangMillis);
+                throw new IllegalStateException("Payment gateway timed out");
+            }
+            sleep(latency);
+            if (outcome < timeoutRate + errorRate) {
+                log.warn("Card payment failed with a gateway error");
+                throw new IllegalStateException("Payment gateway error");
+            }
+            if (outcome < timeoutRate + errorRate + declineRate) {
+                log.warn("Card payment failed due to insufficient funds");
+                return new PaymentResult(false, null, "Card payment failed: Insufficient funds");
+            }
             log.info("Card payment successful. Transaction ID: {}", transactionId);
             return new PaymentResult(true, transactionId, "Card payment processed successfully");
-        } else {
-            log.warn("Card payment failed due to insufficient funds");
-            return new PaymentResult(false, null, "Card payment failed: Insufficient funds");
+        } finally {
+            if (concurrency != null) {
+                concurrency.release();
+            }
+        }
+    }
+
+    // Called with the random's lock held
+    private long nextLatency() {
+        switch (distribution) {
+            case NORMAL:
+                return Math.max(0, Math.round(meanMillis + random.nextGaussian() * stdDevMillis));
+            case PERCENTILES:
+                double u = random.nextDouble();
+                int i = 1;
+                while (i < quantiles.length - 1 && u > quantiles[i]) {
+                    i++;
+                }
+                double f = (u - quantiles[i - 1]) / (quantiles[i] - quantiles[i - 1]);
+                return Math.round(quantileMillis[i - 1] + f * (quantileMillis[i] - quantileMillis[i - 1]));
+            default:
+                return fixedMillis;
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the payment gateway", e);
         }
     }
     
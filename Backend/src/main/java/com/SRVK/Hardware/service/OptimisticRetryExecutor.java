@@ -0,0 +1,137 @@
+package com.SRVK.Hardware.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write of versioned entities (Product, Tool, Order, RentalOrder) in its own
+ * transaction and runs it again when the optimistic lock check fails, i.e. a row changed between
+ * the read and the write. Each retry starts from a cleared persistence context, so the work re-reads
+ * the current rows and applies its change to them. Retries back off exponentially with jitter and
+ * are bounded in number and delay; after the last one the conflict is rethrown.
+ * Calls, attempts, conflicts and given-up calls are counted per operation (see stats()).
+ * Inside an already running transaction the work runs once: only the caller that started the
+ * transaction can retry it.
+ */
+@Service
+@Slf4j
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    private static final class Counters {
+        final LongAdder calls = new LongAdder();
+        final LongAdder attempts = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder exhausted = new LongAdder();
+    }
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager, EntityManager entityManager,
+                                   @Value("${app.retry.optimistic.max-attempts:5}") int maxAttempts,
+                                   @Value("${app.retry.optimistic.initial-backoff:10ms}") Duration initialBackoff,
+                                   @Value("${app.retry.optimistic.max-backoff:200ms}") Duration maxBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    /**
+     * @param operation name the counters are kept under, e.g. "product.update"
+     * @param work reads the entities it changes; runs once per attempt
+     * @throws OptimisticLockingFailureException if every attempt conflicted
+     */
+    public <T> T execute(String operation, Supplier<T> work) {
+        Counters c = counters.computeIfAbsent(operation, k -> new Counters());
+        c.calls.increment();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            c.attempts.increment();
+            try {
+                return work.get();
+            } catch (OptimisticLockingFailureException e) {
+                c.conflicts.increment();
+                throw e;
+            }
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            c.attempts.increment();
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                c.conflicts.increment();
+                // Entities of the failed attempt (e.g. in an open-in-view session) are stale now
+                entityManager.clear();
+                if (attempt >= maxAttempts) {
+                    c.exhausted.increment();
+                    log.warn("{}: gave up after {} conflicting attempts", operation, attempt);
+                    throw e;
+                }
+                log.debug("{}: optimistic lock conflict on attempt {}, retrying", operation, attempt);
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable work) {
+        execute(operation, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Counters per operation; conflictRate is conflicts per attempt
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new TreeMap<>();
+        counters.forEach((operation, c) -> {
+            long attempts = c.attempts.sum();
+            long conflicts = c.conflicts.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("calls", c.calls.sum());
+            m.put("attempts", attempts);
+            m.put("conflicts", conflicts);
+            m.put("exhausted", c.exhausted.sum());
+            m.put("conflictRate", attempts == 0 ? 0.0 : (double) conflicts / attempts);
+            stats.put(operation, m);
+        });
+        return stats;
+    }
+
+    // Exponential, capped, with jitter so colliding writers don't retry in lockstep
+    private void backoff(int attempt, OptimisticLockingFailureException cause) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
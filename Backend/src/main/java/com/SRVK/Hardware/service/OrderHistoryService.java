@@ -0,0 +1,230 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.dto.AdminOrderQuery;
+import com.SRVK.Hardware.dto.CatalogPageDTO;
+import com.SRVK.Hardware.dto.OrderResponseDTO;
+import com.SRVK.Hardware.entity.Order;
+import com.SRVK.Hardware.repository.OrderItemRepository;
+import com.SRVK.Hardware.repository.OrderRepository;
+import com.SRVK.Hardware.repository.RentalOrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read side of order history. Orders are loaded with their user, then all product lines
+ * and all rental lines of those orders are fetched with one IN query each (chunked for
+ * very long histories), so the query count does not grow with the number of orders.
+ * A customer's history also lists rentals booked without an order, from one more query.
+ * The admin listing is keyset-paginated on (createdAt, id), and the stream walks the same
+ * keyset in fixed-size batches so memory stays flat.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderHistoryService {
+
+    // Keeps IN lists well within driver and optimizer limits
+    private static final int ID_CHUNK_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 200;
+    // Orders read and converted per batch by the streaming listing
+    private static final int STREAM_BATCH_SIZE = 200;
+
+    private final EntityManager entityManager;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final RentalOrderRepository rentalOrderRepository;
+
+    /**
+     * The user's orders, followed by their rentals booked without an order (orderId null), one
+     * entry each with only the rental as item
+     */
+    public List<OrderResponseDTO> getOrdersForUser(Long userId) {
+        List<OrderResponseDTO> responses = toResponses(orderRepository.findWithUserByUserId(userId));
+        for (RentalOrderRepository.RentalLine line : rentalOrderRepository.findStandaloneLinesByUserId(userId)) {
+            List<OrderResponseDTO.Item> items = new ArrayList<>();
+            items.add(rentalItem(line));
+            responses.add(OrderResponseDTO.builder()
+                    .userId(userId)
+                    .total(line.getTotalCost())
+                    .items(items)
+                    .orderDate(line.getStartDate().atStartOfDay())
+                    .build());
+        }
+        return responses;
+    }
+
+    public List<OrderResponseDTO> getAllOrders() {
+        return toResponses(orderRepository.findAllWithUserNewestFirst());
+    }
+
+    /**
+     * One page of orders, newest first, matching the filters
+     */
+    public CatalogPageDTO<OrderResponseDTO> findOrders(AdminOrderQuery query) {
+        int size = Math.max(1, Math.min(query.getSize() != null ? query.getSize() : 50, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page exists
+        List<Order> rows = entityManager.createQuery(ordersQuery(query, KeysetCursor.decode(query.getCursor())))
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasMore = rows.size() > size;
+        List<Order> page = hasMore ? rows.subList(0, size) : rows;
+        String next = null;
+        if (hasMore) {
+            Order last = page.get(page.size() - 1);
+            next = new KeysetCursor(last.getCreatedAt().toString(), last.getId()).encode();
+        }
+        return new CatalogPageDTO<>(toResponses(page), next, hasMore);
+    }
+
+    /**
+     * Push every order matching the filters to the sink, newest first, without holding them all in memory.
+     * Reads keyset pages of STREAM_BATCH_SIZE like findOrders, so no result set stays open while
+     * the batch's items are loaded and written.
+     */
+    public void streamOrders(AdminOrderQuery query, Consumer<OrderResponseDTO> sink) {
+        KeysetCursor cursor = null;
+        while (true) {
+            List<Order> batch = entityManager.createQuery(ordersQuery(query, cursor))
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .setMaxResults(STREAM_BATCH_SIZE)
+                    .getResultList();
+            if (batch.isEmpty()) {
+                return;
+            }
+            toResponses(batch).forEach(sink);
+            Order last = batch.get(batch.size() - 1);
+            cursor = new KeysetCursor(last.getCreatedAt().toString(), last.getId());
+            // Drop the written orders from the persistence context
+            entityManager.clear();
+            if (batch.size() < STREAM_BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    public Optional<OrderResponseDTO> getOrder(Long orderId) {
+        return orderRepository.findWithUserById(orderId)
+                .map(order -> toResponses(List.of(order)).get(0));
+    }
+
+    private CriteriaQuery<Order> ordersQuery(AdminOrderQuery query, KeysetCursor cursor) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
+        Root<Order> o = cq.from(Order.class);
+        o.fetch("user");
+
+        Path<LocalDateTime> createdAt = o.get("createdAt");
+        Path<Long> id = o.get("id");
+        List<Predicate> where = new ArrayList<>();
+        if (hasText(query.getStatus())) where.add(cb.equal(o.get("status"), query.getStatus()));
+        if (hasText(query.getDeliveryStatus())) where.add(cb.equal(o.get("deliveryStatus"), query.getDeliveryStatus()));
+        if (hasText(query.getPaymentMethod())) where.add(cb.equal(o.get("paymentMethod"), query.getPaymentMethod()));
+        if (query.getFrom() != null) where.add(cb.greaterThanOrEqualTo(createdAt, query.getFrom().atStartOfDay()));
+        if (query.getTo() != null) where.add(cb.lessThan(createdAt, query.getTo().plusDays(1).atStartOfDay()));
+        if (cursor != null) {
+            LocalDateTime after;
+            try {
+                after = LocalDateTime.parse(cursor.value());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            // Rows strictly after (createdAt, id) in descending order
+            where.add(cb.or(cb.lessThan(createdAt, after),
+                    cb.and(cb.equal(createdAt, after), cb.lessThan(id, cursor.id()))));
+        }
+
+        cq.where(where.toArray(new Predicate[0]));
+        cq.orderBy(cb.desc(createdAt), cb.desc(id));
+        return cq;
+    }
+
+    private static boolean hasText(String s) {
+        return s != null && !s.isBlank();
+    }
+
+    private List<OrderResponseDTO> toResponses(List<Order> orders) {
+        Map<Long, List<OrderResponseDTO.Item>> itemsByOrder = new HashMap<>();
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+
+        for (int from = 0; from < orderIds.size(); from += ID_CHUNK_SIZE) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + ID_CHUNK_SIZE, orderIds.size()));
+
+            for (OrderItemRepository.ItemLine line : orderItemRepository.findLinesByOrderIds(chunk)) {
+                itemsByOrder.computeIfAbsent(line.getOrderId(), id -> new ArrayList<>())
+                        .add(OrderResponseDTO.Item.builder()
+                                .type("PRODUCT")
+                                .productId(line.getProductId())
+                                .name(line.getName())
+                                .quantity(line.getQuantity())
+                                .unitPrice(line.getUnitPrice())
+                                .subtotal(line.getSubtotal())
+                                .build());
+            }
+
+            for (RentalOrderRepository.RentalLine line : rentalOrderRepository.findLinesByOrderIds(chunk)) {
+                itemsByOrder.computeIfAbsent(line.getOrderId(), id -> new ArrayList<>()).add(rentalItem(line));
+            }
+        }
+
+        List<OrderResponseDTO> responses = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            responses.add(toResponse(order, itemsByOrder.getOrDefault(order.getId(), new ArrayList<>())));
+        }
+        return responses;
+    }
+
+    private static OrderResponseDTO.Item rentalItem(RentalOrderRepository.RentalLine line) {
+        return OrderResponseDTO.Item.builder()
+                .type("RENTAL")
+                .rentalId(line.getId())
+                .name(line.getName() != null ? line.getName() : "Unknown Tool")
+                .quantity(line.getQuantity())
+                .unitPrice(line.getDailyRate() != null ? line.getDailyRate() : BigDecimal.ZERO)
+                .subtotal(line.getTotalCost())
+                .rentalStart(line.getStartDate().atStartOfDay())
+                .rentalEnd(line.getEndDate().atStartOfDay())
+                .build();
+    }
+
+    private static OrderResponseDTO toResponse(Order order, List<OrderResponseDTO.Item> items) {
+        // Determine payment status for COD orders
+        String displayPaymentStatus = order.getPaymentStatus();
+        if ("CASH".equals(order.getPaymentMethod()) &&
+            !"PAID".equals(order.getPaymentStatus())) {
+            displayPaymentStatus = "COD";
+        } else if (Order.PAYMENT_STATUS_CHARGING.equals(order.getPaymentStatus())) {
+            displayPaymentStatus = Order.PAYMENT_STATUS_PENDING;
+        }
+
+        return OrderResponseDTO.builder()
+                .orderId(order.getId())
+                .userId(order.getUser().getId())
+                .userName(order.getUser().getUsername())
+                .userEmail(order.getUser().getEmail())
+                .total(order.getTotalAmount())
+                .items(items)
+                .paymentStatus(displayPaymentStatus)
+                .transactionId(order.getTransactionId())
+                .paymentMethod(order.getPaymentMethod())
+                .orderDate(order.getCreatedAt())
+                .deliveryStatus(order.getDeliveryStatus())
+                .deliveryAddress(order.getDeliveryAddress())
+                .deliveredAt(order.getDeliveredAt())
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt hashing and verification of user passwords, run on the bounded passwordHashingExecutor
+ * (see PasswordHashingConfig) instead of the request thread. When the pool's queue is full the
+ * call fails fast with TaskRejectedException rather than queueing more CPU work.
+ * The BCrypt cost is calibrated at startup: the highest cost between the configured bounds whose
+ * hash takes no longer than the target latency on this host. Passwords stored with a lower cost
+ * are re-hashed in the background after a successful login.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private static final String CALIBRATION_INPUT = "calibration-password";
+
+    private final UserRepository userRepository;
+    private final ThreadPoolTaskExecutor executor;
+    private final BCryptPasswordEncoder encoder;
+    private final int strength;
+
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+
+    public PasswordHashingService(UserRepository userRepository,
+                                  @Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor executor,
+                                  @Value("${app.security.bcrypt.target:100ms}") Duration target,
+                                  @Value("${app.security.bcrypt.min-strength:10}") int minStrength,
+                                  @Value("${app.security.bcrypt.max-strength:14}") int maxStrength) {
+        this.userRepository = userRepository;
+        this.executor = executor;
+        this.strength = calibrate(target, minStrength, maxStrength);
+        this.encoder = new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * @throws TaskRejectedException if the hashing pool is saturated
+     */
+    public String encode(String rawPassword) {
+        return run(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * @throws TaskRejectedException if the hashing pool is saturated
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Re-hash a just verified password at the current cost if it was stored with a lower one.
+     * Runs in the background and is skipped when the pool is busy; the next login tries again.
+     * The new hash is only written if the password wasn't changed in the meantime.
+     */
+    public void upgradeIfNeeded(Long userId, String rawPassword, String encodedPassword) {
+        if (!encoder.upgradeEncoding(encodedPassword)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                String upgraded = timed(() -> encoder.encode(rawPassword));
+                if (userRepository.updatePasswordIfUnchanged(userId, encodedPassword, upgraded) == 1) {
+                    rehashed.increment();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.debug("Hashing pool busy, not upgrading password of user {}", userId);
+        }
+    }
+
+    /**
+     * Cost in use, pool size and queue depth, and hashing throughput
+     */
+    public Map<String, Object> stats() {
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        long count = hashes.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("strength", strength);
+        m.put("threads", pool.getMaximumPoolSize());
+        m.put("active", pool.getActiveCount());
+        m.put("queued", pool.getQueue().size());
+        m.put("queueCapacity", executor.getQueueCapacity());
+        m.put("hashes", count);
+        m.put("avgHashMillis", count == 0 ? 0.0 : hashNanos.sum() / 1_000_000.0 / count);
+        m.put("rejected", rejected.sum());
+        m.put("rehashed", rehashed.sum());
+        return m;
+    }
+
+    // Blocks the request thread until the pool has run the task; the CPU work itself is bounded by the pool
+    private <T> T run(Supplier<T> task) {
+        try {
+            return executor.submit(() -> timed(task)).get();
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> T timed(Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            hashes.increment();
+            hashNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // Each cost step doubles the work, so one measurement at the lowest cost predicts the others
+    private static int calibrate(Duration target, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(CALIBRATION_INPUT); // Warm-up
+        long start = System.nanoTime();
+        probe.encode(CALIBRATION_INPUT);
+        long nanos = System.nanoTime() - start;
+
+        int strength = minStrength;
+        while (strength < maxStrength && nanos * 2 <= target.toNanos()) {
+            strength++;
+            nanos *= 2;
+        }
+        log.info("BCrypt cost {} (~{} ms per hash, target {} ms)", strength, nanos / 1_000_000, target.toMillis());
+        return strength;
+    }
+}
@@ -0,0 +1,400 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.entity.Order;
+import com.SRVK.Hardware.entity.OrderItem;
+import com.SRVK.Hardware.entity.RentalOrder;
+import com.SRVK.Hardware.repository.OrderItemRepository;
+import com.SRVK.Hardware.repository.OrderRepository;
+import com.SRVK.Hardware.repository.RentalOrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Charges orders outside the checkout transaction. Checkout commits the order as PENDING_PAYMENT
+ * with its stock taken and hands it over here; once that commit is done the charge runs on the
+ * paymentExecutor bulkhead (see PaymentConfig) with a timeout, behind a circuit breaker, and its
+ * outcome is recorded in a short transaction of its own: PAID, or FAILED with the products and
+ * rentals put back. Request threads and their connections never wait for the gateway.
+ * Gateway errors and timeouts count towards the breaker; declines (e.g. insufficient funds) don't.
+ * A charge that times out while still queued for a bulkhead thread is never sent and the order
+ * fails. Once sent it can't be taken back, so the order waits for the gateway's answer, whenever
+ * it comes. Before sending, the order is marked CHARGING and the charge carries the order's
+ * idempotency key. Orders left PENDING_PAYMENT (e.g. by a restart) are picked up by a periodic
+ * sweep once stale: unsent ones are failed, CHARGING ones are charged again under the same key,
+ * which returns the first charge's result if the gateway got it, and are only settled on an answer.
+ */
+@Service
+@Slf4j
+public class PaymentOrchestrator {
+
+    private final PaymentService paymentService;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final RentalOrderRepository rentalOrderRepository;
+    private final InventoryMutationService inventoryMutationService;
+    private final ToolAvailabilityService toolAvailabilityService;
+    private final AnalyticsService analyticsService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final ThreadPoolTaskExecutor paymentExecutor;
+    private final ThreadPoolTaskExecutor finalizerExecutor;
+    private final long timeoutMillis;
+    private final Duration staleAfter;
+    private final Duration sweepInterval;
+    private final CircuitBreaker circuitBreaker;
+
+    // Orders whose charge is running or whose outcome is being recorded; the sweep leaves them alone
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    // A submitted charge leaves the queue either sent to the gateway or abandoned by its timeout, never both
+    private enum Stage {
+        QUEUED, SENT, ABANDONED
+    }
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder lateOutcomes = new LongAdder();
+    private final LongAdder swept = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+    private final LongAdder chargeNanos = new LongAdder();
+    private final LongAdder charges = new LongAdder();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "payment-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PaymentOrchestrator(PaymentService paymentService, OrderRepository orderRepository,
+                               OrderItemRepository orderItemRepository, RentalOrderRepository rentalOrderRepository,
+                               InventoryMutationService inventoryMutationService,
+                               ToolAvailabilityService toolAvailabilityService, AnalyticsService analyticsService,
+                               OptimisticRetryExecutor optimisticRetryExecutor,
+                               @Qualifier("paymentExecutor") ThreadPoolTaskExecutor paymentExecutor,
+                               @Qualifier("paymentFinalizerExecutor") ThreadPoolTaskExecutor finalizerExecutor,
+                               @Value("${app.payment.timeout:10s}") Duration timeout,
+                               @Value("${app.payment.stale-after:10m}") Duration staleAfter,
+                               @Value("${app.payment.sweep-interval:1m}") Duration sweepInterval,
+                               @Value("${app.payment.circuit-breaker.window-size:20}") int windowSize,
+                               @Value("${app.payment.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                               @Value("${app.payment.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                               @Value("${app.payment.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this.paymentService = paymentService;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.rentalOrderRepository = rentalOrderRepository;
+        this.inventoryMutationService = inventoryMutationService;
+        this.toolAvailabilityService = toolAvailabilityService;
+        this.analyticsService = analyticsService;
+        this.optimisticRetryExecutor = optimisticRetryExecutor;
+        this.paymentExecutor = paymentExecutor;
+        this.finalizerExecutor = finalizerExecutor;
+        this.timeoutMillis = timeout.toMillis();
+        this.staleAfter = staleAfter;
+        this.sweepInterval = sweepInterval;
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openDuration.toMillis());
+    }
+
+    @PostConstruct
+    void start() {
+        long interval = sweepInterval.toMillis();
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * @return false while the gateway's circuit is open, or half open with its trial charge in
+     * flight; checkout then refuses card payments up front instead of taking stock for an order that would fail
+     */
+    public boolean isAccepting() {
+        return circuitBreaker.isAccepting(System.currentTimeMillis());
+    }
+
+    /**
+     * Charge the order once the current transaction commits (right away without one)
+     */
+    public void chargeAfterCommit(Long orderId, BigDecimal amount, String method, String details) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(orderId, amount, method, details, false);
+                }
+            });
+        } else {
+            submit(orderId, amount, method, details, false);
+        }
+    }
+
+    /**
+     * Charge outcomes, circuit breaker state and bulkhead usage
+     */
+    public Map<String, Object> stats() {
+        ThreadPoolExecutor pool = paymentExecutor.getThreadPoolExecutor();
+        long count = charges.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("circuit", circuitBreaker.getState().name());
+        m.put("failureRate", circuitBreaker.getFailureRate());
+        m.put("timesOpened", circuitBreaker.getTimesOpened());
+        m.put("maxConcurrent", pool.getMaximumPoolSize());
+        m.put("active", pool.getActiveCount());
+        m.put("queued", pool.getQueue().size());
+        m.put("queueCapacity", paymentExecutor.getQueueCapacity());
+        m.put("inFlight", inFlight.size());
+        m.put("submitted", submitted.sum());
+        m.put("succeeded", succeeded.sum());
+        m.put("declined", declined.sum());
+        m.put("errors", errors.sum());
+        m.put("timedOut", timedOut.sum());
+        m.put("rejected", rejected.sum());
+        m.put("shortCircuited", shortCircuited.sum());
+        m.put("lateOutcomes", lateOutcomes.sum());
+        m.put("swept", swept.sum());
+        m.put("reconciled", reconciled.sum());
+        m.put("avgChargeMillis", count == 0 ? 0.0 : chargeNanos.sum() / 1_000_000.0 / count);
+        return m;
+    }
+
+    /**
+     * Runs on the committing request thread (or the sweeper): only hands work to the executors.
+     * @param reconcile the order may already have been charged (see sweep); it is then only settled
+     * on an answer from the gateway, never failed for want of one
+     */
+    private void submit(Long orderId, BigDecimal amount, String method, String details, boolean reconcile) {
+        submitted.increment();
+        inFlight.add(orderId);
+        if (!circuitBreaker.tryAcquire(System.currentTimeMillis())) {
+            shortCircuited.increment();
+            finalizerExecutor.execute(() -> settle(orderId, reconcile, null, "Payment gateway unavailable"));
+            return;
+        }
+
+        AtomicReference<Stage> stage = new AtomicReference<>(Stage.QUEUED);
+        CompletableFuture<PaymentService.PaymentResult> charge;
+        try {
+            charge = CompletableFuture.supplyAsync(() -> send(orderId, stage, amount, method, details), paymentExecutor);
+        } catch (TaskRejectedException e) {
+            circuitBreaker.onCancelled();
+            rejected.increment();
+            finalizerExecutor.execute(() -> settle(orderId, reconcile, null, "Payment service busy"));
+            return;
+        }
+        // The copy times out; the charge itself still completes, which is how a late answer is seen
+        charge.copy()
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenCompleteAsync((result, error) -> onOutcome(orderId, reconcile, stage, charge, result, error),
+                        finalizerExecutor);
+    }
+
+    // Runs on the bulkhead; the only place the gateway is called
+    private PaymentService.PaymentResult send(Long orderId, AtomicReference<Stage> stage,
+                                              BigDecimal amount, String method, String details) {
+        if (!stage.compareAndSet(Stage.QUEUED, Stage.SENT)) {
+            throw new CancellationException("Charge timed out before it was sent");
+        }
+        if (orderRepository.markCharging(orderId) == 0) {
+            throw new CancellationException("Order no longer awaits payment");
+        }
+        long start = System.nanoTime();
+        try {
+            return paymentService.charge(amount, method, details, idempotencyKey(orderId));
+        } finally {
+            charges.increment();
+            chargeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private void onOutcome(Long orderId, boolean reconcile, AtomicReference<Stage> stage,
+                           CompletableFuture<PaymentService.PaymentResult> charge,
+                           PaymentService.PaymentResult result, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof TimeoutException) {
+            timedOut.increment();
+            if (stage.compareAndSet(Stage.QUEUED, Stage.ABANDONED)) {
+                // Never sent, so nothing was charged; the gateway wasn't involved either
+                circuitBreaker.onCancelled();
+                settle(orderId, reconcile, null, "Payment timed out");
+                return;
+            }
+            // Sent: the gateway may still charge it, so the order waits for its answer
+            circuitBreaker.onFailure(System.currentTimeMillis());
+            log.warn("Payment for order {} timed out at the gateway; waiting for its answer", orderId);
+            charge.whenCompleteAsync((late, lateError) -> {
+                lateOutcomes.increment();
+                Throwable lateCause = unwrap(lateError);
+                if (lateCause != null) {
+                    log.warn("Payment gateway error for order {} after its timeout: {}", orderId, lateCause.toString());
+                }
+                settle(orderId, reconcile, late, lateCause != null ? "Payment gateway error" : null);
+            }, finalizerExecutor);
+        } else if (cause instanceof CancellationException) {
+            circuitBreaker.onCancelled();
+            log.info("Payment for order {} not sent: {}", orderId, cause.getMessage());
+            inFlight.remove(orderId);
+        } else if (cause != null) {
+            errors.increment();
+            circuitBreaker.onFailure(System.currentTimeMillis());
+            log.warn("Payment gateway error for order {}: {}", orderId, cause.toString());
+            settle(orderId, reconcile, null, "Payment gateway error");
+        } else {
+            circuitBreaker.onSuccess();
+            if (result.isSuccess()) {
+                succeeded.increment();
+            } else {
+                declined.increment();
+            }
+            settle(orderId, reconcile, result, null);
+        }
+    }
+
+    /**
+     * Record the gateway's answer, or fail the order without one, unless the order may already have
+     * been charged: then it stays PENDING_PAYMENT for the next sweep
+     */
+    private void settle(Long orderId, boolean reconcile, PaymentService.PaymentResult result, String failure) {
+        if (result == null && reconcile) {
+            log.warn("Order {} may have been charged and the gateway gave no answer ({}); retrying on the next sweep",
+                    orderId, failure);
+            inFlight.remove(orderId);
+            return;
+        }
+        finalizeOrder(orderId, result, result != null ? result.getMessage() : failure);
+    }
+
+    // The callback transaction; retried if the order is changed concurrently (e.g. by an admin)
+    private void finalizeOrder(Long orderId, PaymentService.PaymentResult result, String message) {
+        try {
+            optimisticRetryExecutor.run("order.payment-finalize", () -> applyOutcome(orderId, result, message));
+        } catch (RuntimeException e) {
+            log.error("Failed to record the payment outcome of order {} ({}); it stays PENDING_PAYMENT until swept",
+                    orderId, result != null && result.isSuccess() ? "charged, transaction " + result.getTransactionId() : message, e);
+        } finally {
+            inFlight.remove(orderId);
+        }
+    }
+
+    private void applyOutcome(Long orderId, PaymentService.PaymentResult result, String message) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null || !Order.STATUS_PENDING_PAYMENT.equals(order.getStatus())) {
+            if (result != null && result.isSuccess()) {
+                log.error("Order {} was charged (transaction {}) but no longer awaits payment; refund needed",
+                        orderId, result.getTransactionId());
+            } else {
+                log.info("Payment outcome for order {} ignored, order is no longer awaiting payment", orderId);
+            }
+            return;
+        }
+
+        if (result != null && result.isSuccess()) {
+            order.setStatus(Order.STATUS_PAID);
+            order.setPaymentStatus(Order.PAYMENT_STATUS_SUCCESS);
+            order.setTransactionId(result.getTransactionId());
+            order.setPaymentDate(LocalDateTime.now());
+            order.setUpdatedAt(LocalDateTime.now());
+            orderRepository.save(order);
+            log.info("Payment for order {} succeeded, transaction {}", orderId, result.getTransactionId());
+            return;
+        }
+
+        // Compensate: put the stock back and drop the rentals, which never took effect
+        List<OrderItem> items = orderItemRepository.findWithProductByOrderId(orderId);
+        // In product id order, as checkout takes the rows (see CheckoutService)
+        items.stream()
+                .filter(oi -> oi.getProduct() != null)
+                .sorted(Comparator.comparing(oi -> oi.getProduct().getId()))
+                .forEach(oi -> inventoryMutationService.returnProduct(oi.getProduct().getId(), oi.getQuantity()));
+        List<RentalOrder> rentals = new ArrayList<>(rentalOrderRepository.findByOrderId(orderId));
+        // Tool rows are locked in tool id order, as checkout books them
+        rentals.sort(Comparator.comparing(RentalOrder::getToolId));
+        Set<Long> toolIds = new TreeSet<>();
+        for (RentalOrder rental : rentals) {
+            if (rental.getStatus() == RentalOrder.RentalStatus.ACTIVE) {
+                toolAvailabilityService.release(rental.getToolId(), rental.getStartDate(),
+                        rental.getEndDate(), rental.getQuantity());
+                toolIds.add(rental.getToolId());
+            }
+            analyticsService.recordRental(rental, -1);
+        }
+        rentalOrderRepository.deleteAll(rentals);
+        toolIds.forEach(inventoryMutationService::refreshTool);
+        analyticsService.recordPaymentFailed(order, items);
+
+        order.setStatus(Order.STATUS_FAILED);
+        order.setPaymentStatus(Order.PAYMENT_STATUS_FAILED);
+        order.setDeliveryStatus(Order.DELIVERY_CANCELLED);
+        order.setUpdatedAt(LocalDateTime.now());
+        orderRepository.save(order);
+        log.info("Payment for order {} failed ({}); {} product line(s) and {} rental(s) returned",
+                orderId, message, items.size(), rentals.size());
+    }
+
+    // Runs on the sweeper thread
+    private void sweep() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(staleAfter);
+            for (Long orderId : orderRepository.findIdsByStatusCreatedBefore(Order.STATUS_PENDING_PAYMENT, cutoff)) {
+                if (!inFlight.add(orderId)) {
+                    continue;
+                }
+                Order order = orderRepository.findById(orderId).orElse(null);
+                if (order != null && Order.PAYMENT_STATUS_CHARGING.equals(order.getPaymentStatus())) {
+                    // Sent before a restart: ask again under the same key rather than compensate a paid order
+                    reconciled.increment();
+                    submit(orderId, order.getTotalAmount(), order.getPaymentMethod(), null, true);
+                } else {
+                    swept.increment();
+                    finalizeOrder(orderId, null, "Payment not confirmed in time");
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to sweep orders awaiting payment", e);
+        }
+    }
+
+    // The gateway charges each order at most once under this key
+    private static String idempotencyKey(Long orderId) {
+        return "order-" + orderId;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -7,6 +7,12 @@ import java.math.BigDecimal;
 public interface PaymentService {
     PaymentResult charge(BigDecimal amount, String method, String details);
 
+    /**
+     * Charge at most once per key: repeating a call with the same key returns the result of the
+     * first one that got an answer instead of charging again
+     */
+    PaymentResult charge(BigDecimal amount, String method, String details, String idempotencyKey);
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -1,8 +1,11 @@
 package com.SRVK.Hardware.service;
 
+import com.SRVK.Hardware.dto.ProductSummaryDTO;
 import com.SRVK.Hardware.entity.Product;
 import com.SRVK.Hardware.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,44 +15,73 @@ import java.util.List;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final CatalogSearchService catalogSearchService;
+    private final CatalogCacheService catalogCacheService;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
 
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
+    public Page<ProductSummaryDTO> getProductSummaries(Pageable pageable) {
+        return productRepository.findSummaries(pageable);
+    }
+
     public Product getProductById(Long id) {
         try {
-            return productRepository.findById(id)
+            return catalogCacheService.getProduct(id)
                     .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
     }
 
+    public String getProductImageHash(Long id) {
+        return productRepository.findImageHashById(id).orElse(null);
+    }
+
     public Product addProduct(Product product) {
         try {
-            return productRepository.save(product);
+            Product saved = productRepository.save(product);
+            catalogSearchService.indexProduct(saved);
+            return saved;
         } catch (Exception e) {
             throw new RuntimeException("Failed to add product: " + e.getMessage());
         }
 
     }
 
-    public Product updateProduct(Long id, Product updatedProduct) {
+    /**
+     * Apply an admin edit made on the given version of the product. If the product changed since then
+     * (another edit, or a sale moving its stock) nothing is written and the admin has to reload it.
+     * @param versionSeen version of the product the edit was made on
+     * @throws IllegalStateException if the product is no longer at that version
+     */
+    public Product updateProduct(Long id, Product updatedProduct, long versionSeen) {
         try {
-            Product existingProduct = productRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-
-            // Update all fields
-            existingProduct.setName(updatedProduct.getName());
-            existingProduct.setQuantity(updatedProduct.getQuantity());
-            existingProduct.setCategory(updatedProduct.getCategory());
-            existingProduct.setSubCategory(updatedProduct.getSubCategory());
-            existingProduct.setDescription(updatedProduct.getDescription());
-            existingProduct.setPrice(updatedProduct.getPrice());
-            existingProduct.setImage(updatedProduct.getImage());
-
-            return productRepository.save(existingProduct);
+            Product saved = optimisticRetryExecutor.execute("product.update", () -> {
+                Product existingProduct = productRepository.findById(id)
+                        .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+                if (existingProduct.getVersion() != versionSeen) {
+                    throw new IllegalStateException("Product was changed since it was loaded, please reload and retry");
+                }
+
+                // Update all fields
+                existingProduct.setName(updatedProduct.getName());
+                existingProduct.setQuantity(updatedProduct.getQuantity());
+                existingProduct.setCategory(updatedProduct.getCategory());
+                existingProduct.setSubCategory(updatedProduct.getSubCategory());
+                existingProduct.setDescription(updatedProduct.getDescription());
+                existingProduct.setPrice(updatedProduct.getPrice());
+                existingProduct.setImageHash(updatedProduct.getImageHash());
+
+                return productRepository.save(existingProduct);
+            });
+            catalogCacheService.invalidateProduct(id);
+            catalogSearchService.indexProduct(saved);
+            return saved;
+        } catch (IllegalStateException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to update product: " + e.getMessage());
         }
@@ -61,6 +93,8 @@ public class ProductService {
             Product existingProduct = productRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
             productRepository.delete(existingProduct);
+            catalogCacheService.invalidateProduct(id);
+            catalogSearchService.removeProduct(id);
         } catch (Exception e) {
             throw new RuntimeException("Failed to delete product: " + e.getMessage());
         }
@@ -0,0 +1,137 @@
+package com.SRVK.Hardware.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named in-memory rate limits (see SlidingWindowRateLimiter), checked before any database or
+ * BCrypt work of the limited endpoint. Controllers check them directly when the key comes from the
+ * request body (login username and client); otherwise endpoints are annotated with RateLimited.
+ * Limits are per instance. Idle keys are evicted once a minute.
+ */
+@Service
+@Slf4j
+public class RateLimitService {
+
+    /**
+     * Credential checks (login, change password) per client address, whatever token the caller sends
+     */
+    public static final String CREDENTIALS_CLIENT = "credentials-client";
+    /**
+     * Login attempts per username from one client. Not per username alone: anyone could then lock a
+     * user out with a few bogus attempts a minute. Guessing from many clients is bounded by CREDENTIALS_CLIENT.
+     */
+    public static final String LOGIN_USERNAME = "login-username";
+    /**
+     * Password changes per user id from one client (see LOGIN_USERNAME)
+     */
+    public static final String PASSWORD_CHANGE_USER = "password-change-user";
+    /**
+     * Registrations per client address, so accounts (and their tokens) can't be minted in bulk
+     */
+    public static final String REGISTER_CLIENT = "register-client";
+    public static final String CART = "cart";
+    public static final String CHECKOUT = "checkout";
+
+    private record Policy(SlidingWindowRateLimiter limiter, LongAdder allowed, LongAdder rejected) {
+    }
+
+    private final Map<String, Policy> policies = new LinkedHashMap<>();
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-limit-evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public RateLimitService(@Value("${app.rate-limit.credentials-client.limit:30}") int credentialsLimit,
+                            @Value("${app.rate-limit.credentials-client.window:1m}") Duration credentialsWindow,
+                            @Value("${app.rate-limit.login-username.limit:5}") int loginLimit,
+                            @Value("${app.rate-limit.login-username.window:1m}") Duration loginWindow,
+                            @Value("${app.rate-limit.password-change-user.limit:5}") int passwordLimit,
+                            @Value("${app.rate-limit.password-change-user.window:15m}") Duration passwordWindow,
+                            @Value("${app.rate-limit.register-client.limit:5}") int registerLimit,
+                            @Value("${app.rate-limit.register-client.window:1h}") Duration registerWindow,
+                            @Value("${app.rate-limit.cart.limit:120}") int cartLimit,
+                            @Value("${app.rate-limit.cart.window:1m}") Duration cartWindow,
+                            @Value("${app.rate-limit.checkout.limit:10}") int checkoutLimit,
+                            @Value("${app.rate-limit.checkout.window:1m}") Duration checkoutWindow) {
+        add(CREDENTIALS_CLIENT, credentialsLimit, credentialsWindow);
+        add(LOGIN_USERNAME, loginLimit, loginWindow);
+        add(PASSWORD_CHANGE_USER, passwordLimit, passwordWindow);
+        add(REGISTER_CLIENT, registerLimit, registerWindow);
+        add(CART, cartLimit, cartWindow);
+        add(CHECKOUT, checkoutLimit, checkoutWindow);
+    }
+
+    @PostConstruct
+    void start() {
+        evictor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        evictor.shutdownNow();
+    }
+
+    /**
+     * Count a call against the policy's limit for the key
+     * @return 0 if allowed, otherwise whole seconds the caller should wait (for Retry-After)
+     */
+    public long tryAcquire(String policy, String key) {
+        Policy p = policies.get(policy);
+        if (p == null) {
+            throw new IllegalArgumentException("Unknown rate limit policy: " + policy);
+        }
+        long waitMillis = p.limiter().tryAcquire(key, System.currentTimeMillis());
+        if (waitMillis == 0) {
+            p.allowed().increment();
+            return 0;
+        }
+        p.rejected().increment();
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        policies.forEach((name, p) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("limit", p.limiter().getLimit());
+            m.put("windowSeconds", p.limiter().getWindowMillis() / 1000);
+            m.put("keys", p.limiter().size());
+            m.put("allowed", p.allowed().sum());
+            m.put("rejected", p.rejected().sum());
+            stats.put(name, m);
+        });
+        return stats;
+    }
+
+    private void add(String name, int limit, Duration window) {
+        policies.put(name, new Policy(new SlidingWindowRateLimiter(limit, window.toMillis()), new LongAdder(), new LongAdder()));
+    }
+
+    // Runs on the evictor thread
+    private void evictIdle() {
+        try {
+            long now = System.currentTimeMillis();
+            policies.forEach((name, p) -> {
+                int evicted = p.limiter().evictIdle(now);
+                if (evicted > 0) {
+                    log.debug("Rate limit {}: evicted {} idle key(s)", name, evicted);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to evict idle rate limit keys", e);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 
@@ -21,6 +22,9 @@ public class RentalService {
 
     private final RentalOrderRepository rentalOrderRepository;
     private final ToolRepository toolRepository;
+    private final AnalyticsService analyticsService;
+    private final ToolAvailabilityService toolAvailabilityService;
+    private final InventoryMutationService inventoryMutationService;
 
     @Transactional
     public RentalOrder createRental(Long userId, Long toolId, LocalDate startDate, LocalDate endDate, Integer quantity) {
@@ -47,24 +51,8 @@ public class RentalService {
         log.info("Tool found: {} - Current stock: {}, Available: {}", 
             tool.getName(), tool.getStockQuantity(), tool.isAvailable());
 
-        // Check if tool has enough stock
-        if (tool.getStockQuantity() < quantity) {
-            throw new IllegalArgumentException("Insufficient stock. Available: " + tool.getStockQuantity() + ", Requested: " + quantity);
-        }
-
-        // Decrease stock quantity
-        int oldStock = tool.getStockQuantity();
-        tool.setStockQuantity(tool.getStockQuantity() - quantity);
-        log.info("Decreasing stock from {} to {}", oldStock, tool.getStockQuantity());
-
-        // Mark tool as unavailable if stock becomes zero
-        if (tool.getStockQuantity() == 0) {
-            tool.setAvailable(false);
-            log.info("Tool {} marked as unavailable (stock is 0)", tool.getName());
-        }
-        
-        toolRepository.save(tool);
-        log.info("Tool stock updated successfully");
+        // The gate: every day of the rental must leave room within the tool's total stock
+        toolAvailabilityService.book(toolId, startDate, endDate, quantity);
 
         // Calculate total cost
         long days = ChronoUnit.DAYS.between(startDate, endDate);
@@ -82,9 +70,12 @@ public class RentalService {
                 .quantity(quantity)
                 .totalCost(total)
                 .status(RentalOrder.RentalStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
                 .build();
 
         RentalOrder saved = rentalOrderRepository.save(rentalOrder);
+        inventoryMutationService.refreshTool(toolId);
+        analyticsService.recordRental(saved, 1);
         log.info("Rental created successfully - ID: {}, Status: {}", saved.getId(), saved.getStatus());
         
         return saved;
@@ -132,32 +123,36 @@ public class RentalService {
         Tool tool = toolRepository.findById(rentalOrder.getToolId())
                 .orElseThrow(() -> new IllegalArgumentException("Tool not found"));
 
-        // Check for overlapping rentals excluding this rental
-        List<RentalOrder> overlappingRentals = rentalOrderRepository.findOverlappingRentalsExcluding(
-                rentalOrder.getToolId(), startDate, endDate, id);
-
-        int totalRentedQuantity = overlappingRentals.stream()
-                .mapToInt(RentalOrder::getQuantity)
-                .sum();
-
-        // Check if there's enough stock considering existing rentals
-        if (totalRentedQuantity + rentalOrder.getQuantity() > tool.getStockQuantity()) {
-            throw new IllegalArgumentException("Not enough available stock for the requested dates. " +
-                    "Requested: " + rentalOrder.getQuantity() + ", Already rented: " + totalRentedQuantity +
-                    ", Total stock: " + tool.getStockQuantity());
+        // Move the booking to the new dates; checks each day against the other rentals of the tool
+        if (rentalOrder.getStatus() == RentalOrder.RentalStatus.ACTIVE) {
+            toolAvailabilityService.move(rentalOrder.getToolId(), rentalOrder.getStartDate(), rentalOrder.getEndDate(),
+                    startDate, endDate, rentalOrder.getQuantity());
         }
 
         // Update rental order
         long days = ChronoUnit.DAYS.between(startDate, endDate);
         if (days == 0) days = 1; // Minimum 1 day rental
 
+        RentalOrder before = RentalOrder.builder()
+                .toolId(rentalOrder.getToolId())
+                .startDate(rentalOrder.getStartDate())
+                .endDate(rentalOrder.getEndDate())
+                .quantity(rentalOrder.getQuantity())
+                .totalCost(rentalOrder.getTotalCost())
+                .build();
+
         rentalOrder.setStartDate(startDate);
         rentalOrder.setEndDate(endDate);
         rentalOrder.setTotalCost(tool.getDailyRate()
                 .multiply(BigDecimal.valueOf(days))
                 .multiply(BigDecimal.valueOf(rentalOrder.getQuantity())));
 
-        return rentalOrderRepository.save(rentalOrder);
+        RentalOrder saved = rentalOrderRepository.save(rentalOrder);
+        if (saved.getStatus() == RentalOrder.RentalStatus.ACTIVE) {
+            inventoryMutationService.refreshTool(saved.getToolId());
+        }
+        analyticsService.recordRentalChange(before, saved);
+        return saved;
     }
 
     @Transactional
@@ -178,56 +173,28 @@ public class RentalService {
             rentalOrder.setStatus(newStatus);
             log.info("Status set to: {}", newStatus);
             
-            // If changing from ACTIVE to RETURNED, increase tool stock and mark as available
+            // If changing from ACTIVE to RETURNED, free its days
             if (oldStatus == RentalOrder.RentalStatus.ACTIVE && 
                 newStatus == RentalOrder.RentalStatus.RETURNED) {
-                log.info("Changing status from ACTIVE to RETURNED - increasing stock");
-                
-                Tool tool = toolRepository.findById(rentalOrder.getToolId())
-                        .orElseThrow(() -> new IllegalArgumentException("Tool not found"));
-                
-                int oldStock = tool.getStockQuantity();
-                tool.setStockQuantity(tool.getStockQuantity() + rentalOrder.getQuantity());
-                
-                log.info("Tool {} - Stock increased from {} to {}", 
-                    tool.getName(), oldStock, tool.getStockQuantity());
-                
-                // Mark tool as available if it now has stock
-                if (tool.getStockQuantity() > 0) {
-                    tool.setAvailable(true);
-                    log.info("Tool {} marked as available", tool.getName());
-                }
-                toolRepository.save(tool);
-                log.info("Tool saved successfully");
+                log.info("Changing status from ACTIVE to RETURNED - releasing booking");
+
+                toolAvailabilityService.release(rentalOrder.getToolId(), rentalOrder.getStartDate(),
+                        rentalOrder.getEndDate(), rentalOrder.getQuantity());
             }
-            // If changing from RETURNED to ACTIVE, decrease tool stock
+            // If changing from RETURNED to ACTIVE, book its days again, or fail if they were rented out meanwhile
             else if (oldStatus == RentalOrder.RentalStatus.RETURNED && 
                      newStatus == RentalOrder.RentalStatus.ACTIVE) {
-                log.info("Changing status from RETURNED to ACTIVE - decreasing stock");
-                
-                Tool tool = toolRepository.findById(rentalOrder.getToolId())
-                        .orElseThrow(() -> new IllegalArgumentException("Tool not found"));
-                if (tool.getStockQuantity() < rentalOrder.getQuantity()) {
-                    throw new IllegalArgumentException("Not enough stock to reactivate rental");
-                }
-                
-                int oldStock = tool.getStockQuantity();
-                tool.setStockQuantity(tool.getStockQuantity() - rentalOrder.getQuantity());
-                
-                log.info("Tool {} - Stock decreased from {} to {}", 
-                    tool.getName(), oldStock, tool.getStockQuantity());
-                
-                // Mark tool as unavailable if stock becomes zero
-                if (tool.getStockQuantity() == 0) {
-                    tool.setAvailable(false);
-                    log.info("Tool {} marked as unavailable (stock is 0)", tool.getName());
-                }
-                toolRepository.save(tool);
-                log.info("Tool saved successfully");
+                log.info("Changing status from RETURNED to ACTIVE - booking again");
+
+                toolAvailabilityService.book(rentalOrder.getToolId(), rentalOrder.getStartDate(),
+                        rentalOrder.getEndDate(), rentalOrder.getQuantity());
             }
             
             log.info("Saving rental order to database...");
             rentalOrder = rentalOrderRepository.save(rentalOrder);
+            if (oldStatus != newStatus) {
+                inventoryMutationService.refreshTool(rentalOrder.getToolId());
+            }
             log.info("Rental order saved successfully - Final status: {}, ID: {}", 
                 rentalOrder.getStatus(), rentalOrder.getId());
         }
@@ -241,19 +208,17 @@ public class RentalService {
         RentalOrder rentalOrder = rentalOrderRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Rental order not found"));
 
+        // Returning twice must not put the tools back twice
+        if (rentalOrder.getStatus() != RentalOrder.RentalStatus.ACTIVE) {
+            return;
+        }
+        toolAvailabilityService.release(rentalOrder.getToolId(), rentalOrder.getStartDate(),
+                rentalOrder.getEndDate(), rentalOrder.getQuantity());
         rentalOrder.setStatus(RentalOrder.RentalStatus.RETURNED);
         rentalOrderRepository.save(rentalOrder);
 
-        // Increase tool stock and mark as available
-        Tool tool = toolRepository.findById(rentalOrder.getToolId())
-                .orElseThrow(() -> new IllegalArgumentException("Tool not found"));
-
-        tool.setStockQuantity(tool.getStockQuantity() + rentalOrder.getQuantity());
-        // Mark tool as available if it now has stock
-        if (tool.getStockQuantity() > 0) {
-            tool.setAvailable(true);
-        }
-        toolRepository.save(tool);
+        // The units are back in stock (and the tool available)
+        inventoryMutationService.refreshTool(rentalOrder.getToolId());
     }
 
     @Transactional
@@ -264,27 +229,19 @@ public class RentalService {
         RentalOrder rental = rentalOrderRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Rental not found"));
         
-        // Only return stock if rental was ACTIVE
-        if (rental.getStatus() == RentalOrder.RentalStatus.ACTIVE) {
-            Tool tool = toolRepository.findById(rental.getToolId())
-                    .orElseThrow(() -> new IllegalArgumentException("Tool not found"));
-            
-            int oldStock = tool.getStockQuantity();
-            tool.setStockQuantity(tool.getStockQuantity() + rental.getQuantity());
-            
-            log.info("Returning stock for deleted rental - Tool: {}, Stock: {} -> {}", 
-                tool.getName(), oldStock, tool.getStockQuantity());
-            
-            // Mark tool as available if it has stock
-            if (tool.getStockQuantity() > 0) {
-                tool.setAvailable(true);
-                log.info("Tool {} marked as available", tool.getName());
-            }
-            
-            toolRepository.save(tool);
+        // Only an ACTIVE rental holds days and stock
+        boolean active = rental.getStatus() == RentalOrder.RentalStatus.ACTIVE;
+        if (active) {
+            log.info("Releasing booking of deleted rental - Tool: {}, Quantity: {}", rental.getToolId(), rental.getQuantity());
+            toolAvailabilityService.release(rental.getToolId(), rental.getStartDate(),
+                    rental.getEndDate(), rental.getQuantity());
         }
         
         rentalOrderRepository.deleteById(id);
+        if (active) {
+            inventoryMutationService.refreshTool(rental.getToolId());
+        }
+        analyticsService.recordRental(rental, -1);
         log.info("Rental deleted successfully");
     }
 }
\ No newline at end of file
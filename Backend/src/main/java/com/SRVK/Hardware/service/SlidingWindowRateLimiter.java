@@ -0,0 +1,115 @@
+package com.SRVK.Hardware.service;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allows at most limit calls per key within any sliding window of the given length.
+ * Uses the sliding window counter approximation: a key keeps the counts of the current and the
+ * previous fixed window, and the previous one is weighted by how much of it still overlaps the
+ * sliding window. That is two ints per key instead of a timestamp per call.
+ * Counters live in a concurrent map; updates to a key are serialised by one of a fixed set of
+ * lock stripes, and keys idle for two windows are dropped by evictIdle().
+ */
+public class SlidingWindowRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private static final class Window {
+        long start;
+        int current;
+        int previous;
+    }
+
+    private final int limit;
+    private final long windowMillis;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis) {
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Count a call for the key if it is within the limit
+     * @return 0 if allowed, otherwise milliseconds until a call is expected to be allowed again
+     */
+    public long tryAcquire(String key, long now) {
+        ReentrantLock lock = stripe(key);
+        lock.lock();
+        try {
+            Window w = windows.computeIfAbsent(key, k -> new Window());
+            roll(w, now);
+            long elapsed = now - w.start;
+            double overlap = 1.0 - (double) elapsed / windowMillis;
+            if (w.previous * overlap + w.current < limit) {
+                w.current++;
+                return 0;
+            }
+            if (w.current >= limit || w.previous == 0) {
+                // Only the next window clears it
+                return windowMillis - elapsed;
+            }
+            // The previous window's weight shrinks linearly until the estimate drops below the limit
+            double needed = (w.previous * overlap + w.current - limit + 1) / w.previous;
+            return Math.max(1, (long) Math.ceil(needed * windowMillis));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop keys without calls in the last two windows
+     * @return number of keys dropped
+     */
+    public int evictIdle(long now) {
+        int evicted = 0;
+        for (String key : new ArrayList<>(windows.keySet())) {
+            ReentrantLock lock = stripe(key);
+            lock.lock();
+            try {
+                Window w = windows.get(key);
+                if (w != null && now - w.start >= 2 * windowMillis) {
+                    windows.remove(key);
+                    evicted++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    // Move the window forward to the one containing now
+    private void roll(Window w, long now) {
+        long start = now - Math.floorMod(now, windowMillis);
+        if (start == w.start) {
+            return;
+        }
+        w.previous = start - w.start == windowMillis ? w.current : 0;
+        w.current = 0;
+        w.start = start;
+    }
+
+    private ReentrantLock stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+}
@@ -0,0 +1,78 @@
+package com.SRVK.Hardware.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: scheduling is O(1) and each tick only looks at one slot.
+ * Deadlines further away than one revolution stay in their slot until their tick comes round.
+ * Entries are never cancelled; the owner checks on expiry whether the deadline still applies.
+ */
+final class TimerWheel<K> {
+
+    private record Entry<K>(K key, long tick) {
+    }
+
+    private final long tickMillis;
+    private final List<List<Entry<K>>> slots;
+    private long currentTick;
+
+    TimerWheel(long tickMillis, int size, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    synchronized void schedule(K key, long deadlineMillis) {
+        // Round up so an entry never fires before its deadline
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        slots.get(slot(tick)).add(new Entry<>(key, tick));
+    }
+
+    /**
+     * Move the wheel up to now and return the keys whose deadline has passed
+     */
+    synchronized List<K> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        List<K> due = new ArrayList<>();
+        if (target - currentTick >= slots.size()) {
+            // Fell behind by a whole revolution: one sweep over every slot is enough
+            for (List<Entry<K>> slot : slots) {
+                collect(slot, target, due);
+            }
+        } else {
+            while (currentTick < target) {
+                currentTick++;
+                collect(slots.get(slot(currentTick)), currentTick, due);
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+        return due;
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (List<Entry<K>> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % slots.size());
+    }
+
+    private static <K> void collect(List<Entry<K>> slot, long upToTick, List<K> due) {
+        for (Iterator<Entry<K>> it = slot.iterator(); it.hasNext(); ) {
+            Entry<K> e = it.next();
+            if (e.tick() <= upToTick) {
+                due.add(e.key());
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Issues the signed JWTs handed out at login and verifies them for JwtAuthenticationFilter.
+ * A token carries the user's id, username and role, so a request is authenticated without
+ * loading the user. The HMAC key and the parser are built once; tokens verified recently are
+ * kept in a small bounded cache, so repeat requests with the same token skip the signature check and
+ * claim parsing until it expires.
+ */
+@Service
+public class TokenService {
+
+    private static final String CLAIM_USERNAME = "username";
+    private static final String CLAIM_ROLE = "role";
+
+    /**
+     * The user a request was authenticated as
+     */
+    public record Principal(long userId, String username, User.UserRole role) {
+        public boolean isAdmin() {
+            return role == User.UserRole.ADMIN;
+        }
+
+        /**
+         * @return true if this user may read or change the given user's cart, orders, etc.
+         */
+        public boolean canAccess(Long userId) {
+            return isAdmin() || (userId != null && this.userId == userId);
+        }
+    }
+
+    private record Verified(Principal principal, long expiresAtMillis) {
+    }
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Duration ttl;
+    private final Cache<String, Verified> verified;
+
+    public TokenService(@Value("${app.jwt.secret:}") String secret,
+                        @Value("${app.jwt.ttl:12h}") Duration ttl,
+                        @Value("${app.jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        // A random key would sign out every user on each restart while their stored tokens keep failing
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("app.jwt.secret (JWT_SECRET) must be set to a base64 key of at least 32 bytes, "
+                    + "e.g. the output of: openssl rand -base64 32");
+        }
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.ttl = ttl;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public String issue(User user) {
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject(String.valueOf(user.getId()))
+                .claim(CLAIM_USERNAME, user.getUsername())
+                .claim(CLAIM_ROLE, user.getRole().name())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + ttl.toMillis()))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed, badly signed or expired
+     */
+    public Principal verify(String token) {
+        long now = System.currentTimeMillis();
+        Verified hit = verified.getIfPresent(token);
+        if (hit != null) {
+            if (hit.expiresAtMillis() > now) {
+                return hit.principal();
+            }
+            verified.invalidate(token);
+            throw new IllegalArgumentException("Token expired");
+        }
+
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Principal principal = new Principal(Long.parseLong(claims.getSubject()),
+                    claims.get(CLAIM_USERNAME, String.class),
+                    User.UserRole.valueOf(String.valueOf(claims.get(CLAIM_ROLE))));
+            verified.put(token, new Verified(principal, claims.getExpiration().getTime()));
+            return principal;
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid or expired token");
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.dto.AvailableToolDTO;
+import com.SRVK.Hardware.dto.ToolAvailabilityDTO;
+import com.SRVK.Hardware.dto.ToolAvailabilityQuery;
+import com.SRVK.Hardware.dto.ToolSummaryDTO;
+import com.SRVK.Hardware.entity.RentalOrder;
+import com.SRVK.Hardware.entity.ToolDailyBooking;
+import com.SRVK.Hardware.repository.RentalOrderRepository;
+import com.SRVK.Hardware.repository.ToolDailyBookingRepository;
+import com.SRVK.Hardware.repository.ToolRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-tool, per-day booked quantities of active rentals (see ToolDailyBooking).
+ * The tool_daily_booking table is the source of truth and is written in the caller's transaction;
+ * booking checks take a row lock on the tool and read only the days of the requested range.
+ * Calendar reads are served from an in-memory int-per-day array covering today + horizon,
+ * loaded from the table on first use and dropped after any booking change commits here.
+ * Bookings made by other instances are not seen until the calendar's short TTL runs out.
+ * When the day changes, tool stock is refreshed (see InventoryMutationService.refreshTool),
+ * since it counts the units booked today.
+ */
+@Service
+@Slf4j
+public class ToolAvailabilityService {
+
+    static final int MAX_CALENDAR_DAYS = 366;
+
+    private static final String UPSERT = "INSERT INTO tool_daily_booking (tool_id, booking_day, booked) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE booked = booked + VALUES(booked)";
+
+    private final ToolDailyBookingRepository bookingRepository;
+    private final ToolRepository toolRepository;
+    private final RentalOrderRepository rentalOrderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryMutationService inventoryMutationService;
+    private final int horizonDays;
+    private final long calendarTtlMillis;
+
+    private final Map<Long, DayCalendar> calendars = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load racing with a commit is never kept
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Checks once a minute whether the day changed since tool stock was last refreshed
+    private final ScheduledExecutorService dayRollover = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tool-stock-day");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile LocalDate stockDay = LocalDate.now();
+
+    public ToolAvailabilityService(ToolDailyBookingRepository bookingRepository, ToolRepository toolRepository,
+                                   RentalOrderRepository rentalOrderRepository, JdbcTemplate jdbcTemplate,
+                                   InventoryMutationService inventoryMutationService,
+                                   @Value("${app.availability.horizon-days:366}") int horizonDays,
+                                   @Value("${app.availability.calendar-ttl:5s}") Duration calendarTtl) {
+        this.bookingRepository = bookingRepository;
+        this.toolRepository = toolRepository;
+        this.rentalOrderRepository = rentalOrderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryMutationService = inventoryMutationService;
+        this.horizonDays = horizonDays;
+        this.calendarTtlMillis = calendarTtl.toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        dayRollover.scheduleWithFixedDelay(this::refreshStockOnNewDay, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        dayRollover.shutdownNow();
+    }
+
+    /**
+     * Book quantity units of the tool on every day of the range, or throw if any day
+     * would exceed the tool's total stock. Must run inside the caller's transaction.
+     */
+    @Transactional
+    public void book(Long toolId, LocalDate start, LocalDate end, int quantity) {
+        int totalStock = lockTool(toolId);
+        int[] booked = bookedFromTable(toolId, start, end);
+        for (int i = 0; i < booked.length; i++) {
+            if (booked[i] + quantity > totalStock) {
+                throw new IllegalArgumentException("Not enough available stock on " + start.plusDays(i) +
+                        ". Requested: " + quantity + ", Already booked: " + booked[i] + ", Total stock: " + totalStock);
+            }
+        }
+        add(toolId, start, end, quantity);
+    }
+
+    /**
+     * Give back quantity units of the tool on every day of the range
+     */
+    @Transactional
+    public void release(Long toolId, LocalDate start, LocalDate end, int quantity) {
+        lockTool(toolId);
+        add(toolId, start, end, -quantity);
+        bookingRepository.deleteEmpty(toolId, start, end);
+    }
+
+    /**
+     * Move a booking to new dates; the old days are released before the new ones are checked
+     */
+    @Transactional
+    public void move(Long toolId, LocalDate oldStart, LocalDate oldEnd, LocalDate newStart, LocalDate newEnd, int quantity) {
+        release(toolId, oldStart, oldEnd, quantity);
+        book(toolId, newStart, newEnd, quantity);
+    }
+
+    /**
+     * Booked and free units of the tool for each day of the range (inclusive).
+     * Not transactional, so a calendar loaded here reads committed bookings as of the load (see booked).
+     */
+    public ToolAvailabilityDTO getAvailability(Long toolId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_CALENDAR_DAYS + " days");
+        }
+        int totalStock = toolRepository.findStockLevelById(toolId)
+                .orElseThrow(() -> new IllegalArgumentException("Tool not found"))
+                .getTotalStock();
+
+        int[] booked = booked(toolId, from, to);
+        List<ToolAvailabilityDTO.Day> days = new ArrayList<>(booked.length);
+        for (int i = 0; i < booked.length; i++) {
+            days.add(new ToolAvailabilityDTO.Day(from.plusDays(i), booked[i], Math.max(totalStock - booked[i], 0)));
+        }
+        return new ToolAvailabilityDTO(toolId, totalStock, from, to, days);
+    }
+
+    /**
+     * Units of the tool free on every day of the range: total stock less the busiest day's bookings
+     */
+    public int freeUnits(Long toolId, int totalStock, LocalDate from, LocalDate to) {
+        int peak = 0;
+        for (int b : booked(toolId, from, to)) {
+            peak = Math.max(peak, b);
+        }
+        return Math.max(totalStock - peak, 0);
+    }
+
+    /**
+     * Tools with at least the requested units free on every day of the window, in two queries:
+     * the catalog fields of the candidate tools and one grouped aggregate of their busiest day.
+     */
+    @Transactional(readOnly = true)
+    public List<AvailableToolDTO> findAvailable(ToolAvailabilityQuery query) {
+        if (query.getFrom() == null || query.getTo() == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (query.getFrom().isAfter(query.getTo())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(query.getFrom(), query.getTo()) >= MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_CALENDAR_DAYS + " days");
+        }
+        int quantity = query.getQuantity() != null && query.getQuantity() > 0 ? query.getQuantity() : 1;
+        String category = query.getCategory() != null && !query.getCategory().isBlank() ? query.getCategory() : null;
+
+        Map<Long, Integer> peaks = new HashMap<>();
+        for (ToolDailyBookingRepository.Peak p : bookingRepository.findPeaks(category, query.getFrom(), query.getTo())) {
+            peaks.put(p.getToolId(), p.getPeak());
+        }
+        List<AvailableToolDTO> result = new ArrayList<>();
+        for (ToolSummaryDTO tool : toolRepository.findSummariesByCategory(category)) {
+            int free = tool.getTotalStock() - peaks.getOrDefault(tool.getId(), 0);
+            if (free >= quantity) {
+                result.add(new AvailableToolDTO(tool, free));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Booked units per day of the range, from memory when the range lies inside the cached window.
+     * A missing calendar is only loaded outside a transaction: inside one, the read could come from
+     * a snapshot taken before a booking whose invalidation has already run, and the stale calendar
+     * would be kept. Transactional callers read the range from the table instead.
+     */
+    int[] booked(Long toolId, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        LocalDate windowEnd = today.plusDays(horizonDays - 1L);
+        if (from.isBefore(today) || to.isAfter(windowEnd)) {
+            return bookedFromTable(toolId, from, to);
+        }
+        DayCalendar calendar = calendars.get(toolId);
+        if (calendar == null || !calendar.base().equals(today)
+                || System.currentTimeMillis() - calendar.loadedAtMillis() >= calendarTtlMillis) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                return bookedFromTable(toolId, from, to);
+            }
+            calendar = loadCalendar(toolId, today, windowEnd);
+        }
+        return calendar.slice(from, to);
+    }
+
+    /**
+     * Drop all bookings of a tool that is being deleted
+     */
+    @Transactional
+    public void removeTool(Long toolId) {
+        bookingRepository.deleteByToolId(toolId);
+        invalidateAfterCommit(toolId);
+    }
+
+    /**
+     * Recompute the whole table from active rentals (initial backfill or repair).
+     * Takes the row lock of every tool first, as book/release/move do for theirs, so no rental is
+     * booked or returned between reading the rentals and rewriting the table.
+     */
+    @Transactional
+    public int rebuild() {
+        // A locking read: the snapshot for the rental read below is only taken after the locks are held
+        int locked = jdbcTemplate.queryForList("SELECT id FROM tools ORDER BY id FOR UPDATE", Long.class).size();
+        jdbcTemplate.update("DELETE FROM tool_daily_booking");
+        Map<Long, Map<LocalDate, Integer>> perTool = new HashMap<>();
+        for (RentalOrder rental : rentalOrderRepository.findByStatus(RentalOrder.RentalStatus.ACTIVE)) {
+            Map<LocalDate, Integer> days = perTool.computeIfAbsent(rental.getToolId(), id -> new HashMap<>());
+            for (LocalDate d = rental.getStartDate(); !d.isAfter(rental.getEndDate()); d = d.plusDays(1)) {
+                days.merge(d, rental.getQuantity(), Integer::sum);
+            }
+        }
+        List<Object[]> rows = new ArrayList<>();
+        perTool.forEach((toolId, days) -> days.forEach((day, qty) -> rows.add(new Object[]{toolId, Date.valueOf(day), qty})));
+        jdbcTemplate.batchUpdate("INSERT INTO tool_daily_booking (tool_id, booking_day, booked) VALUES (?, ?, ?)", rows);
+
+        invalidations.incrementAndGet();
+        calendars.clear();
+        log.info("Rebuilt tool bookings: {} day row(s) for {} of {} tool(s)", rows.size(), perTool.size(), locked);
+        return rows.size();
+    }
+
+    public boolean isEmpty() {
+        return bookingRepository.count() == 0;
+    }
+
+    // Serialises booking changes per tool for the rest of the transaction
+    private int lockTool(Long toolId) {
+        try {
+            Integer totalStock = jdbcTemplate.queryForObject(
+                    "SELECT total_stock FROM tools WHERE id = ? FOR UPDATE", Integer.class, toolId);
+            return totalStock != null ? totalStock : 0;
+        } catch (EmptyResultDataAccessException e) {
+            throw new IllegalArgumentException("Tool not found");
+        }
+    }
+
+    private void add(Long toolId, LocalDate start, LocalDate end, int delta) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            rows.add(new Object[]{toolId, Date.valueOf(d), delta});
+        }
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+        invalidateAfterCommit(toolId);
+    }
+
+    private int[] bookedFromTable(Long toolId, LocalDate from, LocalDate to) {
+        int[] booked = new int[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        for (ToolDailyBooking b : bookingRepository.findRange(toolId, from, to)) {
+            booked[(int) ChronoUnit.DAYS.between(from, b.getId().getDay())] = b.getBooked();
+        }
+        return booked;
+    }
+
+    // Outside a transaction only, so the read below starts after seen is taken
+    private DayCalendar loadCalendar(Long toolId, LocalDate base, LocalDate end) {
+        long seen = invalidations.get();
+        DayCalendar calendar = new DayCalendar(base, bookedFromTable(toolId, base, end), System.currentTimeMillis());
+        calendars.put(toolId, calendar);
+        // A booking committed while loading: the array may predate it, so don't keep it
+        if (invalidations.get() != seen) {
+            calendars.remove(toolId, calendar);
+        }
+        return calendar;
+    }
+
+    // The in-memory calendar only changes once the booking is visible to other transactions
+    private void invalidateAfterCommit(Long toolId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(toolId);
+                }
+            });
+        } else {
+            invalidate(toolId);
+        }
+    }
+
+    // Runs on the day rollover thread
+    private void refreshStockOnNewDay() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(stockDay)) {
+            return;
+        }
+        try {
+            int changed = inventoryMutationService.refreshAllTools();
+            stockDay = today;
+            log.info("Refreshed tool stock for {}: {} tool(s) changed", today, changed);
+        } catch (RuntimeException e) {
+            // Retried on the next check
+            log.error("Failed to refresh tool stock for {}", today, e);
+        }
+    }
+
+    private void invalidate(Long toolId) {
+        invalidations.incrementAndGet();
+        calendars.remove(toolId);
+    }
+
+    /**
+     * Booked units for consecutive days starting at base, as read at loadedAtMillis
+     */
+    private record DayCalendar(LocalDate base, int[] booked, long loadedAtMillis) {
+        int[] slice(LocalDate from, LocalDate to) {
+            int offset = (int) ChronoUnit.DAYS.between(base, from);
+            int length = (int) ChronoUnit.DAYS.between(from, to) + 1;
+            int[] out = new int[length];
+            System.arraycopy(booked, offset, out, 0, length);
+            return out;
+        }
+    }
+}
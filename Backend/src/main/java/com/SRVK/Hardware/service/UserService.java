@@ -7,8 +7,6 @@ import com.SRVK.Hardware.entity.User.UserRole;
 import com.SRVK.Hardware.entity.User;
 import com.SRVK.Hardware.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,14 +15,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final TokenService tokenService;
+    private final PasswordHashingService passwordHashingService;
 
     public User toUser(RegisterDTO dto) {
         UserRole role = UserRole.CUSTOMER;
         if (dto.getRole() != null) {role = dto.getRole();}
 
         // Hash the password before storing
-        String hashedPassword = passwordEncoder.encode(dto.getPassword());
+        String hashedPassword = passwordHashingService.encode(dto.getPassword());
 
         return User.builder()
                 .username(dto.getUsername())
@@ -65,18 +64,24 @@ public class UserService {
 
         User newUser = toUser(registerDTO);
         User user = userRepository.save(newUser);
-        return toResponseDTO(user);
+        ResponseDTO response = toResponseDTO(user);
+        response.setToken(tokenService.issue(user));
+        return response;
     }
 
     public ResponseDTO login(LoginDTO loginDTO){
         User user = userRepository.findByUsername(loginDTO.getUsername())
                 .orElseThrow(() -> new RuntimeException("Username doesn't exists!"));
 
-        // Use passwordEncoder.matches() to compare plain text password with hashed password
-        if (!passwordEncoder.matches(loginDTO.getPassword(), user.getPassword())) {
+        // Use passwordHashingService.matches() to compare plain text password with hashed password
+        if (!passwordHashingService.matches(loginDTO.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid Password");
         }
-        return toResponseDTO(user);
+        passwordHashingService.upgradeIfNeeded(user.getId(), loginDTO.getPassword(), user.getPassword());
+        // Sent as "Authorization: Bearer <token>" on later requests (see JwtAuthenticationFilter)
+        ResponseDTO response = toResponseDTO(user);
+        response.setToken(tokenService.issue(user));
+        return response;
     }
 
     public List<User> getUsers(){
@@ -122,7 +127,7 @@ public class UserService {
 
         // Hash new password if provided during update
         if (dto.getPassword() != null && !dto.getPassword().isEmpty()) {
-            String hashedPassword = passwordEncoder.encode(dto.getPassword());
+            String hashedPassword = passwordHashingService.encode(dto.getPassword());
             user.setPassword(hashedPassword);
         }
 
@@ -149,12 +154,12 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found with Id: " + id));
 
         // Verify old password
-        if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(oldPassword, user.getPassword())) {
             throw new RuntimeException("Old password is incorrect");
         }
 
         // Hash and set new password
-        String hashedNew = passwordEncoder.encode(newPassword);
+        String hashedNew = passwordHashingService.encode(newPassword);
         user.setPassword(hashedNew);
         userRepository.save(user);
     }
@@ -0,0 +1,3 @@
+-- V9 (LegacyImageMigration) has moved every legacy image into the image store
+ALTER TABLE product DROP COLUMN image;
+ALTER TABLE tools DROP COLUMN image;
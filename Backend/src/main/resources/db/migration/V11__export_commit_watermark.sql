@@ -0,0 +1,20 @@
+-- Incremental exports continue from the (created_at, id) of the last exported row instead of the
+-- highest id: pooled ids are handed out before commit, so a higher id can become visible first.
+
+-- Rentals had no creation time; existing ones take their order's, or their start date when booked alone
+ALTER TABLE rental_orders ADD COLUMN created_at DATETIME;
+UPDATE rental_orders r SET created_at = COALESCE(
+        (SELECT o.created_at FROM orders o WHERE o.id = r.order_id), r.start_date);
+ALTER TABLE rental_orders MODIFY created_at DATETIME NOT NULL;
+
+-- Existing watermarks take the creation time of the row they point at
+ALTER TABLE export_watermarks ADD COLUMN last_created_at DATETIME;
+UPDATE export_watermarks w SET last_created_at =
+        (SELECT o.created_at FROM orders o WHERE o.id = w.last_id) WHERE w.dataset = 'orders';
+UPDATE export_watermarks w SET last_created_at =
+        (SELECT o.created_at FROM order_items oi JOIN orders o ON o.id = oi.order_id WHERE oi.id = w.last_id)
+        WHERE w.dataset = 'order-items';
+UPDATE export_watermarks w SET last_created_at =
+        (SELECT r.created_at FROM rental_orders r WHERE r.id = w.last_id) WHERE w.dataset = 'rentals';
+UPDATE export_watermarks SET last_created_at = exported_at WHERE last_created_at IS NULL;
+ALTER TABLE export_watermarks MODIFY last_created_at DATETIME NOT NULL;
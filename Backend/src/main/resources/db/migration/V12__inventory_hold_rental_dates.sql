@@ -0,0 +1,6 @@
+-- Tool holds keep their rental days so they only count against rentals on overlapping days.
+-- Existing tool holds have no dates; they are dropped and placed again at the next cart change or checkout.
+DELETE FROM inventory_holds WHERE item_type = 'TOOL';
+ALTER TABLE inventory_holds
+    ADD COLUMN start_date DATE NULL,
+    ADD COLUMN end_date   DATE NULL;
@@ -0,0 +1,5 @@
+-- Category listings without a sub-category filter (see CatalogQueryService.findProducts) can't sort
+-- through the (category, sub_category, ...) indexes, since rows of a category are ordered by sub-category
+-- first; these serve their keyset pages in index order instead of sorting the whole category.
+CREATE INDEX idx_product_category_only_price ON product (category, price, id);
+CREATE INDEX idx_product_category_only_name ON product (category, name, id);
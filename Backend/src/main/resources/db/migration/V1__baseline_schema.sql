@@ -0,0 +1,114 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update, before any of the later migrations.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it.
+
+CREATE TABLE user (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    first_name  VARCHAR(50)  NOT NULL,
+    last_name   VARCHAR(50)  NOT NULL,
+    username    VARCHAR(50)  NOT NULL,
+    email       VARCHAR(100) NOT NULL,
+    password    VARCHAR(255) NOT NULL,
+    phone       VARCHAR(20),
+    address     TEXT,
+    city        VARCHAR(50),
+    postal_code VARCHAR(10),
+    role        ENUM ('ADMIN','CUSTOMER','MANAGER') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_user_username UNIQUE (username),
+    CONSTRAINT uk_user_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE product (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    name         VARCHAR(50)  NOT NULL,
+    category     VARCHAR(50)  NOT NULL,
+    sub_category VARCHAR(50)  NOT NULL,
+    price        FLOAT(53)    NOT NULL,
+    quantity     INTEGER      NOT NULL,
+    description  VARCHAR(100) NOT NULL,
+    image        MEDIUMBLOB,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_product_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE tools (
+    id             BIGINT         NOT NULL AUTO_INCREMENT,
+    name           VARCHAR(255)   NOT NULL,
+    daily_rate     DECIMAL(38, 2) NOT NULL,
+    category       VARCHAR(255)   NOT NULL,
+    available      BIT            NOT NULL,
+    total_stock    INTEGER        NOT NULL,
+    stock_quantity INTEGER        NOT NULL,
+    description    VARCHAR(2000),
+    image          MEDIUMBLOB,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_tools_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE orders (
+    id               BIGINT         NOT NULL AUTO_INCREMENT,
+    user_id          BIGINT         NOT NULL,
+    created_at       DATETIME       NOT NULL,
+    updated_at       DATETIME,
+    status           VARCHAR(255)   NOT NULL,
+    total_amount     DECIMAL(38, 2) NOT NULL,
+    payment_method   VARCHAR(255),
+    payment_status   VARCHAR(255),
+    payment_amount   DECIMAL(38, 2),
+    payment_date     DATETIME,
+    transaction_id   VARCHAR(255),
+    delivery_status  VARCHAR(255),
+    delivery_address VARCHAR(255),
+    delivered_at     DATETIME,
+    order_type       VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES user (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE order_items (
+    id         BIGINT         NOT NULL AUTO_INCREMENT,
+    order_id   BIGINT         NOT NULL,
+    product_id BIGINT,
+    quantity   INTEGER        NOT NULL,
+    unit_price DECIMAL(38, 2) NOT NULL,
+    subtotal   DECIMAL(38, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (id),
+    CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE rental_orders (
+    id         BIGINT         NOT NULL AUTO_INCREMENT,
+    user_id    BIGINT         NOT NULL,
+    tool_id    BIGINT         NOT NULL,
+    order_id   BIGINT,
+    start_date DATE           NOT NULL,
+    end_date   DATE           NOT NULL,
+    quantity   INTEGER        NOT NULL,
+    total_cost DECIMAL(38, 2) NOT NULL,
+    status     ENUM ('ACTIVE','RETURNED') NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE product_cart (
+    user_id    BIGINT   NOT NULL,
+    product_id BIGINT   NOT NULL,
+    quantity   INTEGER  NOT NULL,
+    added_at   DATETIME NOT NULL,
+    PRIMARY KEY (product_id, user_id),
+    CONSTRAINT fk_product_cart_user FOREIGN KEY (user_id) REFERENCES user (id),
+    CONSTRAINT fk_product_cart_product FOREIGN KEY (product_id) REFERENCES product (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE rental_cart (
+    user_id      BIGINT   NOT NULL,
+    tool_id      BIGINT   NOT NULL,
+    quantity     INTEGER  NOT NULL,
+    rental_start DATE,
+    rental_end   DATE,
+    total_cost   DECIMAL(38, 2),
+    added_at     DATETIME NOT NULL,
+    PRIMARY KEY (tool_id, user_id),
+    CONSTRAINT fk_rental_cart_user FOREIGN KEY (user_id) REFERENCES user (id),
+    CONSTRAINT fk_rental_cart_tool FOREIGN KEY (tool_id) REFERENCES tools (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,16 @@
+-- Catalog images live in the content-addressed store (see ImageStorageService); rows keep only the hash.
+-- The old image BLOB columns stay until V9 has moved their contents into the store.
+ALTER TABLE product ADD COLUMN image_hash VARCHAR(64);
+ALTER TABLE tools ADD COLUMN image_hash VARCHAR(64);
+
+-- Keyset-paginated catalog queries (see CatalogQueryService)
+CREATE INDEX idx_product_category_price ON product (category, sub_category, price, id);
+CREATE INDEX idx_product_category_name ON product (category, sub_category, name);
+CREATE INDEX idx_product_price ON product (price, id);
+
+CREATE INDEX idx_tools_category_rate ON tools (category, daily_rate, id);
+CREATE INDEX idx_tools_category_name ON tools (category, name);
+CREATE INDEX idx_tools_rate ON tools (daily_rate, id);
+
+-- Newest-first and keyset-paginated admin order listings
+CREATE INDEX idx_orders_created ON orders (created_at, id);
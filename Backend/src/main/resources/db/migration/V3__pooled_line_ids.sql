@@ -0,0 +1,13 @@
+-- order_items and rental_orders take pooled ids from id_generators so checkout inserts can be batched.
+-- IdGeneratorSeeder moves each generator past the ids AUTO_INCREMENT already handed out.
+CREATE TABLE id_generators (
+    gen_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (gen_name)
+) ENGINE = InnoDB;
+
+INSERT INTO id_generators (gen_name, next_val) VALUES ('order_items', 0);
+INSERT INTO id_generators (gen_name, next_val) VALUES ('rental_orders', 0);
+
+ALTER TABLE order_items MODIFY id BIGINT NOT NULL;
+ALTER TABLE rental_orders MODIFY id BIGINT NOT NULL;
@@ -0,0 +1,30 @@
+-- Position of the last incremental export per dataset (see ExportService)
+CREATE TABLE export_watermarks (
+    dataset     VARCHAR(32) NOT NULL,
+    last_id     BIGINT      NOT NULL,
+    exported_at DATETIME    NOT NULL,
+    PRIMARY KEY (dataset)
+) ENGINE = InnoDB;
+
+-- Pre-aggregated sales and rental figures per day (see AnalyticsService)
+CREATE TABLE daily_rollups (
+    rollup_day    DATE           NOT NULL,
+    dimension     VARCHAR(16)    NOT NULL,
+    dimension_key VARCHAR(100)   NOT NULL,
+    revenue       DECIMAL(14, 2) NOT NULL,
+    units         BIGINT         NOT NULL,
+    rental_days   BIGINT         NOT NULL,
+    order_count   BIGINT         NOT NULL,
+    PRIMARY KEY (rollup_day, dimension, dimension_key)
+) ENGINE = InnoDB;
+
+-- Units of each tool booked per day (see ToolAvailabilityService); filled from rentals by ToolBookingBackfill.
+-- Keyed by tool first so per-tool range reads are primary key range scans
+CREATE TABLE tool_daily_booking (
+    tool_id     BIGINT  NOT NULL,
+    booking_day DATE    NOT NULL,
+    booked      INTEGER NOT NULL,
+    PRIMARY KEY (tool_id, booking_day)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_booking_day_tool ON tool_daily_booking (booking_day, tool_id, booked);
@@ -0,0 +1,15 @@
+-- Indexes for the hot read paths; QueryIndexPlanTest checks that MySQL uses them.
+
+-- RentalOrderRepository.findOverlappingRentals(Excluding): equality on tool_id, range on start_date
+CREATE INDEX idx_rental_orders_tool_dates ON rental_orders (tool_id, start_date, end_date);
+
+-- RentalOrderRepository.findByUserId
+CREATE INDEX idx_rental_orders_user ON rental_orders (user_id);
+
+-- RentalOrderRepository.findByOrderId / findLinesByOrderIds
+CREATE INDEX idx_rental_orders_order ON rental_orders (order_id);
+
+-- OrderRepository.findWithUserByUserId (order history of one user)
+CREATE INDEX idx_orders_user_created ON orders (user_id, created_at);
+
+-- Newest-first order listings (findAllWithUserNewestFirst, admin keyset pages) use idx_orders_created from V2
@@ -0,0 +1,11 @@
+-- Cart holds on product / tool stock (see InventoryReservationService)
+CREATE TABLE inventory_holds (
+    user_id    BIGINT   NOT NULL,
+    item_type  ENUM ('PRODUCT','TOOL') NOT NULL,
+    item_id    BIGINT   NOT NULL,
+    quantity   INTEGER  NOT NULL,
+    expires_at DATETIME NOT NULL,
+    PRIMARY KEY (user_id, item_type, item_id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_inventory_holds_expires ON inventory_holds (expires_at);
@@ -0,0 +1,6 @@
+-- Optimistic lock versions (@Version) of the aggregates edited by read-modify-write paths.
+-- Existing rows start at 0; the stock UPDATEs in ProductRepository / ToolRepository bump them too.
+ALTER TABLE product ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tools ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rental_orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- Content-addressed image store (see ImageStorageService): originals under variant '' and their
+-- resized variants, keyed by the SHA-256 of the original. Kept in the database rather than on the
+-- container filesystem, which a redeploy replaces. Runs before V9 moves the legacy BLOBs in here.
+CREATE TABLE images (
+    hash    CHAR(64)    NOT NULL,
+    variant VARCHAR(16) NOT NULL,
+    content MEDIUMBLOB  NOT NULL,
+    PRIMARY KEY (hash, variant)
+) ENGINE = InnoDB;
@@ -0,0 +1,3 @@
+-- Orders awaiting payment are swept by status and age (PaymentOrchestrator); without this the
+-- sweep would range-scan every order older than the cutoff.
+CREATE INDEX idx_orders_status_created ON orders (status, created_at);
@@ -0,0 +1,57 @@
+package com.SRVK.Hardware.config;
+
+import com.SRVK.Hardware.entity.User;
+import com.SRVK.Hardware.service.RateLimitService;
+import com.SRVK.Hardware.service.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitInterceptorTest {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    // Two calls a minute for every policy
+    private final RateLimitInterceptor interceptor = new RateLimitInterceptor(new RateLimitService(
+            2, MINUTE, 2, MINUTE, 2, MINUTE, 2, MINUTE, 2, MINUTE, 2, MINUTE));
+
+    static class Endpoints {
+        @RateLimited(value = RateLimitService.CREDENTIALS_CLIENT, byAddress = true)
+        public void login() {
+        }
+
+        @RateLimited(RateLimitService.CART)
+        public void cart() {
+        }
+    }
+
+    @Test
+    void credentialLimitIgnoresTheCallersToken() throws Exception {
+        assertThat(call("login", 1)).isTrue();
+        assertThat(call("login", 2)).isTrue();
+        // A third account's token from the same address gets no fresh bucket
+        assertThat(call("login", 3)).isFalse();
+    }
+
+    @Test
+    void otherLimitsCountPerUser() throws Exception {
+        assertThat(call("cart", 1)).isTrue();
+        assertThat(call("cart", 1)).isTrue();
+        assertThat(call("cart", 1)).isFalse();
+        assertThat(call("cart", 2)).isTrue();
+    }
+
+    private boolean call(String method, long userId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        request.setAttribute(JwtAuthenticationFilter.PRINCIPAL,
+                new TokenService.Principal(userId, "user" + userId, User.UserRole.CUSTOMER));
+        HandlerMethod handler = new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(method));
+        return interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+    }
+}
@@ -0,0 +1,75 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.config.JwtAuthenticationFilter;
+import com.SRVK.Hardware.dto.CartResponseDTO;
+import com.SRVK.Hardware.entity.User;
+import com.SRVK.Hardware.repository.ToolRepository;
+import com.SRVK.Hardware.service.CartService;
+import com.SRVK.Hardware.service.CheckoutService;
+import com.SRVK.Hardware.service.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CartControllerTest {
+
+    private static final TokenService.Principal USER_1 = new TokenService.Principal(1, "one", User.UserRole.CUSTOMER);
+    private static final TokenService.Principal ADMIN = new TokenService.Principal(9, "admin", User.UserRole.ADMIN);
+
+    private final CartService cartService = mock(CartService.class);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(
+            new CartController(cartService, mock(CheckoutService.class), mock(ToolRepository.class))).build();
+
+    @Test
+    void cartWithoutATokenIsUnauthorized() throws Exception {
+        mvc.perform(get("/api/cart/{userId}", 1)).andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/cart/product/add")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":1,\"productId\":3,\"quantity\":1}"))
+                .andExpect(status().isUnauthorized());
+
+        verify(cartService, never()).getCartByUser(anyLong(), anyBoolean());
+        verify(cartService, never()).addProductToCart(any());
+    }
+
+    @Test
+    void anotherUsersCartIsForbidden() throws Exception {
+        mvc.perform(get("/api/cart/{userId}", 2).requestAttr(JwtAuthenticationFilter.PRINCIPAL, USER_1))
+                .andExpect(status().isForbidden());
+        mvc.perform(delete("/api/cart/product/{userId}/{productId}", 2, 3)
+                        .requestAttr(JwtAuthenticationFilter.PRINCIPAL, USER_1))
+                .andExpect(status().isForbidden());
+
+        verify(cartService, never()).removeProductFromCart(anyLong(), anyLong());
+    }
+
+    @Test
+    void ownCartSkipsTheUserLookup() throws Exception {
+        when(cartService.getCartByUser(1L, false)).thenReturn(new CartResponseDTO());
+
+        mvc.perform(get("/api/cart/{userId}", 1).requestAttr(JwtAuthenticationFilter.PRINCIPAL, USER_1))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void adminMayOpenAnyCartAfterTheUserIsLookedUp() throws Exception {
+        when(cartService.getCartByUser(eq(2L), eq(true))).thenReturn(new CartResponseDTO());
+
+        mvc.perform(get("/api/cart/{userId}", 2).requestAttr(JwtAuthenticationFilter.PRINCIPAL, ADMIN))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,144 @@
+package com.SRVK.Hardware.controller;
+
+import com.SRVK.Hardware.entity.Product;
+import com.SRVK.Hardware.repository.ProductRepository;
+import com.SRVK.Hardware.service.CatalogCacheService;
+import com.SRVK.Hardware.service.CatalogQueryService;
+import com.SRVK.Hardware.service.CatalogSearchService;
+import com.SRVK.Hardware.service.ImageStorageService;
+import com.SRVK.Hardware.service.ImageVariantService;
+import com.SRVK.Hardware.service.OptimisticRetryExecutor;
+import com.SRVK.Hardware.service.ProductService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductControllerTest {
+
+    private static final long ID = 1;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CatalogCacheService catalogCacheService = new CatalogCacheService(productRepository, null,
+            100, Duration.ofMinutes(10), Duration.ofMinutes(10));
+    // Version of the stored product; a sale or an edit moves it on
+    private final AtomicLong version = new AtomicLong(3);
+    private final ImageVariantService imageVariantService = mock(ImageVariantService.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        OptimisticRetryExecutor retryExecutor = mock(OptimisticRetryExecutor.class);
+        when(retryExecutor.execute(anyString(), any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(1).get());
+        when(productRepository.findById(ID)).thenAnswer(inv -> Optional.of(stored()));
+        when(productRepository.findStockLevelById(ID)).thenAnswer(inv -> Optional.of(new ProductRepository.StockLevel() {
+            public Integer getQuantity() {
+                return 10;
+            }
+
+            public Long getVersion() {
+                return version.get();
+            }
+        }));
+        when(productRepository.save(any(Product.class))).thenAnswer(inv -> {
+            Product p = inv.getArgument(0);
+            p.setVersion(version.incrementAndGet());
+            return p;
+        });
+        ProductService productService = new ProductService(productRepository, mock(CatalogSearchService.class),
+                catalogCacheService, retryExecutor);
+        mvc = MockMvcBuilders.standaloneSetup(new ProductController(productService, mock(ImageStorageService.class),
+                imageVariantService, mock(CatalogQueryService.class))).build();
+    }
+
+    @Test
+    void productReadFromTheApiCanBeSavedWithItsVersion() throws Exception {
+        long shown = getVersion();
+        assertThat(shown).isEqualTo(3);
+
+        put(shown, status().isOk());
+    }
+
+    @Test
+    void versionFollowsStockUpdatesOfACachedProduct() throws Exception {
+        getVersion();
+        // A checkout takes stock with a conditional UPDATE, which bumps the version
+        version.incrementAndGet();
+        catalogCacheService.invalidateProductStockAfterCommit(ID);
+
+        long shown = getVersion();
+        assertThat(shown).isEqualTo(4);
+        put(shown, status().isOk());
+        put(shown, status().isConflict());
+    }
+
+    @Test
+    void oversizedImageIsABadRequest() throws Exception {
+        doThrow(new IllegalArgumentException("Image dimensions 20000x20000 exceed the limit"))
+                .when(imageVariantService).checkDimensions(any());
+        MockMultipartFile image = new MockMultipartFile("image", "big.png", "image/png", new byte[]{1, 2, 3});
+
+        mvc.perform(multipart("/api/products")
+                        .file(image)
+                        .param("name", "Saw")
+                        .param("category", "Tools")
+                        .param("subCategory", "Hand tools")
+                        .param("price", "9.5")
+                        .param("quantity", "4")
+                        .param("description", "Hand saw"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long getVersion() throws Exception {
+        String body = mvc.perform(get("/api/products/{id}", ID)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) JsonPath.read(body, "$.version")).longValue();
+    }
+
+    private void put(long shownVersion, ResultMatcher expected) throws Exception {
+        mvc.perform(multipart("/api/products/{id}", ID)
+                        .param("name", "Hammer")
+                        .param("category", "Tools")
+                        .param("subCategory", "Hand tools")
+                        .param("price", "12.5")
+                        .param("quantity", "10")
+                        .param("description", "Claw hammer")
+                        .param("version", String.valueOf(shownVersion))
+                        .with(request -> {
+                            request.setMethod("PUT");
+                            return request;
+                        }))
+                .andExpect(expected);
+    }
+
+    private Product stored() {
+        return Product.builder()
+                .id(ID)
+                .version(version.get())
+                .name("Hammer")
+                .quantity(10)
+                .category("Tools")
+                .subCategory("Hand tools")
+                .description("Claw hammer")
+                .price(12.5)
+                .build();
+    }
+}
@@ -0,0 +1,351 @@
+package com.SRVK.Hardware.repository;
+
+import com.SRVK.Hardware.dto.AdminOrderQuery;
+import com.SRVK.Hardware.dto.CatalogQuery;
+import com.SRVK.Hardware.entity.Order;
+import com.SRVK.Hardware.service.CatalogQueryService;
+import com.SRVK.Hardware.service.OrderHistoryService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the hot read paths (repository queries and the keyset listings) through Hibernate against a
+ * MySQL schema built by the Flyway migrations, then EXPLAINs the SQL they actually sent, with the
+ * same parameters, and checks each one is served by its index instead of a full table scan.
+ * Only runs when EXPLAIN_DB_URL points at a throwaway MySQL database (it is cleaned first), e.g.
+ * EXPLAIN_DB_URL=jdbc:mysql://localhost:3306/hardware_plan_test?createDatabaseIfNotExist=true
+ * EXPLAIN_DB_USER=root EXPLAIN_DB_PASSWORD= mvn test -Dtest=QueryIndexPlanTest
+ */
+@EnabledIfEnvironmentVariable(named = "EXPLAIN_DB_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryIndexPlanTest {
+
+    private static final int USERS = 200;
+    private static final int TOOLS = 500;
+    private static final int PRODUCTS = 5000;
+    private static final int ORDERS = 20000;
+    private static final int RENTALS = 20000;
+    private static final LocalDate BASE_DAY = LocalDate.of(2025, 1, 1);
+
+    private Connection connection;
+    private EntityManagerFactory entityManagerFactory;
+    // Statements Hibernate executed, in order
+    private final List<Sent> sent = new CopyOnWriteArrayList<>();
+
+    private RentalOrderRepository rentalOrderRepository;
+    private OrderRepository orderRepository;
+    private ToolDailyBookingRepository toolDailyBookingRepository;
+    private OrderHistoryService orderHistoryService;
+    private CatalogQueryService catalogQueryService;
+
+    @BeforeAll
+    void migrateAndSeed() throws SQLException {
+        String url = System.getenv("EXPLAIN_DB_URL");
+        String user = System.getenv().getOrDefault("EXPLAIN_DB_USER", "root");
+        String password = System.getenv().getOrDefault("EXPLAIN_DB_PASSWORD", "");
+
+        Flyway flyway = Flyway.configure().dataSource(url, user, password).cleanDisabled(false).load();
+        flyway.clean();
+        flyway.migrate();
+
+        connection = DriverManager.getConnection(url, user, password);
+        connection.setAutoCommit(false);
+        seed();
+        connection.commit();
+        try (Statement st = connection.createStatement()) {
+            st.execute("ANALYZE TABLE user, product, tools, orders, rental_orders, tool_daily_booking");
+        }
+
+        entityManagerFactory = entityManagerFactory(recording(new DriverManagerDataSource(url, user, password)));
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        JpaRepositoryFactory repositories = new JpaRepositoryFactory(entityManager);
+        rentalOrderRepository = repositories.getRepository(RentalOrderRepository.class);
+        orderRepository = repositories.getRepository(OrderRepository.class);
+        toolDailyBookingRepository = repositories.getRepository(ToolDailyBookingRepository.class);
+        orderHistoryService = new OrderHistoryService(entityManager, orderRepository,
+                repositories.getRepository(OrderItemRepository.class), rentalOrderRepository);
+        catalogQueryService = new CatalogQueryService(entityManager);
+    }
+
+    @AfterAll
+    void close() throws SQLException {
+        if (entityManagerFactory != null) entityManagerFactory.close();
+        if (connection != null) connection.close();
+    }
+
+    @Test
+    void overlappingRentalsUseToolDateIndex() throws Exception {
+        Sent sql = first(() -> rentalOrderRepository.findOverlappingRentals(7L, day(30), day(40)));
+        assertIndexed(explain("rental_orders", sql), "idx_rental_orders_tool_dates");
+    }
+
+    @Test
+    void rentalsByUserUseUserIndex() throws Exception {
+        Sent sql = first(() -> rentalOrderRepository.findByUserId(11L));
+        assertIndexed(explain("rental_orders", sql), "idx_rental_orders_user");
+    }
+
+    @Test
+    void ordersByUserUseUserIndex() throws Exception {
+        Sent sql = first(() -> orderRepository.findWithUserByUserId(11L));
+        assertIndexed(explain("orders", sql), "idx_orders_user_created");
+    }
+
+    @Test
+    void newestOrdersReadCreatedIndexWithoutSort() throws Exception {
+        // First admin page
+        Sent sql = first(() -> orderHistoryService.findOrders(new AdminOrderQuery()));
+        Map<String, String> plan = explain("orders", sql);
+        assertThat(plan.get("key")).as("index used, plan %s", plan).isEqualTo("idx_orders_created");
+        assertThat(plan.get("Extra")).doesNotContain("filesort");
+    }
+
+    @Test
+    void orderPageAfterCursorIsRangeScan() throws Exception {
+        AdminOrderQuery query = new AdminOrderQuery();
+        query.setCursor(orderHistoryService.findOrders(query).getNextCursor());
+        Sent sql = first(() -> orderHistoryService.findOrders(query));
+        Map<String, String> plan = explain("orders", sql);
+        assertIndexed(plan, "idx_orders_created");
+        assertThat(plan.get("Extra")).doesNotContain("filesort");
+    }
+
+    @Test
+    void categoryPageByPriceReadsIndexWithoutSort() throws Exception {
+        // Category filter only, sorted by price, after a cursor
+        CatalogQuery query = new CatalogQuery();
+        query.setCategory("category3");
+        query.setSort("price");
+        query.setSize(20);
+        query.setCursor(catalogQueryService.findProducts(query).getNextCursor());
+        Sent sql = first(() -> catalogQueryService.findProducts(query));
+        Map<String, String> plan = explain("product", sql);
+        assertIndexed(plan, "idx_product_category_only_price");
+        assertThat(plan.get("Extra")).doesNotContain("filesort");
+    }
+
+    @Test
+    void bookingWindowAggregateUsesDayIndex() throws Exception {
+        Sent sql = first(() -> toolDailyBookingRepository.findPeaks(null, day(30), day(36)));
+        assertIndexed(explain("tool_daily_booking", sql), "idx_booking_day_tool");
+    }
+
+    // Index lookup (ref) or index range scan, never a full table scan
+    private static void assertIndexed(Map<String, String> plan, String index) {
+        assertThat(plan.get("key")).as("index used, plan %s", plan).isEqualTo(index);
+        assertThat(plan.get("type")).as("access type, plan %s", plan).isIn("ref", "range", "eq_ref", "const");
+    }
+
+    // First statement the call sent through Hibernate, with its parameters
+    private Sent first(Runnable call) {
+        sent.clear();
+        call.run();
+        assertThat(sent).as("statements sent").isNotEmpty();
+        return sent.get(0);
+    }
+
+    // Row of the traditional EXPLAIN output for the given table, re-running the statement's parameter setters
+    private Map<String, String> explain(String table, Sent statement) throws Exception {
+        Matcher alias = Pattern.compile("(?i)\\b(?:from|join)\\s+`?" + table + "`?\\s+(\\w+)").matcher(statement.sql());
+        assertThat(alias.find()).as("%s in %s", table, statement.sql()).isTrue();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            for (Bind bind : statement.binds()) {
+                bind.setter().invoke(ps, bind.args());
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (alias.group(1).equals(rs.getString("table"))) {
+                        Map<String, String> row = new HashMap<>();
+                        for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                            row.put(rs.getMetaData().getColumnLabel(i), rs.getString(i));
+                        }
+                        return row;
+                    }
+                }
+            }
+            throw new AssertionError("No plan row for table " + table + " in EXPLAIN " + statement.sql());
+        }
+    }
+
+    // Entity manager over the test database, with the naming strategies Spring Boot applies
+    private EntityManagerFactory entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(Order.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName(),
+                "hibernate.jdbc.time_zone", "UTC"));
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+
+    // Data source whose prepared statements record their SQL and parameters when executed
+    private DataSource recording(DataSource dataSource) {
+        return proxy(DataSource.class, (method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return result instanceof Connection c ? recording(c) : result;
+        });
+    }
+
+    private Connection recording(Connection connection) {
+        return proxy(Connection.class, (method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement ps) {
+                return recording(ps, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement recording(PreparedStatement statement, String sql) {
+        List<Bind> binds = new ArrayList<>();
+        return proxy(PreparedStatement.class, (method, args) -> {
+            if (method.getName().startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer) {
+                binds.add(new Bind(method, args));
+            } else if (method.getName().equals("executeQuery") && args == null) {
+                sent.add(new Sent(sql, List.copyOf(binds)));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method, args)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record Bind(Method setter, Object[] args) {
+    }
+
+    private record Sent(String sql, List<Bind> binds) {
+    }
+
+    private void seed() throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO user (id, first_name, last_name, username, " +
+                "email, password, role) VALUES (?, 'F', 'L', ?, ?, 'x', 'CUSTOMER')")) {
+            for (long id = 1; id <= USERS; id++) {
+                ps.setLong(1, id);
+                ps.setString(2, "user" + id);
+                ps.setString(3, "user" + id + "@example.com");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO product (id, name, category, sub_category, " +
+                "price, quantity, description) VALUES (?, ?, ?, ?, ?, 10, 'd')")) {
+            for (long id = 1; id <= PRODUCTS; id++) {
+                long category = id % 10;
+                ps.setLong(1, id);
+                ps.setString(2, "product" + id);
+                ps.setString(3, "category" + category);
+                ps.setString(4, "sub" + category + "-" + id % 5);
+                ps.setDouble(5, id % 100);
+                ps.addBatch();
+                if (id % 1000 == 0) ps.executeBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO tools (id, name, daily_rate, category, " +
+                "available, total_stock, stock_quantity) VALUES (?, ?, 10, ?, 1, 5, 5)")) {
+            for (long id = 1; id <= TOOLS; id++) {
+                ps.setLong(1, id);
+                ps.setString(2, "tool" + id);
+                ps.setString(3, "category" + (id % 10));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO orders (id, user_id, created_at, status, " +
+                "total_amount) VALUES (?, ?, ?, 'PAID', 10)")) {
+            for (long id = 1; id <= ORDERS; id++) {
+                ps.setLong(1, id);
+                ps.setLong(2, id % USERS + 1);
+                ps.setTimestamp(3, Timestamp.valueOf(BASE_DAY.atStartOfDay().plusMinutes(id * 17)));
+                ps.addBatch();
+                if (id % 1000 == 0) ps.executeBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement rental = connection.prepareStatement("INSERT INTO rental_orders (id, user_id, tool_id, " +
+                "order_id, start_date, end_date, quantity, total_cost, status) VALUES (?, ?, ?, ?, ?, ?, 1, 10, 'ACTIVE')");
+             PreparedStatement booking = connection.prepareStatement("INSERT INTO tool_daily_booking (tool_id, " +
+                "booking_day, booked) VALUES (?, ?, 1) ON DUPLICATE KEY UPDATE booked = booked + 1")) {
+            for (long id = 1; id <= RENTALS; id++) {
+                long toolId = id % TOOLS + 1;
+                LocalDate start = BASE_DAY.plusDays(id % 365);
+                LocalDate end = start.plusDays(id % 5);
+                rental.setLong(1, id);
+                rental.setLong(2, id % USERS + 1);
+                rental.setLong(3, toolId);
+                rental.setLong(4, id);
+                rental.setDate(5, Date.valueOf(start));
+                rental.setDate(6, Date.valueOf(end));
+                rental.addBatch();
+                for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+                    booking.setLong(1, toolId);
+                    booking.setDate(2, Date.valueOf(d));
+                    booking.addBatch();
+                }
+                if (id % 1000 == 0) {
+                    rental.executeBatch();
+                    booking.executeBatch();
+                }
+            }
+            rental.executeBatch();
+            booking.executeBatch();
+        }
+    }
+
+    private static LocalDate day(int offset) {
+        return BASE_DAY.plusDays(offset);
+    }
+}
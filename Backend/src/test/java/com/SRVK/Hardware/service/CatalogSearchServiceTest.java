@@ -0,0 +1,38 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.dto.SearchHitDTO;
+import com.SRVK.Hardware.entity.Product;
+import com.SRVK.Hardware.repository.ProductRepository;
+import com.SRVK.Hardware.repository.ToolRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CatalogSearchServiceTest {
+
+    private final CatalogSearchService service = new CatalogSearchService(mock(ProductRepository.class),
+            mock(ToolRepository.class));
+
+    @BeforeEach
+    void setUp() {
+        service.indexProduct(Product.builder().id(1L).name("Screwdriver set").category("Tools")
+                .subCategory("Hand tools").description("Six pieces").price(20).build());
+    }
+
+    @Test
+    void termOneTypoAwayMatches() {
+        assertThat(service.search("scrwdriver", 10)).extracting(SearchHitDTO::getId).containsExactly(1L);
+    }
+
+    @Test
+    void longTermTwoTyposAwayDoesNotMatch() {
+        assertThat(service.search("scrwdrivr", 10)).isEmpty();
+    }
+
+    @Test
+    void prefixMatches() {
+        assertThat(service.search("screw", 10)).extracting(SearchHitDTO::getId).containsExactly(1L);
+    }
+}
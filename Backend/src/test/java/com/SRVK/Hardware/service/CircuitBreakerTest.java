@@ -0,0 +1,124 @@
+package com.SRVK.Hardware.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 1000;
+    private static final long T0 = 50_000;
+
+    // Window of 4 outcomes, judged from 4 on, opens at 50% failures
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, OPEN_MILLIS);
+
+    @Test
+    void staysClosedUntilMinimumCallsAreRecorded() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(breaker.tryAcquire(T0)).isTrue();
+            breaker.onFailure(T0);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.isAccepting(T0)).isTrue();
+    }
+
+    @Test
+    void opensWhenTheFailureRateReachesTheThreshold() {
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure(T0);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.onFailure(T0);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getTimesOpened()).isEqualTo(1);
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        breaker.onFailure(T0);
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        // The first failure drops out: still one failure in four
+        breaker.onFailure(T0);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isEqualTo(0.25);
+
+        breaker.onFailure(T0);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void refusesCallsWhileOpen() {
+        open(T0);
+
+        assertThat(breaker.tryAcquire(T0 + OPEN_MILLIS - 1)).isFalse();
+        assertThat(breaker.isAccepting(T0 + OPEN_MILLIS - 1)).isFalse();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void letsOneTrialThroughOnceTheOpenPeriodIsOver() {
+        open(T0);
+        long due = T0 + OPEN_MILLIS;
+        // Due for a trial, without moving to half open by asking
+        assertThat(breaker.isAccepting(due)).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThat(breaker.tryAcquire(due)).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // The trial is in flight: nothing else passes, and checkout should refuse card orders
+        assertThat(breaker.tryAcquire(due)).isFalse();
+        assertThat(breaker.isAccepting(due)).isFalse();
+    }
+
+    @Test
+    void successfulTrialClosesWithAFreshWindow() {
+        open(T0);
+        assertThat(breaker.tryAcquire(T0 + OPEN_MILLIS)).isTrue();
+
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+        assertThat(breaker.isAccepting(T0 + OPEN_MILLIS)).isTrue();
+    }
+
+    @Test
+    void failedTrialOpensAgainForAnotherPeriod() {
+        open(T0);
+        long trial = T0 + OPEN_MILLIS;
+        assertThat(breaker.tryAcquire(trial)).isTrue();
+
+        breaker.onFailure(trial);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getTimesOpened()).isEqualTo(2);
+        assertThat(breaker.isAccepting(trial + OPEN_MILLIS - 1)).isFalse();
+        assertThat(breaker.isAccepting(trial + OPEN_MILLIS)).isTrue();
+    }
+
+    @Test
+    void cancelledTrialFreesTheSlot() {
+        open(T0);
+        long trial = T0 + OPEN_MILLIS;
+        assertThat(breaker.tryAcquire(trial)).isTrue();
+
+        breaker.onCancelled();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.isAccepting(trial)).isTrue();
+        assertThat(breaker.tryAcquire(trial)).isTrue();
+    }
+
+    private void open(long now) {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(now);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,60 @@
+package com.SRVK.Hardware.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageStorageServiceTest {
+
+    // SHA-256 of "abc"
+    private static final String ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ImageStorageService service = new ImageStorageService(jdbcTemplate, 10, 1024);
+
+    @Test
+    void imageIsStoredUnderItsContentHash() {
+        assertThat(service.store("abc".getBytes())).isEqualTo(ABC);
+
+        verify(jdbcTemplate).update(anyString(), eq(ABC), eq(""), any(byte[].class));
+    }
+
+    @Test
+    void uploadOverTheSizeLimitIsRefused() {
+        assertThatThrownBy(() -> service.store(new byte[11])).isInstanceOf(IllegalArgumentException.class);
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void servedImageIsReadFromTheDatabaseOnce() throws Exception {
+        when(jdbcTemplate.queryForList(anyString(), eq(byte[].class), eq(ABC), eq(""))).thenReturn(List.of("abc".getBytes()));
+
+        assertThat(service.load(ABC).orElseThrow().getContentAsByteArray()).isEqualTo("abc".getBytes());
+        assertThat(service.load(ABC)).isPresent();
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(byte[].class), eq(ABC), eq(""));
+    }
+
+    @Test
+    void missingVariantIsLookedUpAgain() {
+        when(jdbcTemplate.queryForList(anyString(), eq(byte[].class), eq(ABC), eq("thumb"))).thenReturn(List.of());
+
+        assertThat(service.loadVariant(ABC, "thumb")).isEmpty();
+        assertThat(service.loadVariant(ABC, "thumb")).isEmpty();
+
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(byte[].class), eq(ABC), eq("thumb"));
+    }
+}
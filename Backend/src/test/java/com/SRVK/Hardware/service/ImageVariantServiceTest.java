@@ -0,0 +1,40 @@
+package com.SRVK.Hardware.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageVariantServiceTest {
+
+    // At most 100 x 100
+    private final ImageVariantService service = new ImageVariantService(null, null, 10_000);
+
+    @Test
+    void imageWithinThePixelLimitIsAccepted() throws IOException {
+        assertThatCode(() -> service.checkDimensions(png(100, 100))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void imageOverThePixelLimitIsRefusedFromItsHeader() throws IOException {
+        assertThatThrownBy(() -> service.checkDimensions(png(200, 51)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("200x51");
+    }
+
+    @Test
+    void bytesThatAreNotAnImagePass() {
+        assertThatCode(() -> service.checkDimensions(new byte[]{1, 2, 3})).doesNotThrowAnyException();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
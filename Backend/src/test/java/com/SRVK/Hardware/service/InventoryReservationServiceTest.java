@@ -0,0 +1,99 @@
+package com.SRVK.Hardware.service;
+
+import com.SRVK.Hardware.entity.InventoryHold.ItemType;
+import com.SRVK.Hardware.repository.InventoryHoldRepository;
+import com.SRVK.Hardware.repository.ProductRepository;
+import com.SRVK.Hardware.repository.ToolRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class InventoryReservationServiceTest {
+
+    private static final long TOOL = 7;
+    private static final LocalDate MARCH_1 = LocalDate.of(2026, 3, 1);
+    private static final LocalDate JUNE_1 = LocalDate.of(2026, 6, 1);
+
+    private final InventoryHoldRepository holdRepository = mock(InventoryHoldRepository.class);
+    private final InventoryReservationService service = new InventoryReservationService(holdRepository,
+            mock(ProductRepository.class), mock(ToolRepository.class), Duration.ofMinutes(15));
+
+    @Test
+    void rentalsOnSeparateDaysShareASingleUnitTool() {
+        service.reserveRental(1L, TOOL, 1, 1, MARCH_1, MARCH_1.plusDays(2));
+
+        assertThat(service.reserveRental(2L, TOOL, 1, 1, JUNE_1, JUNE_1.plusDays(2))).isZero();
+    }
+
+    @Test
+    void rentalOverlappingAnotherCartsHoldIsRefused() {
+        service.reserveRental(1L, TOOL, 1, 1, MARCH_1, MARCH_1.plusDays(2));
+
+        assertThatThrownBy(() -> service.reserveRental(2L, TOOL, 1, 1, MARCH_1.plusDays(2), MARCH_1.plusDays(4)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient stock");
+    }
+
+    @Test
+    void holdsOnDifferentDaysOfTheRangeCountByBusiestDay() {
+        service.reserveRental(1L, TOOL, 1, 2, MARCH_1, MARCH_1.plusDays(1));
+        service.reserveRental(2L, TOOL, 1, 2, MARCH_1.plusDays(3), MARCH_1.plusDays(4));
+
+        // Never more than one unit held on the same day, so one of two units is left
+        assertThat(service.reserveRental(3L, TOOL, 1, 2, MARCH_1, MARCH_1.plusDays(4))).isZero();
+    }
+
+    @Test
+    void movingOwnRentalDoesNotCountItsOldHold() {
+        service.reserveRental(1L, TOOL, 1, 1, MARCH_1, MARCH_1.plusDays(2));
+
+        assertThat(service.reserveRental(1L, TOOL, 1, 1, MARCH_1.plusDays(1), MARCH_1.plusDays(3))).isZero();
+        assertThat(service.reserveRental(2L, TOOL, 1, 1, MARCH_1, MARCH_1)).isZero();
+    }
+
+    @Test
+    void productHoldsCountWhateverTheirDates() {
+        service.reserve(1L, ItemType.PRODUCT, 3L, 2, 5);
+
+        assertThat(service.reserve(2L, ItemType.PRODUCT, 3L, 3, 5)).isZero();
+        assertThat(service.heldQuantity(ItemType.PRODUCT, 3L)).isEqualTo(5);
+    }
+
+    @Test
+    void failedRowWriteUndoesTheHold() {
+        doThrow(new IllegalStateException("db down")).when(holdRepository)
+                .upsert(eq(1L), anyString(), anyLong(), anyInt(), any(), any(), any());
+
+        assertThatThrownBy(() -> service.reserve(1L, ItemType.PRODUCT, 3L, 2, 5)).isInstanceOf(IllegalStateException.class);
+        assertThat(service.heldQuantity(ItemType.PRODUCT, 3L)).isZero();
+    }
+
+    @Test
+    void rowWriteRunsWithoutTheStripeLock() throws Exception {
+        // While user 1's row write waits (e.g. on a row lock), another cart can still hold the same item
+        CompletableFuture<Integer> other = new CompletableFuture<>();
+        doAnswer(inv -> {
+            CompletableFuture.runAsync(() -> other.complete(service.reserve(2L, ItemType.PRODUCT, 3L, 1, 5)));
+            other.get(5, TimeUnit.SECONDS);
+            return null;
+        }).when(holdRepository).upsert(eq(1L), anyString(), anyLong(), anyInt(), any(), any(), any());
+
+        service.reserve(1L, ItemType.PRODUCT, 3L, 2, 5);
+
+        assertThat(other.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,89 @@
+package com.SRVK.Hardware.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowRateLimiterTest {
+
+    private static final long WINDOW = 1000;
+    // Start of a fixed window
+    private static final long T0 = 10_000;
+
+    @Test
+    void allowsUpToTheLimitWithinAWindow() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, WINDOW);
+
+        assertThat(limiter.tryAcquire("a", T0)).isZero();
+        assertThat(limiter.tryAcquire("a", T0 + 100)).isZero();
+        assertThat(limiter.tryAcquire("a", T0 + 200)).isZero();
+        // Nothing from a previous window, so only the next window clears it
+        assertThat(limiter.tryAcquire("a", T0 + 300)).isEqualTo(WINDOW - 300);
+    }
+
+    @Test
+    void rejectedCallsAreNotCounted() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1, WINDOW);
+
+        assertThat(limiter.tryAcquire("a", T0)).isZero();
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire("a", T0 + i)).isPositive();
+        }
+        // The next window only carries the one allowed call, weighted by its remaining overlap
+        assertThat(limiter.tryAcquire("a", T0 + WINDOW + WINDOW / 2)).isZero();
+    }
+
+    @Test
+    void keysAreLimitedIndependently() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1, WINDOW);
+
+        assertThat(limiter.tryAcquire("a", T0)).isZero();
+        assertThat(limiter.tryAcquire("b", T0)).isZero();
+        assertThat(limiter.tryAcquire("a", T0)).isPositive();
+        assertThat(limiter.size()).isEqualTo(2);
+    }
+
+    @Test
+    void previousWindowCountsByItsRemainingOverlap() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(4, WINDOW);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire("a", T0)).isZero();
+        }
+
+        // Halfway into the next window the previous 4 calls count as 2
+        long now = T0 + WINDOW + WINDOW / 2;
+        assertThat(limiter.tryAcquire("a", now)).isZero();
+        assertThat(limiter.tryAcquire("a", now)).isZero();
+        long wait = limiter.tryAcquire("a", now);
+        // Shorter than the rest of the window, as the previous window's weight keeps shrinking
+        assertThat(wait).isBetween(1L, WINDOW / 2 - 1);
+
+        assertThat(limiter.tryAcquire("a", now + wait)).isZero();
+    }
+
+    @Test
+    void windowsOlderThanThePreviousOneAreForgotten() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, WINDOW);
+        limiter.tryAcquire("a", T0);
+        limiter.tryAcquire("a", T0);
+
+        long now = T0 + 2 * WINDOW + 100;
+        assertThat(limiter.tryAcquire("a", now)).isZero();
+        assertThat(limiter.tryAcquire("a", now)).isZero();
+        assertThat(limiter.tryAcquire("a", now)).isEqualTo(WINDOW - 100);
+    }
+
+    @Test
+    void evictsKeysIdleForTwoWindows() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(2, WINDOW);
+        limiter.tryAcquire("idle", T0);
+        limiter.tryAcquire("busy", T0);
+        limiter.tryAcquire("busy", T0 + WINDOW);
+
+        assertThat(limiter.evictIdle(T0 + 2 * WINDOW - 1)).isZero();
+        assertThat(limiter.evictIdle(T0 + 2 * WINDOW)).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+        // An evicted key starts over
+        assertThat(limiter.tryAcquire("idle", T0 + 2 * WINDOW)).isZero();
+    }
+}
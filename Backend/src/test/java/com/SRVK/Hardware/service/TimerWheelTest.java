@@ -0,0 +1,83 @@
+package com.SRVK.Hardware.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    private static final long TICK = 1000;
+    private static final int SLOTS = 8;
+    private static final long START = 1_000_000;
+
+    private final TimerWheel<String> wheel = new TimerWheel<>(TICK, SLOTS, START);
+
+    @Test
+    void entryFiresOnceItsDeadlineHasPassed() {
+        wheel.schedule("a", START + 2500);
+
+        assertThat(wheel.advance(START + 2000)).isEmpty();
+        assertThat(wheel.advance(START + 2999)).isEmpty();
+        assertThat(wheel.advance(START + 3000)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void entryNeverFiresBeforeItsDeadline() {
+        // A deadline just past a tick boundary rounds up to the next tick
+        wheel.schedule("a", START + 1001);
+
+        assertThat(wheel.advance(START + 1001)).isEmpty();
+        assertThat(wheel.advance(START + 2000)).containsExactly("a");
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        wheel.schedule("a", START - 5000);
+
+        assertThat(wheel.advance(START + 999)).isEmpty();
+        assertThat(wheel.advance(START + 1000)).containsExactly("a");
+    }
+
+    @Test
+    void deadlineBeyondOneRevolutionWaitsForItsOwnTick() {
+        // Lands in the same slot as START + 2000 one revolution later
+        wheel.schedule("far", START + (SLOTS + 2) * TICK);
+        wheel.schedule("near", START + 2 * TICK);
+
+        assertThat(wheel.advance(START + 2 * TICK)).containsExactly("near");
+        assertThat(wheel.advance(START + (SLOTS + 1) * TICK)).isEmpty();
+        assertThat(wheel.advance(START + (SLOTS + 2) * TICK)).containsExactly("far");
+    }
+
+    @Test
+    void fallingBehindByMoreThanARevolutionCollectsOnlyDueEntries() {
+        wheel.schedule("a", START + TICK);
+        wheel.schedule("b", START + 5 * TICK);
+        wheel.schedule("later", START + 30 * TICK);
+
+        assertThat(wheel.advance(START + 20 * TICK)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(START + 30 * TICK)).containsExactly("later");
+    }
+
+    @Test
+    void renewedKeyKeepsEveryEntry() {
+        // Entries are not cancelled: the owner decides on expiry which deadline still applies
+        wheel.schedule("a", START + TICK);
+        wheel.schedule("a", START + 3 * TICK);
+        assertThat(wheel.size()).isEqualTo(2);
+
+        assertThat(wheel.advance(START + TICK)).containsExactly("a");
+        assertThat(wheel.advance(START + 3 * TICK)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advancingBackwardsFiresNothing() {
+        wheel.schedule("a", START + TICK);
+
+        assertThat(wheel.advance(START - 10 * TICK)).isEmpty();
+        assertThat(wheel.advance(START + TICK)).containsExactly("a");
+    }
+}
@@ -105,9 +105,8 @@ const AdminDashboard = () => {
         // Fetch orders count
         let ordersCount = 0;
         try {
-          const ordersRes = await axios.get(`${API_URL}/api/orders/admin/all`);
-          const ordersData = ordersRes.data;
-          ordersCount = Array.isArray(ordersData) ? ordersData.length : 0;
+          const ordersRes = await axios.get(`${API_URL}/api/orders/admin/count`);
+          ordersCount = Number(ordersRes.data) || 0;
         } catch {}
 
         setStats({ users: usersCount, products: productsCount, tools: toolsCount, rentals: rentalsCount, orders: ordersCount, salesToday});
@@ -9,6 +9,8 @@ const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080';
 const OrderManagement = () => {
   const [orders, setOrders] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [selectedOrder, setSelectedOrder] = useState(null);
   const [showDetailsModal, setShowDetailsModal] = useState(false);
   const [showStatusModal, setShowStatusModal] = useState(false);
@@ -27,19 +29,41 @@ const OrderManagement = () => {
 
   useEffect(() => {
     fetchOrders();
-  }, []);
+  }, [filters.status]); // eslint-disable-line react-hooks/exhaustive-deps
+
+  // Orders are paged newest first; delivery status is filtered on the server
+  const fetchOrderPage = (cursor) => axios.get(`${API_URL}/api/orders/admin`, {
+    params: {
+      size: 50,
+      deliveryStatus: filters.status || undefined,
+      cursor: cursor || undefined
+    }
+  });
 
   const fetchOrders = async () => {
     setLoading(true);
     try {
-      const response = await axios.get(`${API_URL}/api/orders/admin/all`);
-      setOrders(response.data);
+      const response = await fetchOrderPage(null);
+      setOrders(response.data.items);
+      setNextCursor(response.data.hasMore ? response.data.nextCursor : null);
     } catch (error) {
       console.error('Error fetching orders:', error);
     }
     setLoading(false);
   };
 
+  const handleLoadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const response = await fetchOrderPage(nextCursor);
+      setOrders(prev => [...prev, ...response.data.items]);
+      setNextCursor(response.data.hasMore ? response.data.nextCursor : null);
+    } catch (error) {
+      console.error('Error fetching orders:', error);
+    }
+    setLoadingMore(false);
+  };
+
   const handleViewDetails = async (orderId) => {
     try {
       const response = await axios.get(`${API_URL}/api/orders/admin/${orderId}`);
@@ -99,6 +123,9 @@ const OrderManagement = () => {
     if (status === 'COD') {
       return <span className="status-badge status-cod">COD</span>;
     }
+    if (status === 'PENDING') {
+      return <span className="status-badge status-pending">PENDING</span>;
+    }
     return status === 'PAID' || status === 'SUCCESS'
       ? <span className="status-badge status-paid">PAID</span>
       : <span className="status-badge status-failed">FAILED</span>;
@@ -308,6 +335,13 @@ const OrderManagement = () => {
                 )}
               </tbody>
             </table>
+            {nextCursor && (
+              <div style={{ textAlign: 'center', padding: '16px' }}>
+                <button className="sort-btn" style={{ margin: '0 auto' }} onClick={handleLoadMore} disabled={loadingMore}>
+                  {loadingMore ? 'Loading...' : 'Load more orders'}
+                </button>
+              </div>
+            )}
           </div>
         )}
 
@@ -1,6 +1,7 @@
 import axios from 'axios';
 import React, { useEffect, useState } from 'react';
 import './ProductManagement.css';
+import { imageSrcFor } from '../../utils/imageHelpers';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080';
 
@@ -51,7 +52,7 @@ const ProductManagement = () => {
         ? { ...product, image: null } // Reset image for file input
         : defaultForm
     );
-    setImagePreview(product?.image ? `data:image/jpeg;base64,${product.image}` : null);
+    setImagePreview(product?.imageUrl || product?.image ? imageSrcFor(product) : null);
     setShowForm(true);
     setMessage('');
   };
@@ -197,6 +198,8 @@ const ProductManagement = () => {
     formData.append('price', form.price);
     formData.append('quantity', form.quantity);
     formData.append('description', form.description);
+    // The version the form was loaded with; the server refuses the edit if the product changed since
+    if (editProduct) formData.append('version', editProduct.version);
     if (form.image) formData.append('image', form.image);
 
     try {
@@ -218,6 +221,12 @@ const ProductManagement = () => {
       closeForm();
     } catch (err) {
       console.error('Error saving product:', err);
+      if (err.response?.status === 409) {
+        // Changed meanwhile (e.g. sold); reload so the next edit starts from the current product
+        setMessage(err.response.data || 'Product was changed meanwhile, please reload and retry.');
+        fetchProducts();
+        return;
+      }
       const errorMsg = err.response?.data?.message || err.response?.data?.error || err.message || 'Error saving product.';
       setMessage(typeof errorMsg === 'string' ? errorMsg : 'Error saving product.');
     }
@@ -281,9 +290,9 @@ const ProductManagement = () => {
             {filtered.map(p => (
               <tr key={p.id}>
                 <td>
-                  {p.image ? (
+                  {p.imageUrl || p.image ? (
                     <img
-                      src={`data:image/jpeg;base64,${p.image}`}
+                      src={imageSrcFor(p)}
                       alt={p.name}
                       className="product-img"
                     />
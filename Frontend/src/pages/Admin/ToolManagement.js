@@ -1,6 +1,6 @@
 import axios from 'axios';
 import React, { useEffect, useState } from 'react';
-import { convertByteToImage } from '../../utils/imageHelpers';
+import { imageSrcFor } from '../../utils/imageHelpers';
 import './ToolManagement.css';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080';
@@ -46,7 +46,7 @@ const ToolManagement = () => {
   const openForm = (tool = null) => {
     setEditTool(tool);
     setForm(tool ? { ...tool } : defaultForm);
-    const preview = tool && tool.image ? convertByteToImage(tool.image) : '';
+    const preview = tool && (tool.imageUrl || tool.image) ? imageSrcFor(tool) : '';
     setImagePreview(preview);
     setShowForm(true);
     setMessage('');
@@ -88,6 +88,8 @@ const ToolManagement = () => {
       // Prepare data - ensure numeric fields are numbers
       const toolData = {
         ...form,
+        // The version the form was loaded with; the server refuses the edit if the tool changed since
+        version: editTool ? editTool.version : undefined,
         dailyRate: parseFloat(form.dailyRate) || 0,
         totalStock: parseInt(form.totalStock) || 1,
         stockQuantity: parseInt(form.stockQuantity) || 1,
@@ -111,6 +113,10 @@ const ToolManagement = () => {
       console.error('Error saving tool:', error);
       console.error('Error response:', error.response?.data);
       setMessage(error.response?.data || 'Error saving tool.');
+      if (error.response?.status === 409) {
+        // Changed meanwhile (e.g. rented); reload so the next edit starts from the current tool
+        fetchTools();
+      }
     }
   };
 
@@ -147,8 +153,8 @@ const ToolManagement = () => {
             {filtered.map(t => (
               <tr key={t.id}>
                 <td>
-                  {t.image ? (
-                    <img src={convertByteToImage(t.image)} alt={t.name} style={{ width: 48, height: 48, objectFit: 'cover', borderRadius: 6 }} />
+                  {t.imageUrl || t.image ? (
+                    <img src={imageSrcFor(t)} alt={t.name} style={{ width: 48, height: 48, objectFit: 'cover', borderRadius: 6 }} />
                   ) : (
                     <div style={{ width: 48, height: 48, background: '#f1f3f5', borderRadius: 6, display: 'flex', alignItems: 'center', justifyContent: 'center', color: '#888', fontSize: 12 }}>No Image</div>
                   )}
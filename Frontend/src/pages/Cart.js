@@ -1,8 +1,9 @@
 import React, { useEffect, useState } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { FaTrash, FaArrowLeft, FaShoppingCart, FaCreditCard } from 'react-icons/fa';
-import { convertByteToImage } from '../utils/imageHelpers';
+import { convertByteToImage, resolveImageUrl } from '../utils/imageHelpers';
 import PaymentForm from '../components/PaymentForm';
+import { authHeaders, handleUnauthorized } from '../utils/Auth';
 import './Cart.css';
 
 const Cart = () => {
@@ -25,8 +26,9 @@ const Cart = () => {
     setLoading(true);
     setError('');
     console.log('🔄 Loading cart for user:', USER_ID);
-    fetch(`${API_BASE}/cart/${USER_ID}`)
+    fetch(`${API_BASE}/cart/${USER_ID}`, { headers: authHeaders() })
       .then(async (res) => {
+        if (handleUnauthorized(res)) return null;
         if (!res.ok) {
           const text = await res.text();
           throw new Error(text || 'Failed to load cart');
@@ -34,6 +36,7 @@ const Cart = () => {
         return res.json();
       })
       .then((data) => {
+        if (!data) return;
         console.log('✅ Cart data received:', data);
         console.log('  - Products count:', data.products?.length || 0);
         console.log('  - Rentals count:', data.rentals?.length || 0);
@@ -47,7 +50,7 @@ const Cart = () => {
             unitPrice: Number(p.unitPrice || 0),
             quantity: p.quantity,
             subtotal: Number(p.subtotal || (p.unitPrice * p.quantity) || 0),
-            imageSrc: convertByteToImage(imageRaw, placeholderImage)
+            imageSrc: p.imageUrl ? resolveImageUrl(p.imageUrl, placeholderImage) : convertByteToImage(imageRaw, placeholderImage)
           });
         });
         
@@ -109,10 +112,10 @@ const Cart = () => {
     setError('');
     fetch(`${API_BASE}/cart/product/${userId}/${productId}`, {
       method: 'PUT',
-      headers: { 'Content-Type': 'application/json' },
+      headers: { 'Content-Type': 'application/json', ...authHeaders() },
       body: JSON.stringify({ quantity: newQuantity })
     })
-      .then(async (res) => { if (!res.ok) { throw new Error(await res.text()); } })
+      .then(async (res) => { if (handleUnauthorized(res)) return; if (!res.ok) { throw new Error(await res.text()); } })
       .then(() => loadCart())
       .catch((err) => { console.error(err); setError('Failed to update product'); });
   };
@@ -127,26 +130,26 @@ const Cart = () => {
     setError('');
     fetch(`${API_BASE}/cart/rental/${userId}/${rentalId}`, {
       method: 'PUT',
-      headers: { 'Content-Type': 'application/json' },
+      headers: { 'Content-Type': 'application/json', ...authHeaders() },
       body: JSON.stringify(payload)
     })
-      .then(async (res) => { if (!res.ok) { throw new Error(await res.text()); } })
+      .then(async (res) => { if (handleUnauthorized(res)) return; if (!res.ok) { throw new Error(await res.text()); } })
       .then(() => loadCart())
       .catch((err) => { console.error(err); setError('Failed to update rental'); });
   };
 
   const removeProduct = (userId, productId) => {
     setError('');
-    fetch(`${API_BASE}/cart/product/${userId}/${productId}`, { method: 'DELETE' })
-      .then(async (res) => { if (!res.ok) { throw new Error(await res.text()); } })
+    fetch(`${API_BASE}/cart/product/${userId}/${productId}`, { method: 'DELETE', headers: authHeaders() })
+      .then(async (res) => { if (handleUnauthorized(res)) return; if (!res.ok) { throw new Error(await res.text()); } })
       .then(() => loadCart())
       .catch((err) => { console.error(err); setError('Failed to remove product'); });
   };
 
   const removeRental = (userId, rentalId) => {
     setError('');
-    fetch(`${API_BASE}/cart/rental/${userId}/${rentalId}`, { method: 'DELETE' })
-      .then(async (res) => { if (!res.ok) { throw new Error(await res.text()); } })
+    fetch(`${API_BASE}/cart/rental/${userId}/${rentalId}`, { method: 'DELETE', headers: authHeaders() })
+      .then(async (res) => { if (handleUnauthorized(res)) return; if (!res.ok) { throw new Error(await res.text()); } })
       .then(() => loadCart())
       .catch((err) => { console.error(err); setError('Failed to remove rental'); });
   };
@@ -248,9 +251,10 @@ const Cart = () => {
     try {
       const res = await fetch(`${API_BASE}/cart/${USER_ID}/checkout`, {
         method: 'POST',
-        headers: { 'Content-Type': 'application/json' },
+        headers: { 'Content-Type': 'application/json', ...authHeaders() },
         body: JSON.stringify(body)
       });
+      if (handleUnauthorized(res)) return;
       
       if (!res.ok) {
         const text = await res.text();
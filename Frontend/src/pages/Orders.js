@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { toast } from 'react-toastify';
+import { authHeaders, handleUnauthorized } from '../utils/Auth';
 import './Orders.css';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080';
@@ -24,7 +25,8 @@ const Orders = () => {
 
   const fetchOrders = async (userId) => {
     try {
-      const response = await fetch(`${API_URL}/api/orders/${userId}`);
+      const response = await fetch(`${API_URL}/api/orders/${userId}`, { headers: authHeaders() });
+      if (handleUnauthorized(response)) return;
       
       if (response.ok) {
         const data = await response.json();
@@ -93,6 +95,9 @@ const Orders = () => {
     }
   };
 
+  // Rentals booked without a checkout order have no orderId; they are listed by rental id
+  const orderKey = (order) => order.orderId ?? `R${order.items[0]?.rentalId}`;
+
   const toggleOrderExpansion = (orderId) => {
     setExpandedOrder(expandedOrder === orderId ? null : orderId);
   };
@@ -151,10 +156,10 @@ const Orders = () => {
         <tbody>
           {orders.map((order)=>(
             <>
-            <tr key={order.orderId}
-                className={`${expandedOrder === order.orderId ? 'expanded' : ''}`}
-                onClick={() => toggleOrderExpansion(order.orderId)}>
-              <td className="order-id">#{order.orderId}</td>
+            <tr key={orderKey(order)}
+                className={`${expandedOrder === orderKey(order) ? 'expanded' : ''}`}
+                onClick={() => toggleOrderExpansion(orderKey(order))}>
+              <td className="order-id">#{orderKey(order)}</td>
               <td className="items-count">{order.items.length}</td>
               <td className="order-date">{formatDate(order.orderDate)}</td>
               <td className="payment-status">
@@ -175,11 +180,11 @@ const Orders = () => {
               <td className="order-total">{formatPrice(order.total)}</td>
               <td className="expand-action">
                       <span className="expand-icon">
-                      {expandedOrder === order.orderId ? '▲' : '▼'}
+                      {expandedOrder === orderKey(order) ? '▲' : '▼'}
                       </span>
               </td>
             </tr>
-            {expandedOrder === order.orderId && (
+            {expandedOrder === orderKey(order) && (
                 <tr className="order-details-row">
                     <td colSpan="8" className="order-details-cell">
                     <div className="order-products-section">
@@ -1,7 +1,7 @@
 import React, { useState, useEffect } from 'react';
 import { useParams, Link } from 'react-router-dom';
 import axios from 'axios';
-import { convertByteToImage } from '../utils/imageHelpers';
+import { imageSrcFor } from '../utils/imageHelpers';
 import { FaStar, FaShoppingCart, FaHeart, FaShare, FaTruck, FaShieldAlt, FaArrowLeft } from 'react-icons/fa';
 import './ProductDetail.css';
 
@@ -21,7 +21,7 @@ const ProductDetail = () => {
       .get(`${API_URL}/api/products/${id}`)
       .then((res) => {
   const data = res.data;
-  const imageSrc = convertByteToImage(data.image, placeholderImage);
+  const imageSrc = imageSrcFor(data, placeholderImage);
 
         
         const formattedProduct = {
@@ -4,7 +4,8 @@ import { FaSearch, FaShoppingCart, FaEye } from 'react-icons/fa';
 import { useNavigate } from 'react-router-dom';
 import './Products.css';
 import axios from 'axios';
-import { convertByteToImage } from '../utils/imageHelpers';
+import { imageSrcFor } from '../utils/imageHelpers';
+import { authHeaders } from '../utils/Auth';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080';
 
@@ -51,10 +52,11 @@ const Products = () => {
             subCategory: p.subCategory || '',
             description: p.description || '',
             price: p.price ?? 0,
-            image: p.image ?? null
+            image: p.image ?? null,
+            imageUrl: p.imageUrl ?? null
           };
           try {
-            product.imageSrc = convertByteToImage(product.image, placeholderImage);
+            product.imageSrc = imageSrcFor(product, placeholderImage);
           } catch (e) {
             console.error('Error converting image for product', product.id, e);
             product.imageSrc = placeholderImage;
@@ -124,7 +126,7 @@ const Products = () => {
         quantity: 1
       };
       
-      const res = await axios.post(`${API_URL}/api/cart/product/add`, payload);
+      const res = await axios.post(`${API_URL}/api/cart/product/add`, payload, { headers: authHeaders() });
       console.log('Cart response:', res.data);
       navigate('/cart');
     } catch (error) {
@@ -3,6 +3,7 @@ import { useParams, Link, useNavigate } from 'react-router-dom';
 import { FaStar, FaCalendar, FaClock, FaTruck, FaShieldAlt, FaArrowLeft, FaPhone, FaEnvelope, FaTools, FaCheckCircle, FaTimesCircle, FaExclamationTriangle } from 'react-icons/fa';
 import axios from 'axios';
 import './ServiceDetail.css';
+import { authHeaders } from '../utils/Auth';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080';
 
@@ -243,7 +244,7 @@ const ServiceDetail = () => {
       console.log('Sending rental cart add request:', JSON.stringify(payload));
       
       try {
-        const res = await axios.post(`${API_URL}/api/cart/rental/add`, payload);
+        const res = await axios.post(`${API_URL}/api/cart/rental/add`, payload, { headers: authHeaders() });
         console.log('Rental cart add response:', res.data);
         // Navigate to cart on success; message can be shown in cart if needed
         navigate('/cart');
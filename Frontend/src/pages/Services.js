@@ -2,7 +2,7 @@ import React, { useState, useEffect } from 'react';
 import { Link, useNavigate } from 'react-router-dom';
 import { FaSearch, FaCalendar, FaClock, FaTruck, FaTools, FaStar, FaCheckCircle, FaTimesCircle, FaExclamationTriangle } from 'react-icons/fa';
 import axios from 'axios';
-import { convertByteToImage } from '../utils/imageHelpers';
+import { imageSrcFor } from '../utils/imageHelpers';
 import './Services.css';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080';
@@ -44,7 +44,7 @@ const Services = () => {
           features: [],
           minRentalDays: 1,
           maxRentalDays: 30,
-          imageSrc: convertByteToImage(t.image, 'https://via.placeholder.com/300?text=No+Image')
+          imageSrc: imageSrcFor(t, 'https://via.placeholder.com/300?text=No+Image')
         }));
         setServices(mapped);
         const uniqueCats = Array.from(new Set(mapped.map(m => m.category))).filter(Boolean);
@@ -11,6 +11,21 @@ export const getCurrentUser = () => {
   return JSON.parse(localStorage.getItem('user'));
 };
 
+// Token issued at login; lets the backend identify the user without looking them up
+export const authHeaders = () => {
+  const user = getCurrentUser();
+  return user && user.token ? { Authorization: `Bearer ${user.token}` } : {};
+};
+
+// A 401 means the stored token expired or the server no longer accepts it: drop it and log in again
+export const handleUnauthorized = (response) => {
+  if (response.status !== 401) return false;
+  localStorage.removeItem('user');
+  localStorage.removeItem('isAdmin');
+  window.location.href = '/login';
+  return true;
+};
+
 export const logout = () => {
   localStorage.removeItem('user');
   localStorage.removeItem('isAdmin');
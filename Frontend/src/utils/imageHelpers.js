@@ -1,6 +1,22 @@
+import API_URL from '../config/api';
+
 export function convertByteToImage(image, placeholder = 'https://via.placeholder.com/300?text=No+Image') {
   if (!image) return placeholder;
   // If image already looks like a data URI, return directly
   if (typeof image === 'string' && image.startsWith('data:')) return image;
   return `data:image/png;base64,${image}`;
 }
+
+// Resolve an image path served by the backend (e.g. /api/products/1/image) to an absolute URL
+export function resolveImageUrl(url, placeholder = 'https://via.placeholder.com/300?text=No+Image') {
+  if (!url) return placeholder;
+  if (url.startsWith('http') || url.startsWith('data:')) return url;
+  return `${API_URL}${url}`;
+}
+
+// Pick the best image source for a catalog item: the served image URL if present, else legacy inline bytes
+export function imageSrcFor(item, placeholder = 'https://via.placeholder.com/300?text=No+Image') {
+  if (!item) return placeholder;
+  if (item.imageUrl) return resolveImageUrl(item.imageUrl, placeholder);
+  return convertByteToImage(item.image, placeholder);
+}